@@ -0,0 +1,67 @@
+package populationModel;
+
+import org.openjdk.jmh.annotations.*;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Entries and exits of the PopulationTable at a steady size, as in an individual simulation, and a scan of the
+ * table. It is in the package of the table, because adding and removing people is package-private.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PopulationTableBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int size;
+
+    private PopulationTable table;
+    /**
+     * IDs of the people in the table, the one at position leaves next
+     */
+    private int[] people;
+    private int position;
+    private int now;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        table = new PopulationTable(size);
+        people = new int[size];
+        for (int i = 0; i < size; i++) {
+            people[i] = enter();
+        }
+    }
+
+    /**
+     * the person who entered first leaves and a newcomer takes the place
+     */
+    @Benchmark
+    public int exitAndEntry() {
+        table.remove(people[position]);
+        people[position] = enter();
+        if (++position == size) {
+            position = 0;
+        }
+        return people[position];
+    }
+
+    @Benchmark
+    public int countWomen() {
+        return table.count(true, now, 20, 40);
+    }
+
+    private int enter() {
+        now++;
+        boolean female = (now & 1) == 0;
+        int person = table.add(female);
+        table.setLife(person, now, now + size, Action.DEATH);
+        if (female) {
+            table.setNextBirth(person, now + 25);
+        }
+        return person;
+    }
+}
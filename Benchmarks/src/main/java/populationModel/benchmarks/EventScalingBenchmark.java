@@ -0,0 +1,71 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import populationModel.Simulation;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole runs with a given number of events (births, deaths, immigrations and emigrations), instead of a given
+ * population size. The population of InputFiles.writeStationary keeps its size, so the number of events grows with
+ * the population only and the engines are compared at the same work per time step. The counter events reports the
+ * time per event which actually happened.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 2, time = 1)
+@Measurement(iterations = 3, time = 1)
+@Fork(1)
+public class EventScalingBenchmark {
+
+    @Param({"1000000", "10000000", "100000000"})
+    public long events;
+
+    @Param({"1000"})
+    public int horizon;
+
+    @Param({"individual", "counts", "continuous"})
+    public String engine;
+
+    /**
+     * events which happened while stepping
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.OPERATIONS)
+    public static class Events {
+        public long events;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            events = 0;
+        }
+    }
+
+    private Simulation sim;
+    private int[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        int populationSize = (int) Math.round(events / (InputFiles.STATIONARY_EVENTS * horizon));
+        sim = new Simulation(InputFiles.writeStationary(populationSize, horizon, engine));
+        buffer = new int[Simulation.COLUMNS];
+    }
+
+    /**
+     * reset and step through all time steps
+     */
+    @Benchmark
+    public void run(Events counter, Blackhole bh) {
+        sim.reset(0);
+        while (sim.hasNext()) {
+            sim.next(buffer);
+            for (int c = 3; c < Simulation.COLUMNS; c++) {
+                counter.events += buffer[c];
+            }
+            bh.consume(buffer);
+        }
+    }
+}
@@ -0,0 +1,98 @@
+package populationModel.benchmarks;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Writes input files with the example parameters of Calibration/init.txt, scaled to a given population size
+ */
+final class InputFiles {
+    // rates of the example, see writeStationary
+    private static final double MU_DEATH_F = 86.6900;
+    private static final double MU_DEATH_M = 85.6292;
+    private static final double MU_BIRTH = 34.4948;
+    private static final double MU_EMIGRATION = 77.3453;
+
+    // per person and time step, half of the people are women
+    private static final double BIRTHS = 0.5 / MU_BIRTH;
+    private static final double EXITS = 0.5 / MU_DEATH_F + 0.5 / MU_DEATH_M + 1 / MU_EMIGRATION;
+    private static final double NET_LOSS = EXITS - BIRTHS;
+
+    /**
+     * expected number of births, deaths, immigrations and emigrations per person and time step of writeStationary
+     */
+    static final double STATIONARY_EVENTS = BIRTHS + EXITS + NET_LOSS;
+
+    private InputFiles() {
+    }
+
+    /**
+     * @param populationSize number of people at time 0, half of them women
+     * @param horizon        number of time steps
+     * @param engine         name of an EngineMode
+     * @return path of a temporary input file, deleted when the JVM exits
+     * @throws IOException if the file cannot be written
+     */
+    static String write(int populationSize, int horizon, String engine) throws IOException {
+        File file = File.createTempFile("benchmark", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("time_steps = " + horizon);
+            out.println("seed = 42");
+            out.println("engine = " + engine);
+            // the birth rate of the example reaches 1 after about 30 time steps, which only this scheduling allows
+            out.println("birth_scheduling = next");
+            out.println("init_f = " + populationSize / 2);
+            out.println("init_m = " + (populationSize - populationSize / 2));
+            // immigration is scaled like the population
+            out.println("lambda_immi = " + 101.4077 * populationSize / 8351);
+            out.println("slope_immi_rate = -0.1917");
+            out.println("imm_prop_female = 0.5");
+            out.println("mu_death_f = 86.6900");
+            out.println("slope_death_rate_f = 0.0071");
+            out.println("mu_death_m = 85.6292");
+            out.println("slope_death_rate_m = 0.0066");
+            out.println("mu_birth = 34.4948");
+            out.println("slope_birth_rate = 0.0291");
+            out.println("mu_emigration = 77.3453");
+            out.println("slope_emigration_rate = 0.0005");
+        }
+        return file.getPath();
+    }
+
+    /**
+     * like write, but all rates are constant and immigration replaces the people which the example loses per time
+     * step, so the population stays at its initial size in the mean however long the run is
+     *
+     * @param populationSize number of people at time 0, half of them women
+     * @param horizon        number of time steps
+     * @param engine         name of an EngineMode
+     * @return path of a temporary input file, deleted when the JVM exits
+     * @throws IOException if the file cannot be written
+     */
+    static String writeStationary(int populationSize, int horizon, String engine) throws IOException {
+        File file = File.createTempFile("benchmark", ".txt");
+        file.deleteOnExit();
+        try (PrintWriter out = new PrintWriter(file)) {
+            out.println("time_steps = " + horizon);
+            out.println("seed = 42");
+            out.println("engine = " + engine);
+            out.println("birth_scheduling = next");
+            out.println("init_f = " + populationSize / 2);
+            out.println("init_m = " + (populationSize - populationSize / 2));
+            out.println("lambda_immi = " + NET_LOSS * populationSize);
+            out.println("slope_immi_rate = 0");
+            out.println("imm_prop_female = 0.5");
+            out.println("mu_death_f = " + MU_DEATH_F);
+            out.println("slope_death_rate_f = 0");
+            out.println("mu_death_m = " + MU_DEATH_M);
+            out.println("slope_death_rate_m = 0");
+            out.println("mu_birth = " + MU_BIRTH);
+            out.println("slope_birth_rate = 0");
+            out.println("mu_emigration = " + MU_EMIGRATION);
+            out.println("slope_emigration_rate = 0");
+        }
+        return file.getPath();
+    }
+}
@@ -0,0 +1,97 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import populationModel.Action;
+import populationModel.BirthScheduling;
+import populationModel.EventHistory;
+import populationModel.person.Person;
+import populationModel.util.RandomStream;
+import populationModel.util.RandomStreams;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Drawing the life of a newcomer and adding its events to the event list, as Simulation does for every birth and
+ * immigration; the entry into the PopulationTable is measured by PopulationTableBenchmark
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class PersonBenchmark {
+    // rates of the example at time 0
+    private static final double DEATH_F = 1 / 86.69;
+    private static final double DEATH_M = 1 / 85.6292;
+    private static final double EMIGRATION = 1 / 77.3453;
+    private static final double BIRTH = 1 / 34.4948;
+
+    @Param({"10", "50"})
+    public int horizon;
+
+    @Param({"true", "false"})
+    public boolean trackIDs;
+
+    @Param({"lifetime", "next"})
+    public String births;
+
+    private RandomStreams random;
+    private RandomStream death;
+    private RandomStream emigration;
+    private BirthScheduling scheduling;
+    private EventHistory eventList;
+    private int id;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new RandomStreams(42, 0);
+        death = random.death();
+        emigration = random.emigration();
+        scheduling = BirthScheduling.parse(births);
+    }
+
+    /**
+     * a fresh event list per iteration, so the ID lists do not grow without bounds
+     */
+    @Setup(Level.Iteration)
+    public void newEventList() {
+        eventList = new EventHistory(Math.min(horizon + 1, EventHistory.DEFAULT_WINDOW), horizon, random, trackIDs,
+                scheduling);
+    }
+
+    /**
+     * exit, then the births of her lifetime or only the first one
+     */
+    @Benchmark
+    public int addWoman() {
+        int person = nextID();
+        double lifetime = addExit(true, person, DEATH_F);
+        if (scheduling == BirthScheduling.LIFETIME) {
+            return eventList.addLifetimeBirths(0, (int) lifetime, BIRTH);
+        }
+        return eventList.addNextBirth(person, 0, (int) lifetime, BIRTH);
+    }
+
+    @Benchmark
+    public double addMan() {
+        return addExit(false, nextID(), DEATH_M);
+    }
+
+    private int nextID() {
+        return trackIDs ? id++ & Integer.MAX_VALUE : Person.NO_ID;
+    }
+
+    /**
+     * draw whether the newcomer dies or emigrates first, like Simulation.drawExit, and schedule it
+     *
+     * @return time step of the exit
+     */
+    private double addExit(boolean female, int person, double deathRate) {
+        double d = death.randomExp(deathRate);
+        double e = emigration.randomExp(EMIGRATION);
+        double lifetime = Math.floor(0.5 + Math.min(d, e));
+        eventList.addExit(female, person, (int) lifetime, (d < e) ? Action.DEATH : Action.EMIGRATION);
+        return lifetime;
+    }
+}
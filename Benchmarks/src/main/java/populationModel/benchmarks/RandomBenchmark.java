@@ -0,0 +1,95 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import populationModel.util.RandomGenerator;
+import populationModel.util.RandomStream;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of the samplers. The fill benchmarks draw a whole block per call, so their scores are per variate as
+ * well.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RandomBenchmark {
+    private static final int BLOCK = 1024;
+
+    @Param({"0.5", "50"})
+    public double mean;
+
+    private RandomStream random;
+    private final double[] doubles = new double[BLOCK];
+    private final int[] ints = new int[BLOCK];
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        random = new RandomStream(42);
+    }
+
+    @Benchmark
+    public double threadLocalExp() {
+        return RandomGenerator.randomExp(1 / mean);
+    }
+
+    @Benchmark
+    public double exp() {
+        return random.randomExp(1 / mean);
+    }
+
+    @Benchmark
+    public double expInversion() {
+        return random.randomExpInversion(1 / mean);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double[] fillExp() {
+        random.fillExp(doubles, 0, BLOCK, 1 / mean);
+        return doubles;
+    }
+
+    @Benchmark
+    public double unif() {
+        return random.randomUnif();
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double[] fillUnif() {
+        random.fillUnif(doubles, 0, BLOCK);
+        return doubles;
+    }
+
+    @Benchmark
+    public double norm() {
+        return random.randomNorm(mean, 1);
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public double[] fillNorm() {
+        random.fillNorm(doubles, 0, BLOCK, mean, 1);
+        return doubles;
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(BLOCK)
+    public int fillBernoulli() {
+        return random.fillBernoulli(ints, 0, BLOCK, 0.3);
+    }
+
+    @Benchmark
+    public long poisson() {
+        return random.randomPoisson(mean);
+    }
+
+    @Benchmark
+    public long binomial() {
+        return random.randomBinomial(1000, mean / 100);
+    }
+}
@@ -0,0 +1,56 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import populationModel.Simulation;
+
+import java.io.IOException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Whole runs and their parts: reset (including initPopulation) and stepping with next()
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SimulationBenchmark {
+
+    @Param({"10000", "100000"})
+    public int populationSize;
+
+    @Param({"10", "50"})
+    public int horizon;
+
+    @Param({"individual", "counts", "continuous"})
+    public String engine;
+
+    private Simulation sim;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sim = new Simulation(InputFiles.write(populationSize, horizon, engine));
+    }
+
+    /**
+     * new random streams, empty population and the initial population with all its events
+     */
+    @Benchmark
+    public Simulation reset() {
+        sim.reset(0);
+        return sim;
+    }
+
+    /**
+     * reset and step through all time steps
+     */
+    @Benchmark
+    public void run(Blackhole bh) {
+        sim.reset(0);
+        while (sim.hasNext()) {
+            bh.consume(sim.next());
+        }
+    }
+}
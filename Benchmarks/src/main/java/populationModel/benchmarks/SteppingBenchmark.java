@@ -0,0 +1,107 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.BenchmarkParams;
+import org.openjdk.jmh.infra.Blackhole;
+import org.openjdk.jmh.infra.IterationParams;
+import org.openjdk.jmh.runner.IterationType;
+import populationModel.Simulation;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Stepping through whole runs with next() and with next(int[]). Besides -prof gc, which includes the reset, the
+ * counter stepBytes reports the bytes allocated by the time steps alone. Every engine reuses the memory of the
+ * previous run, so with next(int[]) it must be 0 after the warmup; a measurement iteration which allocates fails.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(1)
+public class SteppingBenchmark {
+
+    @Param({"100000"})
+    public int populationSize;
+
+    /**
+     * the example's birth rate grows with time, longer runs let the population explode
+     */
+    @Param({"25"})
+    public int horizon;
+
+    @Param({"individual", "counts", "continuous", "tau_leap"})
+    public String engine;
+
+    /**
+     * bytes allocated while stepping, summed over the runs of an iteration
+     */
+    @State(Scope.Thread)
+    @AuxCounters(AuxCounters.Type.EVENTS)
+    public static class Allocation {
+        public long stepBytes;
+
+        @Setup(Level.Iteration)
+        public void clear() {
+            stepBytes = 0;
+        }
+
+        /**
+         * fail, if next(int[]) allocated during a measurement iteration
+         */
+        @TearDown(Level.Iteration)
+        public void check(BenchmarkParams benchmark, IterationParams iteration) {
+            if (iteration.getType() == IterationType.MEASUREMENT && benchmark.getBenchmark().endsWith(".nextInto")
+                    && stepBytes > 0) {
+                throw new IllegalStateException(String.format("Stepping %s allocated %d bytes after the warmup.",
+                        benchmark.getParam("engine"), stepBytes));
+            }
+        }
+    }
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    private Simulation sim;
+    private int[] buffer;
+
+    @Setup(Level.Trial)
+    public void setUp() throws IOException {
+        sim = new Simulation(InputFiles.write(populationSize, horizon, engine));
+        buffer = new int[Simulation.COLUMNS];
+    }
+
+    /**
+     * reset, then one new array per time step
+     */
+    @Benchmark
+    public void next(Allocation allocation, Blackhole bh) {
+        sim.reset(0);
+        long before = allocatedBytes();
+        while (sim.hasNext()) {
+            bh.consume(sim.next());
+        }
+        allocation.stepBytes += allocatedBytes() - before;
+    }
+
+    /**
+     * reset, then every time step is written into the same array
+     */
+    @Benchmark
+    public void nextInto(Allocation allocation, Blackhole bh) {
+        sim.reset(0);
+        long before = allocatedBytes();
+        while (sim.hasNext()) {
+            sim.next(buffer);
+            bh.consume(buffer);
+        }
+        allocation.stepBytes += allocatedBytes() - before;
+    }
+
+    private static long allocatedBytes() {
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
@@ -0,0 +1,68 @@
+package populationModel.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Scheduling single events in a time unit, the innermost operation of the bucket engines
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeUnitBenchmark {
+
+    /**
+     * events per time unit before it is cleared, like the population size of a run
+     */
+    @Param({"1000", "100000"})
+    public int events;
+
+    @Param({"true", "false"})
+    public boolean trackIDs;
+
+    private populationModel.TimeUnit timeUnit;
+    private int scheduled;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        timeUnit = new populationModel.TimeUnit(trackIDs);
+    }
+
+    private void clearIfFull() {
+        if (++scheduled == events) {
+            timeUnit.clear();
+            scheduled = 0;
+        }
+    }
+
+    @Benchmark
+    public populationModel.TimeUnit birth() {
+        timeUnit.scheduleGirlBirth();
+        clearIfFull();
+        return timeUnit;
+    }
+
+    @Benchmark
+    public populationModel.TimeUnit deathWoman() {
+        timeUnit.scheduleDeath(true, scheduled);
+        clearIfFull();
+        return timeUnit;
+    }
+
+    @Benchmark
+    public populationModel.TimeUnit emigrationMan() {
+        timeUnit.scheduleEmigration(false, scheduled);
+        clearIfFull();
+        return timeUnit;
+    }
+
+    @Benchmark
+    public populationModel.TimeUnit pendingBirth() {
+        timeUnit.schedulePendingBirth(0, 0, 80, 0.03, 1.5);
+        clearIfFull();
+        return timeUnit;
+    }
+}
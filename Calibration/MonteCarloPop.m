@@ -1,49 +1,27 @@
 function [meanVal,p] = MonteCarloPop(GoNo,par,init)
 %MonteCarloPop summarises the output of GoNo runs for 11 years (2010-2020),
-%but time_steps MUST BE 11 in init.txt, needs meanArray.m class
-%definition in folder Calibration
+%needs meanArray.m class definition in folder Calibration. All runs are
+%computed in parallel by a single call of runReplications; the duration
+%is set there, it does not need to be 11 in init.txt
     
-    % Auxiliary Variables
-    N = zeros(11,9); 
-    M = zeros(GoNo,22);
-    
-    % MonteCarlo-ing
+    simu = javaObject("populationModel.ConfigurableSimulation","init.txt");
     if isempty(par) == 1
-        for j = 1:GoNo
-            simu = javaObject("populationModel.ConfigurableSimulation","init.txt");               
-            for i = 1:11
-                N(i,:) = simu.step();
-            end
-                M(j,1:11) = N(:,2);
-                M(j,12:22) = N(:,3);
-        end
-    else
-        for j = 1:GoNo
-           % need to sim through with original values, otherwise warning
-           % Simulation still runnable occurs. THEN reset parameters. 
-           simu = javaObject("populationModel.ConfigurableSimulation","init.txt"); 
-           for i = 1:11
-                N(i,:) = simu.step();
-           end
-           simu.resetAll(par);
-           if isempty(init) == 0
-               simu.resetInitialPopulation(init(1),init(2));
-           end
-           for i = 1:11
-                N(i,:) = simu.step();
-            end
-                M(j,1:11) = N(:,2);
-                M(j,12:22) = N(:,3);
-        end
+        par = simu.getParams();
+    end
+    if isempty(init) == 1
+        init = [];
     end
+    
+    % MonteCarlo-ing, rows are the time steps, columns as in simu.step()
+    N = simu.runReplications(par, int32(init), GoNo, 11);
         
     % Put values in meanArray struct
-    meanArray.meanFemale(:) = round(mean(M(:,1:11)));
-    meanArray.meanMale(:) = round(mean(M(:,12:22)));
+    meanArray.meanFemale(:) = round(N(:,2))';
+    meanArray.meanMale(:) = round(N(:,3))';
 
     % return struct
     meanVal = meanArray;
-    p = simu.getParams();
+    p = par;
 
 end
 
@@ -0,0 +1,25 @@
+function [data,header,description] = readResults(fileName)
+%readResults loads a file written by "PopulationModel -f binary",
+%data(t,c,r) is column c at time step t of repetition r, header holds the
+%column names
+    fid = fopen(fileName, 'r', 'ieee-le');
+    if fread(fid, 1, 'int32') ~= hex2dec('4d504f50')
+        fclose(fid);
+        error('%s is not a binary result file', fileName);
+    end
+    fread(fid, 1, 'int32'); % version
+    columns = fread(fid, 1, 'int32');
+    header = strsplit(native2unicode(fread(fid, fread(fid, 1, 'int32'), 'uint8=>uint8')', 'UTF-8'), ', ');
+    description = native2unicode(fread(fid, fread(fid, 1, 'int32'), 'uint8=>uint8')', 'UTF-8');
+
+    blocks = {};
+    while true
+        rep = fread(fid, 2, 'int32'); % repetition index, time steps
+        if numel(rep) < 2
+            break;
+        end
+        blocks{end+1} = reshape(fread(fid, rep(2)*columns, 'int32'), rep(2), columns);
+    end
+    fclose(fid);
+    data = cat(3, blocks{:});
+end
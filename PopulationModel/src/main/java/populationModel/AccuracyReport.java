@@ -0,0 +1,62 @@
+package populationModel;
+
+import populationModel.output.Aggregate;
+
+import java.io.PrintWriter;
+import java.util.Locale;
+
+/**
+ * Compares an (approximate) engine with a reference engine: both run the same number of repetitions with the same
+ * parameters, then mean and standard deviation of every statistic are reported per time step, together with the
+ * z-score of the difference of the means. Absolute z-scores well above 3 point to a bias of the approximation.
+ */
+public class AccuracyReport {
+    public static final String HEADER = "time, column, mean, sd, referenceMean, referenceSd, relativeDifference, z";
+
+    private final Simulation prototype;
+    private final Simulation reference;
+    private final int threads;
+
+    /**
+     * @param prototype       simulation with the engine to check
+     * @param referenceEngine engine to compare with, usually EngineMode.INDIVIDUAL
+     * @param threads         number of worker threads
+     */
+    public AccuracyReport(Simulation prototype, EngineMode referenceEngine, int threads) {
+        this.prototype = prototype;
+        this.threads = threads;
+        reference = new Simulation(prototype.getParameters().withEngine(referenceEngine));
+    }
+
+    /**
+     * run both engines and write one line per time step and statistic
+     *
+     * @param reps number of repetitions of each engine
+     * @param out  receives the report
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public void write(int reps, PrintWriter out) throws InterruptedException {
+        int steps = Math.min(prototype.getDuration(), reference.getDuration());
+        Aggregate moments = new ReplicationRunner(prototype, threads).aggregate(reps);
+        Aggregate referenceMoments = new ReplicationRunner(reference, threads).aggregate(reps);
+        String[] columns = Simulation.HEADER.split(", ");
+
+        out.println("# " + prototype.getEngine().name().toLowerCase() + " compared with "
+                + reference.getEngine().name().toLowerCase() + ", " + reps + " repetitions each");
+        out.println(HEADER);
+        for (int t = 0; t < steps; t++) {
+            for (int c = 1; c < columns.length; c++) {
+                double mean = moments.mean(t, c);
+                double variance = moments.variance(t, c);
+                double referenceMean = referenceMoments.mean(t, c);
+                double referenceVariance = referenceMoments.variance(t, c);
+                double se = Math.sqrt((variance + referenceVariance) / reps);
+                double z = (se > 0) ? (mean - referenceMean) / se : 0;
+                double relative = (referenceMean != 0) ? (mean - referenceMean) / referenceMean : 0;
+                out.printf(Locale.ROOT, "%d, %s, %.4f, %.4f, %.4f, %.4f, %.6f, %.3f\n", t, columns[c], mean,
+                        Math.sqrt(variance), referenceMean, Math.sqrt(referenceVariance), relative, z);
+            }
+        }
+        out.flush();
+    }
+}
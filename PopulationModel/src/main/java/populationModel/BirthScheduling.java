@@ -0,0 +1,32 @@
+package populationModel;
+
+import java.util.Arrays;
+
+/**
+ * Selects when the births of a woman are drawn, set with the field birth_scheduling in the input file
+ */
+public enum BirthScheduling {
+    /**
+     * all births of a woman are drawn when she enters the population
+     */
+    LIFETIME,
+    /**
+     * only the next birth of a woman is scheduled, the following one is drawn when it happens. The memory per woman
+     * is constant and birth rates of 1 and above are allowed.
+     */
+    NEXT;
+
+    /**
+     * @param name name of the scheduling, case insensitive
+     * @return the associated scheduling
+     */
+    public static BirthScheduling parse(String name) {
+        for (BirthScheduling scheduling : values()) {
+            if (scheduling.name().equalsIgnoreCase(name.trim())) {
+                return scheduling;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown birth scheduling <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+}
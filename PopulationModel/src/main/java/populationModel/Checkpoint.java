@@ -0,0 +1,140 @@
+package populationModel;
+
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Everything needed to continue an interrupted series of repetitions: a snapshot of the current run, the time steps
+ * it has computed so far, and how much of the output was written. The file format is little-endian binary: magic
+ * number, version, repetition, number of repetitions, output length, the computed time steps and the state of the
+ * simulation (parameters, time, random streams, populations and pending events).
+ */
+public final class Checkpoint {
+    static final int MAGIC = 0x504f5043; // "CPOP"
+    static final int VERSION = 7;
+
+    private final SimulationSnapshot snapshot;
+    private final int repetition;
+    private final int repetitions;
+    private final int[][] trajectory;
+    private final long outputLength;
+
+    /**
+     * @param snapshot     state of the current run
+     * @param repetition   index of the current run
+     * @param repetitions  number of runs of the whole series
+     * @param trajectory   time steps of the current run computed so far, not copied
+     * @param outputLength bytes of the output file which belong to the finished runs, -1 if there is no such file
+     */
+    public Checkpoint(SimulationSnapshot snapshot, int repetition, int repetitions, int[][] trajectory,
+                      long outputLength) {
+        if (trajectory.length != snapshot.getTime()) {
+            throw new IllegalArgumentException(String.format(
+                    "The snapshot at time %d needs %d computed time steps, not %d.", snapshot.getTime(),
+                    snapshot.getTime(), trajectory.length));
+        }
+        this.snapshot = snapshot;
+        this.repetition = repetition;
+        this.repetitions = repetitions;
+        this.trajectory = trajectory;
+        this.outputLength = outputLength;
+    }
+
+    /**
+     * write the checkpoint to a temporary file, which then replaces the given file. A crash while writing leaves the
+     * previous checkpoint intact.
+     *
+     * @param path checkpoint file
+     * @throws IOException if writing fails
+     */
+    public void write(Path path) throws IOException {
+        Path temporary = path.resolveSibling(path.getFileName() + ".tmp");
+        try (FileChannel channel = FileChannel.open(temporary, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            CheckpointOutput out = new CheckpointOutput(channel);
+            out.putInt(MAGIC);
+            out.putInt(VERSION);
+            out.putInt(repetition);
+            out.putInt(repetitions);
+            out.putLong(outputLength);
+            out.putInt(trajectory.length);
+            for (int[] row : trajectory) {
+                out.putInts(row, row.length);
+            }
+            snapshot.write(out);
+            out.drain();
+            channel.force(true);
+        }
+        try {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temporary, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+
+    /**
+     * @param path checkpoint file
+     * @return the checkpoint
+     * @throws IOException if the file cannot be read or has a different format
+     */
+    public static Checkpoint read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            CheckpointInput in = new CheckpointInput(channel);
+            if (in.getInt() != MAGIC) {
+                throw new IOException(String.format("<%s> is not a checkpoint.", path));
+            }
+            int version = in.getInt();
+            if (version != VERSION) {
+                throw new IOException(String.format("Unsupported version <%d> of checkpoint <%s>.", version, path));
+            }
+            int repetition = in.getInt();
+            int repetitions = in.getInt();
+            long outputLength = in.getLong();
+            int[][] trajectory = new int[in.getLength()][];
+            for (int t = 0; t < trajectory.length; t++) {
+                trajectory[t] = in.getInts(0);
+            }
+            return new Checkpoint(SimulationSnapshot.read(in), repetition, repetitions, trajectory, outputLength);
+        }
+    }
+
+    /**
+     * @return state of the current run
+     */
+    public SimulationSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * @return index of the current run
+     */
+    public int getRepetition() {
+        return repetition;
+    }
+
+    /**
+     * @return number of runs of the whole series
+     */
+    public int getRepetitions() {
+        return repetitions;
+    }
+
+    /**
+     * @return time steps of the current run computed so far
+     */
+    public int[][] getTrajectory() {
+        return trajectory;
+    }
+
+    /**
+     * @return bytes of the output file which belong to the finished runs, -1 if there is no such file
+     */
+    public long getOutputLength() {
+        return outputLength;
+    }
+}
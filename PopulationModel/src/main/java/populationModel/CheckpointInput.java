@@ -0,0 +1,140 @@
+package populationModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Reads what CheckpointOutput wrote
+ */
+final class CheckpointInput {
+    private final ReadableByteChannel channel;
+    private final ByteBuffer buffer;
+    private boolean endOfFile = false;
+
+    /**
+     * @param channel source, not closed by this object
+     */
+    CheckpointInput(ReadableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(CheckpointOutput.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+    }
+
+    int getInt() throws IOException {
+        fill(4);
+        return buffer.getInt();
+    }
+
+    long getLong() throws IOException {
+        fill(8);
+        return buffer.getLong();
+    }
+
+    double getDouble() throws IOException {
+        fill(8);
+        return buffer.getDouble();
+    }
+
+    boolean getBoolean() throws IOException {
+        return getInt() != 0;
+    }
+
+    /**
+     * @param capacity minimum length of the returned array
+     * @return the written elements, followed by zeros up to the capacity
+     */
+    int[] getInts(int capacity) throws IOException {
+        int n = getLength();
+        int[] values = new int[Math.max(n, capacity)];
+        int i = 0;
+        while (i < n) {
+            fill(4);
+            int k = Math.min(n - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().get(values, i, k);
+            buffer.position(buffer.position() + 4 * k);
+            i += k;
+        }
+        return values;
+    }
+
+    /**
+     * @param capacity minimum length of the returned array
+     * @return the written elements, followed by zeros up to the capacity
+     */
+    long[] getLongs(int capacity) throws IOException {
+        int n = getLength();
+        long[] values = new long[Math.max(n, capacity)];
+        int i = 0;
+        while (i < n) {
+            fill(8);
+            int k = Math.min(n - i, buffer.remaining() / 8);
+            buffer.asLongBuffer().get(values, i, k);
+            buffer.position(buffer.position() + 8 * k);
+            i += k;
+        }
+        return values;
+    }
+
+    /**
+     * @param capacity minimum length of the returned array
+     * @return the written elements, followed by zeros up to the capacity
+     */
+    double[] getDoubles(int capacity) throws IOException {
+        int n = getLength();
+        double[] values = new double[Math.max(n, capacity)];
+        int i = 0;
+        while (i < n) {
+            fill(8);
+            int k = Math.min(n - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().get(values, i, k);
+            buffer.position(buffer.position() + 8 * k);
+            i += k;
+        }
+        return values;
+    }
+
+    String getString() throws IOException {
+        byte[] bytes = new byte[getLength()];
+        int offset = 0;
+        while (offset < bytes.length) {
+            fill(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * @return number of elements of the following array
+     */
+    int getLength() throws IOException {
+        int n = getInt();
+        if (n < 0) {
+            throw new IOException(String.format("Negative length %d, the checkpoint is corrupt.", n));
+        }
+        return n;
+    }
+
+    /**
+     * make sure that at least the given number of bytes can be read from the buffer
+     *
+     * @throws IOException if the file ends before
+     */
+    private void fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfFile) {
+            endOfFile = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        if (buffer.remaining() < bytes) {
+            throw new IOException("The checkpoint ends unexpectedly.");
+        }
+    }
+}
@@ -0,0 +1,123 @@
+package populationModel;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.WritableByteChannel;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Little-endian encoding of the state of a simulation, buffered in a direct buffer and written to a
+ * channel, e.g. a file or a socket.
+ * Arrays are written as their length followed by the elements.
+ */
+final class CheckpointOutput {
+    static final int BUFFER_SIZE = 1 << 20;
+
+    private final WritableByteChannel channel;
+    private final ByteBuffer buffer;
+
+    /**
+     * @param channel destination, not closed by this object
+     */
+    CheckpointOutput(WritableByteChannel channel) {
+        this.channel = channel;
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+    }
+
+    void putInt(int value) throws IOException {
+        ensure(4);
+        buffer.putInt(value);
+    }
+
+    void putLong(long value) throws IOException {
+        ensure(8);
+        buffer.putLong(value);
+    }
+
+    void putDouble(double value) throws IOException {
+        ensure(8);
+        buffer.putDouble(value);
+    }
+
+    void putBoolean(boolean value) throws IOException {
+        putInt(value ? 1 : 0);
+    }
+
+    /**
+     * @param values array, of which the first n elements are written
+     * @param n      number of elements
+     */
+    void putInts(int[] values, int n) throws IOException {
+        putInt(n);
+        int i = 0;
+        while (i < n) {
+            ensure(4);
+            int k = Math.min(n - i, buffer.remaining() / 4);
+            buffer.asIntBuffer().put(values, i, k);
+            buffer.position(buffer.position() + 4 * k);
+            i += k;
+        }
+    }
+
+    /**
+     * @param values array, of which the first n elements are written
+     * @param n      number of elements
+     */
+    void putLongs(long[] values, int n) throws IOException {
+        putInt(n);
+        int i = 0;
+        while (i < n) {
+            ensure(8);
+            int k = Math.min(n - i, buffer.remaining() / 8);
+            buffer.asLongBuffer().put(values, i, k);
+            buffer.position(buffer.position() + 8 * k);
+            i += k;
+        }
+    }
+
+    /**
+     * @param values array, of which the first n elements are written
+     * @param n      number of elements
+     */
+    void putDoubles(double[] values, int n) throws IOException {
+        putInt(n);
+        int i = 0;
+        while (i < n) {
+            ensure(8);
+            int k = Math.min(n - i, buffer.remaining() / 8);
+            buffer.asDoubleBuffer().put(values, i, k);
+            buffer.position(buffer.position() + 8 * k);
+            i += k;
+        }
+    }
+
+    void putString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            ensure(1);
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    /**
+     * write the buffer's content to the channel
+     */
+    void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package populationModel;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Writes checkpoints on a background thread, so the simulation only pays for taking the snapshot. At most one
+ * checkpoint is written at a time; check isBusy before taking the next snapshot to skip it instead of waiting.
+ */
+public class CheckpointWriter implements Closeable {
+    private final Path path;
+    private final ExecutorService thread = Executors.newSingleThreadExecutor(r -> {
+        Thread t = new Thread(r, "checkpoint-writer");
+        t.setDaemon(true);
+        return t;
+    });
+    private Future<?> pending;
+
+    /**
+     * @param path checkpoint file, replaced by every checkpoint
+     */
+    public CheckpointWriter(Path path) {
+        this.path = path;
+    }
+
+    /**
+     * @return true, if the previous checkpoint is still being written
+     */
+    public boolean isBusy() {
+        return pending != null && !pending.isDone();
+    }
+
+    /**
+     * write a checkpoint in the background, after the previous one is finished
+     *
+     * @param checkpoint checkpoint, which must not be changed anymore
+     * @throws IOException if writing the previous checkpoint failed
+     */
+    public void submit(Checkpoint checkpoint) throws IOException {
+        await();
+        pending = thread.submit(() -> {
+            checkpoint.write(path);
+            return null;
+        });
+    }
+
+    /**
+     * wait for the last checkpoint
+     *
+     * @throws IOException if writing it failed
+     */
+    @Override
+    public void close() throws IOException {
+        try {
+            await();
+        } finally {
+            thread.shutdown();
+        }
+    }
+
+    private void await() throws IOException {
+        if (pending == null) {
+            return;
+        }
+        try {
+            pending.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException("Interrupted while writing a checkpoint.");
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof IOException) {
+                throw (IOException) cause;
+            }
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pending = null;
+        }
+    }
+}
@@ -1,7 +1,6 @@
 package populationModel;
 
-import populationModel.util.ImmigrationParameters;
-import populationModel.util.PopulationParameters;
+import populationModel.output.Aggregate;
 
 import java.io.IOException;
 
@@ -71,6 +70,15 @@ public class ConfigurableSimulation {
         this.simulation = new Simulation(inputFile);
     }
 
+    /**
+     * generate a fresh simulation from parameters, which were e.g. read in once for many simulations
+     *
+     * @param parameters all initial parameters
+     */
+    public ConfigurableSimulation(SimulationParameters parameters) {
+        this.simulation = new Simulation(parameters);
+    }
+
     /**
      * perform one step of the simulation with current parameters
      * repeats cyclically (with t=1) when more than @code duration steps
@@ -95,16 +103,51 @@ public class ConfigurableSimulation {
         if (k < 1) {
             throw new IllegalArgumentException("Please provide a positive step count.");
         }
-        int[] res = null;
+        // the skipped time steps are written into the same array
+        int[] res = new int[Simulation.COLUMNS];
         for (int i = 0; i < k; i++) {
             if (!simulation.hasNext()) {
                 simulation.reset();
             }
-            res = simulation.next();
+            simulation.next(res);
         }
         return res;
     }
 
+    /**
+     * like step(k), but keeps every time step, written into arrays of the caller, so that repeated calls allocate
+     * nothing
+     *
+     * @param k   number of steps
+     * @param out receives one row of population statistics per step, at least k rows of length HEADER.length
+     * @return out
+     */
+    public int[][] step(int k, int[][] out) {
+        if (k < 1 || out.length < k) {
+            throw new IllegalArgumentException(String.format("Please provide a positive step count and %d rows.", k));
+        }
+        for (int i = 0; i < k; i++) {
+            if (!simulation.hasNext()) {
+                simulation.reset();
+            }
+            simulation.next(out[i]);
+        }
+        return out;
+    }
+
+    /**
+     * run several independent repetitions with the current parameters in parallel. The state of this simulation
+     * (e.g. the current time step) is not changed.
+     *
+     * @param reps    number of repetitions
+     * @param threads number of threads running repetitions in parallel
+     * @return one array of population statistics per repetition and time step, i.e. [repetition][time][statistic]
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the results
+     */
+    public int[][][] replicate(int reps, int threads) throws InterruptedException {
+        return new ReplicationRunner(simulation, threads).run(reps);
+    }
+
     /**
      * Change the simulation's parameters using a vector of length 10 in the following order:
      * <ol>
@@ -120,42 +163,70 @@ public class ConfigurableSimulation {
      *     <li>slopeEmiRate</li>
      * </ol>
      *
+     * The simulation restarts with the next replication, even if the current run has not finished yet.
+     *
      * @param params a vector of length 10
      */
     public void resetAll(double[] params) {
-        if (params.length != 10) {
-            throw new IllegalArgumentException("Provide an array of exactly 10 parameters");
-        }
-        if (simulation.hasNext()) {
-            System.err.println("Current simulation still runnable.");
-        } else {
-            PopulationParameters women = simulation.getWomenParams();
-            PopulationParameters men = simulation.getMenParams();
-            ImmigrationParameters immigration = simulation.getImmigrationParameters();
-
-            women.setBirthRate(1/params[0]);
-            women.setSlopeBirthRate(params[1]);
-
-            women.setDeathRate(1 / params[2]);
-            women.setSlopeDeathRate(params[3]);
-
-            men.setDeathRate(1 / params[4]);
-            men.setSlopeDeathRate(params[5]);
-
-            immigration.setRate(params[6]);
-            immigration.setSlope(params[7]);
-
-            double emigrationRate = 1 / params[8];
-            double emigrationSlope = params[9];
-            women.setEmigrationRate(emigrationRate);
-            men.setEmigrationRate(emigrationRate);
-            women.setSlopeEmigrationRate(emigrationSlope);
-            men.setSlopeEmigrationRate(emigrationSlope);
+        simulation.setParameters(simulation.getParameters().withParams(params));
+        simulation.reset();
+    }
 
-            simulation.reset();
+    /**
+     * run many repetitions with other parameters in parallel, in a single call. This simulation is not changed, the
+     * repetitions use copies of it with the same seed, so two calls with different parameters use the same random
+     * numbers (common random numbers), which makes their difference less noisy.
+     *
+     * @param params     a vector of length 10, as in resetAll, or null to keep the current parameters
+     * @param initialPop number of women and men at time 0, or null (or empty) to keep the current sizes
+     * @param reps       number of repetitions
+     * @param steps      number of time steps of every repetition, including time 0
+     * @return mean over all repetitions of every statistic of every time step, i.e. [time][statistic]
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the results
+     */
+    public double[][] runReplications(double[] params, int[] initialPop, int reps, int steps)
+            throws InterruptedException {
+        Aggregate aggregate = aggregate(params, initialPop, reps, steps, Runtime.getRuntime().availableProcessors());
+        double[][] means = new double[aggregate.getSteps()][aggregate.getColumns()];
+        for (int t = 0; t < means.length; t++) {
+            for (int c = 0; c < means[t].length; c++) {
+                means[t][c] = aggregate.mean(t, c);
+            }
         }
+        return means;
     }
 
+    /**
+     * like runReplications, but returns variances and quantiles as well
+     *
+     * @param params     a vector of length 10, as in resetAll, or null to keep the current parameters
+     * @param initialPop number of women and men at time 0, or null (or empty) to keep the current sizes
+     * @param reps       number of repetitions
+     * @param steps      number of time steps of every repetition, including time 0
+     * @param threads    number of threads running repetitions in parallel
+     * @return summary statistics per time step and statistic
+     * @throws InterruptedException if the calling thread is interrupted while waiting for the results
+     */
+    public Aggregate aggregate(double[] params, int[] initialPop, int reps, int steps, int threads)
+            throws InterruptedException {
+        if (params != null && params.length != 10) {
+            throw new IllegalArgumentException("Provide an array of exactly 10 parameters");
+        }
+        if (initialPop != null && initialPop.length != 0 && initialPop.length != 2) {
+            throw new IllegalArgumentException("Provide the initial number of women and men");
+        }
+        if (steps < 1) {
+            throw new IllegalArgumentException("Please provide a positive step count.");
+        }
+        SimulationParameters parameters = simulation.getParameters().withDuration(steps);
+        if (params != null) {
+            parameters = parameters.withParams(params);
+        }
+        if (initialPop != null && initialPop.length == 2) {
+            parameters = parameters.withInitialPopulation(initialPop[0], initialPop[1]);
+        }
+        return new ReplicationRunner(parameters, threads).aggregate(reps);
+    }
 
     /**
      * Get the simulation's parameters (a vector of length 10) in the following order:
@@ -175,56 +246,96 @@ public class ConfigurableSimulation {
      * @return  a vector of length 10
      */
     public double[] getParams() {
-        PopulationParameters women = simulation.getWomenParams();
-        PopulationParameters men = simulation.getMenParams();
-        ImmigrationParameters immigration = simulation.getImmigrationParameters();
+        return simulation.getParameters().getParams();
+    }
 
-        double[] params = new double[10];
+    /**
+     * Change the initial population size and restart the simulation
+     * @param sizeF number of female inhabitants
+     * @param sizeM number of male inhabitants
+     */
+    public void resetInitialPopulation(int sizeF, int sizeM) {
+        simulation.setParameters(simulation.getParameters().withInitialPopulation(sizeF, sizeM));
+        simulation.reset();
+    }
 
-        params[0] = 1/women.getBirthRate();
-        params[1] = women.getSlopeBirthRate();
+    /**
+     * set number of consecutive time steps the simulation models, and restart the simulation
+     *
+     * @param duration changed simulation duration
+     */
+    public void resetDuration(int duration) {
+        simulation.setParameters(simulation.getParameters().withDuration(duration));
+        simulation.reset();
+    }
 
-        params[2] = 1/women.getDeathRate();
-        params[3] = women.getSlopeDeathRate();
+    /**
+     * change the master seed of the random streams and restart with the first replication. Two simulations with
+     * equal parameters and seeds produce identical results.
+     *
+     * @param seed master seed
+     */
+    public void resetSeed(long seed) {
+        simulation.setSeed(seed);
+        simulation.reset(0);
+    }
 
-        params[4] = 1/men.getDeathRate();
-        params[5] = men.getSlopeDeathRate();
+    /**
+     * choose whether people are tracked individually or only counted, and restart the simulation
+     *
+     * @param engine name of an EngineMode, e.g. "individual" or "counts"
+     */
+    public void resetEngine(String engine) {
+        simulation.setEngine(EngineMode.parse(engine));
+        simulation.reset();
+    }
 
-        params[6] = immigration.getRate();
-        params[7] = immigration.getSlope();
+    /**
+     * change the time between two reports of the continuous engine and restart the simulation
+     *
+     * @param interval e.g. 1.0/12 for monthly reports
+     */
+    public void resetReportInterval(double interval) {
+        simulation.setReportInterval(interval);
+        simulation.reset();
+    }
 
-        params[8] = 1/women.getEmigrationRate();
-        params[9] = women.getSlopeEmigrationRate();
+    /**
+     * change the leap length and the switch to the exact engine of the tau-leaping engine, and restart the simulation
+     *
+     * @param leapSize  fraction of a time step, in (0, 1]
+     * @param threshold population size below which the exact continuous engine takes over, 0 never switches
+     */
+    public void resetTauLeap(double leapSize, int threshold) {
+        simulation.setLeapSize(leapSize);
+        simulation.setExactThreshold(threshold);
+        simulation.reset();
+    }
 
-        return params;
+    /**
+     * choose whether all births of a woman are drawn at once or one at a time, and restart the simulation
+     *
+     * @param births name of a BirthScheduling, e.g. "lifetime" or "next"
+     */
+    public void resetBirthScheduling(String births) {
+        simulation.setBirthScheduling(BirthScheduling.parse(births));
+        simulation.reset();
     }
 
     /**
-     * Change the initial population size
-     * @param sizeF number of female inhabitants
-     * @param sizeM number of male inhabitants
+     * @return master seed of the random streams
      */
-    public void resetInitialPopulation(int sizeF, int sizeM) {
-        if (simulation.hasNext()) {
-            simulation.getWomenParams().setInitialPopulationSize(sizeF);
-            simulation.getMenParams().setInitialPopulationSize(sizeM);
-            simulation.reset();
-        } else {
-            System.err.println("Current simulation still runnable.");
-        }
+    public long getSeed() {
+        return simulation.getSeed();
     }
 
     /**
-     * set number of consecutive time steps the simulation models. Only possible at the end of a simulation.
+     * continue the current simulation for more time steps, without starting over. Later runs keep their duration.
      *
-     * @param duration changed simulation duration
+     * @param steps number of additional time steps
      */
-    public void resetDuration(int duration) {
-        if (simulation.setDuration(duration)) {
-            simulation.reset();
-        } else {
-            System.err.println("Current simulation still runnable.");
-        }
+    public void extendDuration(int steps) {
+        simulation.extend(steps);
     }
 
     /**
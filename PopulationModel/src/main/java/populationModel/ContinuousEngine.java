@@ -0,0 +1,374 @@
+package populationModel;
+
+import populationModel.util.ImmigrationParameters;
+import populationModel.util.PopulationParameters;
+import populationModel.util.RandomStreams;
+import populationModel.util.RateTable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Engine which keeps exact (continuous) times of exits, births and immigrations instead of rounding them to whole
+ * time steps. All pending events are stored in one EventQueue, statistics are reported at a configurable interval.
+ * Like the bucket engine, a person's rates are the ones at the (whole) time step of his or her birth.
+ */
+class ContinuousEngine {
+    private static final int DEATH_F = 0;
+    private static final int DEATH_M = 1;
+    private static final int EMIGRATION_F = 2;
+    private static final int EMIGRATION_M = 3;
+    private static final int BIRTH = 4;
+    private static final int IMMIGRATION = 5;
+
+    /**
+     * number of people whose first events are drawn in one block
+     */
+    private static final int BLOCK = 1024;
+
+    private final ImmigrationParameters immigrationParameters;
+    // compiled rates, see RateTables
+    private final RateTable deathF;
+    private final RateTable deathM;
+    private final RateTable emigrationF;
+    private final RateTable emigrationM;
+    private final RateTable birth;
+    private final RateTable immigration;
+    private final RandomStreams random;
+    private final Population populationF;
+    private final Population populationM;
+
+    /**
+     * time between two reports
+     */
+    private final double interval;
+    private final EventQueue queue;
+
+    // blocks of exponential draws, see scheduleWomen
+    private double[] deaths;
+    private double[] emigrations;
+    private double[] births;
+
+    /**
+     * @param womenParams           parameters for women
+     * @param menParams             parameters for men
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the run
+     * @param populationF           women, usually only counted
+     * @param populationM           men, usually only counted
+     * @param interval              time between two reports, e.g. 1.0/12 for monthly statistics
+     * @param previous              engine of a finished run whose buffers are reused, so that a run which is not
+     *                              larger than the previous one does not allocate while stepping; or null
+     */
+    ContinuousEngine(PopulationParameters womenParams, PopulationParameters menParams,
+                     ImmigrationParameters immigrationParameters, RateTables rates, RandomStreams random,
+                     Population populationF, Population populationM, double interval, ContinuousEngine previous) {
+        this(immigrationParameters, rates, random, populationF, populationM, interval, (previous != null)
+                ? previous.queue : new EventQueue(2 * (womenParams.getInitialPopulationSize()
+                + menParams.getInitialPopulationSize())));
+        if (previous != null) {
+            queue.clear();
+            deaths = previous.deaths;
+            emigrations = previous.emigrations;
+            births = previous.births;
+        }
+    }
+
+    /**
+     * copy the pending events of another engine, e.g. to continue a run in several ways
+     *
+     * @param other                 engine whose state is copied
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the copy
+     * @param populationF           women, a copy of the other engine's women
+     * @param populationM           men, a copy of the other engine's men
+     */
+    ContinuousEngine(ContinuousEngine other, ImmigrationParameters immigrationParameters, RateTables rates,
+                     RandomStreams random, Population populationF, Population populationM) {
+        this(immigrationParameters, rates, random, populationF, populationM, other.interval,
+                new EventQueue(other.queue));
+    }
+
+    /**
+     * continue an engine from a checkpoint
+     *
+     * @param in                    checkpoint, positioned at an engine written by write
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the run
+     * @param populationF           women, as written in the checkpoint
+     * @param populationM           men, as written in the checkpoint
+     */
+    ContinuousEngine(CheckpointInput in, ImmigrationParameters immigrationParameters, RateTables rates,
+                     RandomStreams random, Population populationF, Population populationM) throws IOException {
+        this(immigrationParameters, rates, random, populationF, populationM, in.getDouble(), new EventQueue(in));
+    }
+
+    private ContinuousEngine(ImmigrationParameters immigrationParameters, RateTables rates, RandomStreams random,
+                             Population populationF, Population populationM, double interval, EventQueue queue) {
+        if (!(interval > 0)) {
+            throw new IllegalArgumentException("The report interval must be positive.");
+        }
+        this.immigrationParameters = immigrationParameters;
+        deathF = rates.getDeath(true);
+        deathM = rates.getDeath(false);
+        emigrationF = rates.getEmigration(true);
+        emigrationM = rates.getEmigration(false);
+        birth = rates.getBirth();
+        immigration = rates.getImmigration();
+        this.random = random;
+        this.populationF = populationF;
+        this.populationM = populationM;
+        this.interval = interval;
+        this.queue = queue;
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putDouble(interval);
+        queue.write(out);
+    }
+
+    /**
+     * create the initial population at time 0 and schedule the first immigration
+     *
+     * @param sizeF number of women
+     * @param sizeM number of men
+     */
+    void initPopulation(int sizeF, int sizeM) {
+        scheduleImmigration(0);
+        for (int i = 0; i < sizeF; i++) {
+            populationF.admit();
+        }
+        scheduleWomen(0, 0, sizeF);
+        for (int i = 0; i < sizeM; i++) {
+            populationM.admit();
+        }
+        scheduleMen(0, 0, sizeM);
+    }
+
+    /**
+     * take over people who are already counted in the population, e.g. from the tau-leaping engine. Thanks to the
+     * exponential distributions, the remaining lives are drawn as if the people had just been born.
+     *
+     * @param birthYear time step of the people's birth, determines the rates
+     * @param now       current time
+     * @param count     number of people
+     * @param female    true for women
+     */
+    void addSurvivors(int birthYear, double now, int count, boolean female) {
+        if (female) {
+            scheduleWomen(birthYear, now, count);
+        } else {
+            scheduleMen(birthYear, now, count);
+        }
+    }
+
+    /**
+     * schedule the first immigration after a given time, e.g. when taking over from another engine
+     *
+     * @param now current time
+     */
+    void startImmigration(double now) {
+        scheduleImmigration(now);
+    }
+
+    /**
+     * process all events up to the end of a report interval
+     *
+     * @param step number of the report, the interval ends at step * interval
+     * @param stats receives population size and birth/death/migration statistics of the interval
+     */
+    void next(int step, int[] stats) {
+        Arrays.fill(stats, 0, TimeUnit.STATCOUNT + 3, 0);
+        double end = step * interval;
+        while (!queue.isEmpty() && queue.topTime() <= end) {
+            double t = queue.topTime();
+            int type = queue.topType();
+            double motherExit = queue.topExit();
+            double rate = queue.topRate();
+            queue.pop();
+            switch (type) {
+                case DEATH_F:
+                    populationF.release(null, 1);
+                    stats[5]++;
+                    break;
+                case DEATH_M:
+                    populationM.release(null, 1);
+                    stats[6]++;
+                    break;
+                case EMIGRATION_F:
+                    populationF.release(null, 1);
+                    stats[8]++;
+                    break;
+                case EMIGRATION_M:
+                    populationM.release(null, 1);
+                    stats[8]++;
+                    break;
+                case BIRTH:
+                    if (random.sex().randomUnif() < 0.5) {
+                        integrateWoman(t);
+                        stats[3]++;
+                    } else {
+                        integrateMan(t);
+                        stats[4]++;
+                    }
+                    scheduleBirth(t + random.birth().randomExp(rate), motherExit, rate);
+                    break;
+                case IMMIGRATION:
+                    double birthTime = t - immigrationParameters.randomAge(random.immigration());
+                    if (random.immigration().randomUnif() < immigrationParameters.getProportionF()) {
+                        integrateWoman(birthTime);
+                    } else {
+                        integrateMan(birthTime);
+                    }
+                    stats[7]++;
+                    scheduleImmigration(t);
+                    break;
+                default:
+                    throw new IllegalStateException("Unknown event type " + type);
+            }
+        }
+        stats[0] = step;
+        stats[1] = populationF.size();
+        stats[2] = populationM.size();
+    }
+
+    /**
+     * @return number of pending events
+     */
+    int pendingEvents() {
+        return queue.size();
+    }
+
+    /**
+     * add a woman born at time t and schedule her exit and first birth
+     *
+     * @param t exact birth time
+     */
+    private void integrateWoman(double t) {
+        populationF.admit();
+        scheduleWoman((int) Math.floor(t), t);
+    }
+
+    /**
+     * add a man born at time t and schedule his exit
+     *
+     * @param t exact birth time
+     */
+    private void integrateMan(double t) {
+        populationM.admit();
+        scheduleMan((int) Math.floor(t), t);
+    }
+
+    /**
+     * schedule the exit and next birth of a woman, starting at time t
+     *
+     * @param year time step of the woman's birth, determines the rates
+     * @param t    time from which on the events are drawn
+     */
+    private void scheduleWoman(int year, double t) {
+        double death = random.death().randomExp(deathF.at(year));
+        double emigration = random.emigration().randomExp(emigrationF.at(year));
+        double exit = t + Math.min(death, emigration);
+        queue.push(exit, death < emigration ? DEATH_F : EMIGRATION_F, 0, 0);
+        double rate = birth.at(year);
+        scheduleBirth(t + random.birth().randomExp(rate), exit, rate);
+    }
+
+    /**
+     * schedule the exits and next births of women born in the same time step. The draws of each stream are taken
+     * in blocks, which gives the same numbers as calling scheduleWoman for each of them.
+     *
+     * @param year  time step of the women's birth, determines the rates
+     * @param t     time from which on the events are drawn
+     * @param count number of women
+     */
+    private void scheduleWomen(int year, double t, int count) {
+        double deathRate = deathF.at(year);
+        double emigrationRate = emigrationF.at(year);
+        double rate = birth.at(year);
+        for (int done = 0; done < count; done += BLOCK) {
+            int n = Math.min(BLOCK, count - done);
+            fillBlocks(n, deathRate, emigrationRate);
+            random.birth().fillExp(births, 0, n, rate);
+            for (int i = 0; i < n; i++) {
+                double exit = t + Math.min(deaths[i], emigrations[i]);
+                queue.push(exit, deaths[i] < emigrations[i] ? DEATH_F : EMIGRATION_F, 0, 0);
+                scheduleBirth(t + births[i], exit, rate);
+            }
+        }
+    }
+
+    /**
+     * schedule the exits of men born in the same time step, see scheduleWomen
+     *
+     * @param year  time step of the men's birth, determines the rates
+     * @param t     time from which on the events are drawn
+     * @param count number of men
+     */
+    private void scheduleMen(int year, double t, int count) {
+        double deathRate = deathM.at(year);
+        double emigrationRate = emigrationM.at(year);
+        for (int done = 0; done < count; done += BLOCK) {
+            int n = Math.min(BLOCK, count - done);
+            fillBlocks(n, deathRate, emigrationRate);
+            for (int i = 0; i < n; i++) {
+                queue.push(t + Math.min(deaths[i], emigrations[i]),
+                        deaths[i] < emigrations[i] ? DEATH_M : EMIGRATION_M, 0, 0);
+            }
+        }
+    }
+
+    /**
+     * draw the next n death and emigration times
+     */
+    private void fillBlocks(int n, double deathRate, double emigrationRate) {
+        if (deaths == null) {
+            deaths = new double[BLOCK];
+            emigrations = new double[BLOCK];
+            births = new double[BLOCK];
+        }
+        random.death().fillExp(deaths, 0, n, deathRate);
+        random.emigration().fillExp(emigrations, 0, n, emigrationRate);
+    }
+
+    /**
+     * schedule the exit of a man, starting at time t
+     *
+     * @param year time step of the man's birth, determines the rates
+     * @param t    time from which on the events are drawn
+     */
+    private void scheduleMan(int year, double t) {
+        double death = random.death().randomExp(deathM.at(year));
+        double emigration = random.emigration().randomExp(emigrationM.at(year));
+        queue.push(t + Math.min(death, emigration), death < emigration ? DEATH_M : EMIGRATION_M, 0, 0);
+    }
+
+    /**
+     * @param t          time of the birth
+     * @param motherExit time the mother leaves the population, later births are not scheduled
+     * @param rate       birth rate of the mother
+     */
+    private void scheduleBirth(double t, double motherExit, double rate) {
+        if (t < motherExit) {
+            queue.push(t, BIRTH, motherExit, rate);
+        }
+    }
+
+    /**
+     * schedule the arrival after the one at time t; stops, once the immigration rate is not positive anymore
+     *
+     * @param t time of the last arrival
+     */
+    private void scheduleImmigration(double t) {
+        double lambda = immigration.at((int) Math.floor(t));
+        if (lambda > 0) {
+            queue.push(t + random.immigration().randomExp(lambda), IMMIGRATION, 0, 0);
+        }
+    }
+}
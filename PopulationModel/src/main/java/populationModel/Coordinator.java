@@ -0,0 +1,616 @@
+package populationModel;
+
+import populationModel.output.Aggregate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.channels.Channels;
+import java.security.SecureRandom;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs independent repetitions of a simulation in several worker processes (JVMs) on this machine, e.g. when a
+ * single repetition needs a large part of a heap, or to keep the garbage collection of one repetition from stalling
+ * the others. The coordinator starts the workers (see Worker), which connect back over the loopback interface and
+ * claim one repetition at a time.
+ * <p>
+ * Every worker slot owns a range of repetitions, refilled in chunks from the remaining ones; a worker whose range
+ * and the remaining ones are used up steals the upper half of the largest range of another slot. If a worker dies,
+ * its unfinished repetitions are run again by the others and the slot gets a new worker, as long as the restart
+ * budget lasts. Repetition i always uses the random numbers of replication i, so the results do not depend on the
+ * number of workers or on failures.
+ */
+public class Coordinator {
+    // messages of the workers
+    static final int CLAIM = 1;
+    static final int RESULT = 2;
+    static final int DONE = 3;
+    static final int PARTIAL = 4;
+    static final int ERROR = 5;
+
+    /**
+     * answer to a claim once all repetitions are done
+     */
+    static final int NONE = -1;
+
+    /**
+     * number of times a repetition is started before the run is given up
+     */
+    private static final int MAX_ATTEMPTS = 3;
+
+    /**
+     * milliseconds the workers get to exit after the run
+     */
+    private static final long EXIT_TIMEOUT = 10000;
+
+    private final SimulationParameters parameters;
+    private final int workers;
+    private List<String> jvmOptions = new ArrayList<>();
+    private int maxRestarts = 3;
+
+    /**
+     * run which is in progress, or null
+     */
+    private volatile Job current;
+
+    /**
+     * @param parameters settings of every repetition
+     * @param workers    number of worker processes
+     */
+    public Coordinator(SimulationParameters parameters, int workers) {
+        if (workers < 1) {
+            throw new IllegalArgumentException("Please provide a positive number of workers.");
+        }
+        if (parameters == null) {
+            throw new NullPointerException("Please provide parameters.");
+        }
+        this.parameters = parameters;
+        this.workers = workers;
+    }
+
+    /**
+     * @param jvmOptions options of the worker JVMs, e.g. "-Xmx8g"
+     */
+    public void setJvmOptions(List<String> jvmOptions) {
+        this.jvmOptions = new ArrayList<>(jvmOptions);
+    }
+
+    /**
+     * @param maxRestarts number of workers which are started to replace failed ones, over all slots
+     */
+    public void setMaxRestarts(int maxRestarts) {
+        if (maxRestarts < 0) {
+            throw new IllegalArgumentException("The number of restarts must not be negative.");
+        }
+        this.maxRestarts = maxRestarts;
+    }
+
+    /**
+     * run the simulation repeatedly in the workers. The handler is called on the current thread, in order of the
+     * repetitions.
+     *
+     * @param reps    number of repetitions
+     * @param handler receives the result of every repetition
+     * @throws IOException          if the workers cannot be started or keep failing
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public void run(int reps, ReplicationRunner.ResultHandler handler) throws IOException, InterruptedException {
+        Job job = new Job(reps, false);
+        current = job;
+        job.start();
+        try {
+            for (int i = 0; i < reps; i++) {
+                handler.handle(i, job.take(i));
+            }
+        } finally {
+            job.stop();
+            current = null;
+        }
+    }
+
+    /**
+     * run the simulation repeatedly and only keep summary statistics. Every worker aggregates the repetitions it
+     * computes and sends its partial aggregate once all repetitions are done.
+     *
+     * @param reps number of repetitions
+     * @return mean, variance and quantiles per time step and column
+     * @throws IOException          if the workers cannot be started or keep failing
+     * @throws InterruptedException if the current thread is interrupted while waiting for the workers
+     */
+    public Aggregate aggregate(int reps) throws IOException, InterruptedException {
+        Job job = new Job(reps, true);
+        current = job;
+        job.start();
+        try {
+            return job.total();
+        } finally {
+            job.stop();
+            current = null;
+        }
+    }
+
+    /**
+     * kill the current worker of a slot as if it crashed, e.g. to test the recovery; does nothing if no run is in
+     * progress
+     *
+     * @param slot worker slot, from 0
+     */
+    void killWorker(int slot) {
+        Job job = current;
+        if (job != null) {
+            job.kill(slot);
+        }
+    }
+
+    /**
+     * send parameters as a block of the checkpoint encoding, see SimulationParameters.write
+     */
+    static void writeParameters(DataOutputStream out, SimulationParameters parameters) throws IOException {
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        CheckpointOutput encoder = new CheckpointOutput(Channels.newChannel(bytes));
+        parameters.write(encoder);
+        encoder.drain();
+        out.writeInt(bytes.size());
+        bytes.writeTo(out);
+    }
+
+    static SimulationParameters readParameters(DataInputStream in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return SimulationParameters.read(new CheckpointInput(Channels.newChannel(new ByteArrayInputStream(bytes))));
+    }
+
+    /**
+     * one run of the workers; all state is guarded by the job itself
+     */
+    private class Job {
+        private final int reps;
+        private final boolean aggregate;
+        private final long token = new SecureRandom().nextLong();
+        private final int chunk;
+        private ServerSocket server;
+
+        // repetitions which no slot owns yet
+        private int cursor = 0;
+        // range [next, end) of repetitions owned by every slot
+        private final int[] next = new int[workers];
+        private final int[] end = new int[workers];
+        // repetitions of failed workers, run before all others
+        private final ArrayDeque<Integer> retries = new ArrayDeque<>();
+        private final int[] attempts;
+
+        // current worker of every slot, counted up with every restart
+        private final int[] generation = new int[workers];
+        private final Process[] processes = new Process[workers];
+        private final Socket[] sockets = new Socket[workers];
+        // repetition the worker of a slot is computing, or NONE
+        private final int[] running = new int[workers];
+        // repetitions in the partial aggregate of a slot's worker, which is not sent yet
+        private final List<List<Integer>> unsent = new ArrayList<>();
+        // the worker of the slot has sent everything and may exit
+        private final boolean[] finished = new boolean[workers];
+        private int restarts = 0;
+
+        // results which are not handed out yet, or the merged partial aggregates
+        private final Map<Integer, int[][]> results = new HashMap<>();
+        private final Aggregate total = new Aggregate(Simulation.COLUMNS);
+        private int delivered = 0;
+        private boolean stopped = false;
+        private RuntimeException error;
+        private IOException failure;
+
+        Job(int reps, boolean aggregate) {
+            if (reps < 0) {
+                throw new IllegalArgumentException("Please provide a non-negative number of repetitions.");
+            }
+            this.reps = reps;
+            this.aggregate = aggregate;
+            attempts = new int[reps];
+            // small chunks keep the results close to their order, so few of them wait for the handler
+            chunk = Math.max(1, Math.min(64, reps / (4 * workers)));
+            for (int slot = 0; slot < workers; slot++) {
+                running[slot] = NONE;
+                unsent.add(new ArrayList<>());
+            }
+        }
+
+        void start() throws IOException {
+            if (reps == 0) {
+                return;
+            }
+            server = new ServerSocket(0, workers, InetAddress.getLoopbackAddress());
+            Thread acceptor = new Thread(this::accept, "coordinator");
+            acceptor.setDaemon(true);
+            acceptor.start();
+            synchronized (this) {
+                for (int slot = 0; slot < workers; slot++) {
+                    spawn(slot);
+                }
+            }
+        }
+
+        /**
+         * start a worker for the slot; called with the lock held
+         */
+        private void spawn(int slot) throws IOException {
+            int worker = ++generation[slot];
+            finished[slot] = false;
+            List<String> command = new ArrayList<>();
+            command.add(System.getProperty("java.home") + File.separator + "bin" + File.separator + "java");
+            command.addAll(jvmOptions);
+            command.add("-cp");
+            command.add(System.getProperty("java.class.path"));
+            command.add(Worker.class.getName());
+            command.add(server.getInetAddress().getHostAddress());
+            command.add(Integer.toString(server.getLocalPort()));
+            command.add(Integer.toString(slot));
+            command.add(Integer.toString(worker));
+            command.add(Long.toString(token));
+            // the workers print their errors to stderr, stdout belongs to the output of the coordinator
+            boolean windows = System.getProperty("os.name").startsWith("Windows");
+            Process process = new ProcessBuilder(command)
+                    .redirectOutput(new File(windows ? "NUL" : "/dev/null"))
+                    .redirectError(ProcessBuilder.Redirect.INHERIT)
+                    .start();
+            processes[slot] = process;
+            Thread watcher = new Thread(() -> {
+                try {
+                    int status = process.waitFor();
+                    failed(slot, worker, String.format("Worker %d exited with status %d.", slot, status));
+                } catch (InterruptedException e) {
+                    process.destroy();
+                }
+            }, "worker-" + slot);
+            watcher.setDaemon(true);
+            watcher.start();
+        }
+
+        private void accept() {
+            while (true) {
+                Socket socket;
+                try {
+                    socket = server.accept();
+                } catch (IOException e) {
+                    // closed by stop
+                    return;
+                }
+                Thread connection = new Thread(() -> serve(socket), "worker-connection");
+                connection.setDaemon(true);
+                connection.start();
+            }
+        }
+
+        /**
+         * answer the messages of one worker until it is done or its connection breaks
+         */
+        private void serve(Socket socket) {
+            int slot = NONE;
+            int worker = 0;
+            try (Socket s = socket) {
+                s.setTcpNoDelay(true);
+                DataInputStream in = new DataInputStream(new BufferedInputStream(s.getInputStream()));
+                DataOutputStream out = new DataOutputStream(new BufferedOutputStream(s.getOutputStream()));
+                if (in.readLong() != token) {
+                    return;
+                }
+                slot = in.readInt();
+                worker = in.readInt();
+                synchronized (this) {
+                    if (slot < 0 || slot >= workers || worker != generation[slot] || stopped) {
+                        return;
+                    }
+                    sockets[slot] = s;
+                }
+                out.writeBoolean(aggregate);
+                writeParameters(out, parameters);
+                out.flush();
+                while (true) {
+                    int message = in.read();
+                    if (message == CLAIM) {
+                        out.writeInt(claim(slot, worker));
+                        out.flush();
+                    } else if (message == RESULT) {
+                        int repetition = in.readInt();
+                        int[][] trajectory = new int[in.readInt()][Simulation.COLUMNS];
+                        for (int[] row : trajectory) {
+                            for (int c = 0; c < row.length; c++) {
+                                row[c] = in.readInt();
+                            }
+                        }
+                        result(slot, worker, repetition, trajectory);
+                    } else if (message == DONE) {
+                        done(slot, worker, in.readInt());
+                    } else if (message == PARTIAL) {
+                        partial(slot, worker, Aggregate.read(in));
+                    } else if (message == ERROR) {
+                        int repetition = in.readInt();
+                        error(new IllegalStateException(String.format("Repetition %d failed in worker %d: %s",
+                                repetition, slot, in.readUTF())));
+                    } else {
+                        // end of stream, or a message this coordinator does not know
+                        break;
+                    }
+                }
+                failed(slot, worker, String.format("Worker %d closed its connection.", slot));
+            } catch (IOException e) {
+                if (slot != NONE) {
+                    failed(slot, worker, String.format("Lost worker %d: %s", slot, e.getMessage()));
+                }
+            }
+        }
+
+        /**
+         * hand out the next repetition of a slot, wait if there is none but others are still running
+         *
+         * @return repetition, or NONE if all are done or the run stopped
+         */
+        private synchronized int claim(int slot, int worker) {
+            while (true) {
+                if (stopped || worker != generation[slot]) {
+                    return NONE;
+                }
+                int repetition = nextRepetition(slot);
+                if (repetition != NONE) {
+                    running[slot] = repetition;
+                    attempts[repetition]++;
+                    return repetition;
+                }
+                if (!anyRunning()) {
+                    if (!aggregate || unsent.get(slot).isEmpty()) {
+                        finished[slot] = true;
+                    }
+                    return NONE;
+                }
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return NONE;
+                }
+            }
+        }
+
+        private int nextRepetition(int slot) {
+            if (!retries.isEmpty()) {
+                return retries.poll();
+            }
+            if (next[slot] == end[slot] && cursor < reps) {
+                next[slot] = cursor;
+                end[slot] = Math.min(reps, cursor + chunk);
+                cursor = end[slot];
+            }
+            if (next[slot] == end[slot]) {
+                // steal the upper half of the largest range
+                int victim = 0;
+                for (int other = 1; other < workers; other++) {
+                    if (end[other] - next[other] > end[victim] - next[victim]) {
+                        victim = other;
+                    }
+                }
+                int left = end[victim] - next[victim];
+                if (left == 0) {
+                    return NONE;
+                }
+                int split = next[victim] + left / 2;
+                next[slot] = split;
+                end[slot] = end[victim];
+                end[victim] = split;
+            }
+            return next[slot]++;
+        }
+
+        private boolean anyRunning() {
+            for (int repetition : running) {
+                if (repetition != NONE) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private synchronized void result(int slot, int worker, int repetition, int[][] trajectory) {
+            if (worker != generation[slot] || running[slot] != repetition) {
+                return;
+            }
+            running[slot] = NONE;
+            results.put(repetition, trajectory);
+            delivered++;
+            notifyAll();
+        }
+
+        private synchronized void done(int slot, int worker, int repetition) {
+            if (worker != generation[slot] || running[slot] != repetition) {
+                return;
+            }
+            running[slot] = NONE;
+            unsent.get(slot).add(repetition);
+            notifyAll();
+        }
+
+        private synchronized void partial(int slot, int worker, Aggregate partial) {
+            if (worker != generation[slot]) {
+                return;
+            }
+            total.merge(partial);
+            delivered += unsent.get(slot).size();
+            unsent.get(slot).clear();
+            finished[slot] = true;
+            notifyAll();
+        }
+
+        private synchronized void error(RuntimeException e) {
+            if (error == null) {
+                error = e;
+            }
+            stopped = true;
+            notifyAll();
+        }
+
+        /**
+         * the worker of a slot died or lost its connection: its unfinished repetitions are run again, and the slot
+         * gets a new worker if the restart budget allows
+         */
+        private synchronized void failed(int slot, int worker, String reason) {
+            if (worker != generation[slot] || finished[slot] || stopped) {
+                return;
+            }
+            // the watcher and the connection both report the failure, only the first one counts
+            generation[slot]++;
+            System.err.println(reason);
+            // the process no longer counts as a worker, even while it is still shutting down
+            Process process = processes[slot];
+            processes[slot] = null;
+            if (process != null) {
+                process.destroyForcibly();
+            }
+            List<Integer> lost = new ArrayList<>(unsent.get(slot));
+            if (running[slot] != NONE) {
+                lost.add(running[slot]);
+            }
+            running[slot] = NONE;
+            unsent.get(slot).clear();
+            for (int repetition : lost) {
+                if (attempts[repetition] >= MAX_ATTEMPTS) {
+                    fail(new IOException(String.format("Repetition %d failed %d times.", repetition,
+                            attempts[repetition])));
+                    return;
+                }
+                retries.add(repetition);
+            }
+            if (restarts < maxRestarts) {
+                restarts++;
+                try {
+                    spawn(slot);
+                } catch (IOException e) {
+                    fail(new IOException("Cannot restart a worker: " + e.getMessage(), e));
+                    return;
+                }
+            } else if (!anyWorking()) {
+                fail(new IOException(String.format("All workers failed, %d restarts.", restarts)));
+                return;
+            }
+            notifyAll();
+        }
+
+        /**
+         * kill the process of a slot, the watcher then reports the failure
+         */
+        synchronized void kill(int slot) {
+            Process process = processes[slot];
+            if (process != null) {
+                process.destroyForcibly();
+            }
+        }
+
+        /**
+         * @return whether a worker is left which can take the repetitions of failed ones; failed workers have no
+         * process any more
+         */
+        private boolean anyWorking() {
+            for (int slot = 0; slot < workers; slot++) {
+                if (!finished[slot] && processes[slot] != null && processes[slot].isAlive()) {
+                    return true;
+                }
+            }
+            return false;
+        }
+
+        private void fail(IOException e) {
+            if (failure == null) {
+                failure = e;
+            }
+            stopped = true;
+            notifyAll();
+        }
+
+        /**
+         * @return the trajectory of the repetition, removed from the buffer
+         */
+        synchronized int[][] take(int repetition) throws IOException, InterruptedException {
+            while (!results.containsKey(repetition)) {
+                check();
+                wait();
+            }
+            return results.remove(repetition);
+        }
+
+        /**
+         * @return the merged aggregate once all repetitions are delivered
+         */
+        synchronized Aggregate total() throws IOException, InterruptedException {
+            while (delivered < reps) {
+                check();
+                wait();
+            }
+            return total;
+        }
+
+        private void check() throws IOException {
+            if (error != null) {
+                throw error;
+            }
+            if (failure != null) {
+                throw failure;
+            }
+        }
+
+        /**
+         * close the server and wait for the workers, which exit once they are told that all repetitions are done.
+         * Workers of a failed run are killed.
+         */
+        void stop() throws InterruptedException {
+            Process[] all;
+            boolean graceful;
+            synchronized (this) {
+                graceful = !stopped && error == null && failure == null;
+                stopped = true;
+                all = processes.clone();
+                notifyAll();
+            }
+            try {
+                if (server != null) {
+                    server.close();
+                }
+            } catch (IOException e) {
+                // nothing to release
+            }
+            long deadline = System.currentTimeMillis() + EXIT_TIMEOUT;
+            for (Process process : all) {
+                if (process == null) {
+                    continue;
+                }
+                if (graceful) {
+                    process.waitFor(Math.max(0, deadline - System.currentTimeMillis()), TimeUnit.MILLISECONDS);
+                }
+                if (process.isAlive()) {
+                    process.destroyForcibly();
+                }
+            }
+            synchronized (this) {
+                for (Socket socket : sockets) {
+                    if (socket != null) {
+                        try {
+                            socket.close();
+                        } catch (IOException e) {
+                            // already closed
+                        }
+                    }
+                }
+            }
+        }
+    }
+}
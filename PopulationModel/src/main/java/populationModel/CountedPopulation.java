@@ -0,0 +1,75 @@
+package populationModel;
+
+import populationModel.person.Person;
+import populationModel.util.IntList;
+
+import java.io.IOException;
+
+/**
+ * Population which only knows how many people it contains
+ */
+class CountedPopulation implements Population {
+    private int size = 0;
+
+    CountedPopulation() {
+    }
+
+    /**
+     * @param in checkpoint, positioned at a population written by write
+     */
+    CountedPopulation(CheckpointInput in) throws IOException {
+        size = in.getInt();
+    }
+
+    @Override
+    public int admit() {
+        size++;
+        return Person.NO_ID;
+    }
+
+    /**
+     * add several newcomers at once
+     *
+     * @param count number of newcomers
+     */
+    void admit(int count) {
+        size += count;
+    }
+
+    @Override
+    public void release(IntList ids, int count) {
+        size -= count;
+    }
+
+    @Override
+    public int size() {
+        return size;
+    }
+
+    @Override
+    public void clear() {
+        size = 0;
+    }
+
+    @Override
+    public boolean tracksIDs() {
+        return false;
+    }
+
+    /**
+     * @param out checkpoint
+     * @throws IOException if writing fails
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(size);
+    }
+
+    /**
+     * @return an independent population of the same size
+     */
+    CountedPopulation copy() {
+        CountedPopulation copy = new CountedPopulation();
+        copy.size = size;
+        return copy;
+    }
+}
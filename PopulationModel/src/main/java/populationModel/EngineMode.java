@@ -0,0 +1,40 @@
+package populationModel;
+
+import java.util.Arrays;
+
+/**
+ * Selects how a simulation keeps track of its population and time, set with the field engine in the input file
+ */
+public enum EngineMode {
+    /**
+     * every person gets an ID, which is stored in the population until the person leaves
+     */
+    INDIVIDUAL,
+    /**
+     * only the number of people and scheduled events is stored, memory is proportional to the simulation's duration
+     */
+    COUNTS,
+    /**
+     * people are counted, their events happen at exact (continuous) times and are reported every report_interval
+     */
+    CONTINUOUS,
+    /**
+     * people are counted per birth cohort and advanced by leaps of leap_size, with binomial and Poisson numbers of
+     * events. Approximate, but the cost does not grow with the population size.
+     */
+    TAU_LEAP;
+
+    /**
+     * @param name name of the mode, case insensitive
+     * @return the associated mode
+     */
+    public static EngineMode parse(String name) {
+        for (EngineMode mode : values()) {
+            if (mode.name().equalsIgnoreCase(name.trim())) {
+                return mode;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown engine <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+}
@@ -1,105 +1,589 @@
 package populationModel;
 
-import populationModel.person.Man;
-import populationModel.person.Woman;
+import populationModel.util.HazardSampler;
+import populationModel.util.RandomStream;
+import populationModel.util.RandomStreams;
 
+import java.io.IOException;
+import java.util.ArrayDeque;
 import java.util.ArrayList;
-
-import static populationModel.util.RandomGenerator.randomUnif;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.TreeMap;
 
 /**
- * Container which manages all TimeUnits and associates them to a unique timestep
+ * Container which manages all TimeUnits and associates them to a unique timestep. It is a calendar with a sliding
+ * window: the TimeUnits of the next few time steps live in a ring buffer and are reused once their time step is
+ * deleted. Events further in the future, up to the horizon of the run or MAX_OVERFLOW time steps ahead, go to an
+ * overflow, which only holds TimeUnits for time steps that actually have events. Events after both are parked in a
+ * sorted map and move into the overflow once the run gets close to them, so memory does not grow with exit times far
+ * in the future. No event is dropped, so a simulation can run for as long as necessary. A calendar can be reset for
+ * the next run, which keeps its TimeUnits, so later runs of the same size allocate nothing.
  */
 public class EventHistory {
-    private final TimeUnit[] eventList;
+    /**
+     * number of time steps in the ring buffer, if not specified otherwise
+     */
+    public static final int DEFAULT_WINDOW = 32;
+
+    /**
+     * number of time steps after the window up to which the overflow grows, even beyond the horizon
+     */
+    static final int MAX_OVERFLOW = 1 << 12;
+
+    private final boolean trackIDs;
+    private RandomStream sexStream;
+    private RandomStream birthStream;
+    private final BirthScheduling births;
+    // ages of mothers at births, null if every woman has the constant birth rate of her cohort
+    private HazardSampler fertility;
+
+    /**
+     * TimeUnits of the time steps [start, start + window.length), time step t is stored at t &amp; mask
+     */
+    private final TimeUnit[] window;
+    private final int mask;
+    /**
+     * first time step which has not been deleted yet
+     */
+    private int start = 0;
+
+    /**
+     * TimeUnits of the time steps start + window.length + k, k &gt;= 0, stored at (overflowHead + k) modulo the
+     * overflow's length. Entries stay null until an event is scheduled at their time step.
+     */
+    private TimeUnit[] overflow = new TimeUnit[DEFAULT_WINDOW];
+    private int overflowHead = 0;
+
+    /**
+     * last time step of the run; beyond MAX_OVERFLOW, the overflow only grows for time steps up to the horizon plus
+     * the window
+     */
+    private int horizon;
+
+    /**
+     * TimeUnits of time steps after the overflow, by time step
+     */
+    private final TreeMap<Integer, TimeUnit> far = new TreeMap<>();
+
+    /**
+     * number of TimeUnits holding events which this calendar added, kept up to date while scheduling and deleting
+     */
+    private int occupied = 0;
+
+    /**
+     * cleared TimeUnits which can be reused in the overflow
+     */
+    private final ArrayDeque<TimeUnit> spare = new ArrayDeque<>();
+
+    /**
+     * every TimeUnit of the calendar in the order they were created, so reset always arranges them the same way and
+     * a repeated run finds each of its time steps in the TimeUnit which already has enough memory for it
+     */
+    private final ArrayList<TimeUnit> units = new ArrayList<>();
+
+    /**
+     * initialize the time steps of the ring buffer
+     * @param windowSize minimum number of time steps in the ring buffer, is rounded up to a power of 2
+     * @param horizon last time step of the run, see setHorizon
+     * @param random random streams, which decide the sex of newborns and the times between births
+     * @param trackIDs if false, the time units only count deaths and emigrations
+     * @param births whether births are scheduled for a woman's lifetime, or one at a time
+     */
+    public EventHistory(int windowSize, int horizon, RandomStreams random, boolean trackIDs, BirthScheduling births) {
+        this.horizon = horizon;
+        this.trackIDs = trackIDs;
+        this.sexStream = random.sex();
+        this.birthStream = random.birth();
+        this.births = births;
+        window = new TimeUnit[powerOfTwo(windowSize)];
+        mask = window.length - 1;
+        for (int i = 0; i < window.length; i++) {
+            window[i] = newUnit();
+        }
+    }
+
+    /**
+     * copy all time units which have not been deleted yet
+     *
+     * @param other  calendar whose events are copied
+     * @param random random streams of the copy
+     */
+    EventHistory(EventHistory other, RandomStreams random) {
+        trackIDs = other.trackIDs;
+        sexStream = random.sex();
+        birthStream = random.birth();
+        births = other.births;
+        window = new TimeUnit[other.window.length];
+        mask = other.mask;
+        start = other.start;
+        for (int i = 0; i < window.length; i++) {
+            window[i] = new TimeUnit(other.window[i]);
+        }
+        overflow = new TimeUnit[other.overflow.length];
+        overflowHead = other.overflowHead;
+        for (int i = 0; i < overflow.length; i++) {
+            if (other.overflow[i] != null) {
+                overflow[i] = new TimeUnit(other.overflow[i]);
+            }
+        }
+        horizon = other.horizon;
+        for (Map.Entry<Integer, TimeUnit> entry : other.far.entrySet()) {
+            far.put(entry.getKey(), new TimeUnit(entry.getValue()));
+        }
+        occupied = other.occupied;
+        register();
+    }
 
     /**
-     * initialize all time steps
-     * @param size number of time steps
+     * @param in     checkpoint, positioned at a calendar written by write
+     * @param random random streams of the run
      */
-    public EventHistory(int size) {
-        eventList = new TimeUnit[size];
-        for (int i = 0; i < eventList.length; i++) {
-            eventList[i] = new TimeUnit();
+    EventHistory(CheckpointInput in, RandomStreams random) throws IOException {
+        trackIDs = in.getBoolean();
+        births = BirthScheduling.values()[in.getInt()];
+        sexStream = random.sex();
+        birthStream = random.birth();
+        window = new TimeUnit[in.getLength()];
+        mask = window.length - 1;
+        start = in.getInt();
+        for (int i = 0; i < window.length; i++) {
+            window[i] = new TimeUnit(in);
         }
+        overflow = new TimeUnit[in.getLength()];
+        overflowHead = in.getInt();
+        for (int i = 0; i < overflow.length; i++) {
+            if (in.getBoolean()) {
+                overflow[i] = new TimeUnit(in);
+            }
+        }
+        horizon = in.getInt();
+        int n = in.getLength();
+        for (int i = 0; i < n; i++) {
+            int t = in.getInt();
+            far.put(t, new TimeUnit(in));
+        }
+        occupied = countOccupied();
+        register();
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putBoolean(trackIDs);
+        out.putInt(births.ordinal());
+        out.putInt(window.length);
+        out.putInt(start);
+        for (TimeUnit timeUnit : window) {
+            timeUnit.write(out);
+        }
+        out.putInt(overflow.length);
+        out.putInt(overflowHead);
+        for (TimeUnit timeUnit : overflow) {
+            out.putBoolean(timeUnit != null);
+            if (timeUnit != null) {
+                timeUnit.write(out);
+            }
+        }
+        out.putInt(horizon);
+        out.putInt(far.size());
+        for (Map.Entry<Integer, TimeUnit> entry : far.entrySet()) {
+            out.putInt(entry.getKey());
+            entry.getValue().write(out);
+        }
+    }
+
+    /**
+     * @param windowSize minimum number of time steps in the ring buffer
+     * @param trackIDs   if false, the time units only count deaths and emigrations
+     * @param births     scheduling of the births
+     * @return true, if reset gives the same calendar as the constructor with these arguments
+     */
+    boolean fits(int windowSize, boolean trackIDs, BirthScheduling births) {
+        return window.length == powerOfTwo(windowSize) && this.trackIDs == trackIDs && this.births == births;
+    }
+
+    /**
+     * delete all events for a new run, which starts at time step 0. The TimeUnits and the overflow keep their
+     * memory, the cleared TimeUnits of the overflow and the parked ones become spare.
+     *
+     * @param horizon last time step of the run, see setHorizon
+     * @param random  random streams of the run
+     */
+    void reset(int horizon, RandomStreams random) {
+        sexStream = random.sex();
+        birthStream = random.birth();
+        for (TimeUnit unit : units) {
+            unit.clear();
+        }
+        for (int i = 0; i < window.length; i++) {
+            window[i] = units.get(i);
+        }
+        Arrays.fill(overflow, null);
+        far.clear();
+        // the remaining TimeUnits are handed out in the order they were created
+        spare.clear();
+        for (int i = units.size() - 1; i >= window.length; i--) {
+            spare.push(units.get(i));
+        }
+        start = 0;
+        overflowHead = 0;
+        occupied = 0;
+        this.horizon = horizon;
     }
 
     /**
-     * add life events (i.e. either death or emigration) scheduled for a man
+     * move the horizon, e.g. when a run is extended; events after it stay parked until the run gets close to them
      *
-     * @param person man
+     * @param horizon last time step of the run
      */
-    public void addEvents(Man person) {
-        TimeUnit e = getTimeUnit(person.exitDate());
+    void setHorizon(int horizon) {
+        this.horizon = horizon;
+    }
+
+    /**
+     * add the death or emigration of a person
+     *
+     * @param female   true for a woman
+     * @param id       ID of the person, or Person.NO_ID if people are only counted
+     * @param exitTime time step at which the person leaves
+     * @param exit     death or emigration
+     */
+    public void addExit(boolean female, int id, int exitTime, Action exit) {
+        TimeUnit e = occupy(exitTime);
         if (e != null) {
-            if (person.exitType() == Action.DEATH) {
-                e.scheduleOneDeath(person);
+            if (exit == Action.DEATH) {
+                e.scheduleDeath(female, id);
             } else {
-                e.scheduleOneEmigration(person);
+                e.scheduleEmigration(female, id);
             }
         }
     }
 
     /**
-     * add life events (births and either death or emigration) scheduled for a woman
+     * draw all births of a woman's lifetime and randomly compute their sex, see BirthScheduling.LIFETIME
      *
-     * @param w woman
+     * @param motherBirth birth time of the mother
+     * @param motherExit  time the mother leaves the population
+     * @param rate        birth rate of the mother, not used with age-specific fertility
+     * @return time step of the first birth which is not in the past, or PopulationTable.NO_BIRTH
      */
-    public void addEvents(Woman w) {
-        TimeUnit e = getTimeUnit(w.exitDate());
-        if (e != null) {
-            if (w.exitType() == Action.DEATH) {
-                e.scheduleOneDeath(w);
+    public int addLifetimeBirths(int motherBirth, int motherExit, double rate) {
+        int first = PopulationTable.NO_BIRTH;
+        double offset = nextOffset(0, rate);
+        while (offset < motherExit - motherBirth) {
+            int t = motherBirth + (int) offset;
+            // births before the first time step which has not been deleted are skipped by addBirth
+            if (first == PopulationTable.NO_BIRTH && t >= start) {
+                first = t;
+            }
+            addBirth(t);
+            offset = nextOffset(offset, rate);
+        }
+        return first;
+    }
+
+    /**
+     * draw the first birth of a woman, see BirthScheduling.NEXT. If she enters older than 0, the birth is drawn from
+     * her age at the first time step which has not been deleted, so like with addLifetimeBirths only the births
+     * before her entry are missing.
+     *
+     * @param mother      ID of the mother, or Person.NO_ID if people are only counted
+     * @param motherBirth birth time of the mother
+     * @param motherExit  time the mother leaves the population
+     * @param rate        birth rate of the mother, not used with age-specific fertility
+     * @return time step of the birth, or PopulationTable.NO_BIRTH
+     */
+    public int addNextBirth(int mother, int motherBirth, int motherExit, double rate) {
+        double age = Math.max(0, (long) start - motherBirth);
+        return scheduleNextBirth(mother, motherBirth, motherExit, rate, nextOffset(age, rate));
+    }
+
+    /**
+     * draw the mothers' ages at births from age-specific rates instead of the constant rate of each mother; only
+     * affects births which are drawn later
+     *
+     * @param fertility sampler of the ages at births, or null
+     */
+    void setFertility(HazardSampler fertility) {
+        this.fertility = fertility;
+    }
+
+    /**
+     * @param offset age of the mother at her last birth, or at which births start
+     * @param rate   birth rate of the mother, not used with age-specific fertility
+     * @return age of the mother at her next birth, possibly infinite
+     */
+    private double nextOffset(double offset, double rate) {
+        if (fertility != null) {
+            return fertility.next(offset, birthStream);
+        }
+        return offset + birthStream.randomExp(rate);
+    }
+
+    /**
+     * decide the sex of all pending births in the time unit and schedule the mothers' following births, which may
+     * again fall into the same time unit
+     *
+     * @param e time unit which is currently processed
+     */
+    public void resolveBirths(TimeUnit e) {
+        resolveBirths(e, null);
+    }
+
+    /**
+     * like resolveBirths(e), and keep the next birth of the mothers up to date
+     *
+     * @param e      time unit which is currently processed
+     * @param people table of the mothers, or null
+     */
+    void resolveBirths(TimeUnit e, PopulationTable people) {
+        PendingBirths pending = e.getPendingBirths();
+        while (e.hasUnresolvedBirths()) {
+            int i = pending.resolveNext();
+            if (sexStream.randomUnif() < 0.5) {
+                e.scheduleGirlBirth();
             } else {
-                e.scheduleOneEmigration(w);
+                e.scheduleBoyBirth();
+            }
+            double rate = pending.getRate(i);
+            int mother = pending.getMother(i);
+            int next = scheduleNextBirth(mother, pending.getMotherBirth(i), pending.getMotherExit(i), rate,
+                    nextOffset(pending.getOffset(i), rate));
+            if (people != null && people.contains(mother)) {
+                people.setNextBirth(mother, next);
             }
         }
-        addBirths(w.getBirthTimes());
     }
 
     /**
-     * add scheduled births and randomly compute gender
+     * add a birth, if it happens while the mother is still in the system and before the end of the simulation
      *
-     * @param timestamp of scheduled births
+     * @param mother      ID of the mother, or Person.NO_ID if people are only counted
+     * @param motherBirth birth time of the mother
+     * @param motherExit  time the mother leaves the population
+     * @param rate        birth rate of the mother
+     * @param offset      exact time of the birth, relative to the mother's birth time
+     * @return time step of the birth, or PopulationTable.NO_BIRTH if the mother leaves first or the time step was
+     * already deleted
      */
-    public void addBirths(ArrayList<Integer> timestamp) {
-        for (int t : timestamp) {
-            TimeUnit timeUnit = getTimeUnit(t);
+    private int scheduleNextBirth(int mother, int motherBirth, int motherExit, double rate, double offset) {
+        if (offset < motherExit - motherBirth) {
+            int t = motherBirth + (int) offset;
+            TimeUnit timeUnit = occupy(t);
             if (timeUnit != null) {
-                if (randomUnif() < 0.5) {
-                    timeUnit.scheduleGirlBirth();
-                } else {
-                    timeUnit.scheduleBoyBirth();
-                }
+                timeUnit.schedulePendingBirth(mother, motherBirth, motherExit, rate, offset);
+                return t;
+            }
+        }
+        return PopulationTable.NO_BIRTH;
+    }
+
+    /**
+     * add one birth and randomly compute its sex
+     *
+     * @param t time step of the birth
+     */
+    private void addBirth(int t) {
+        TimeUnit timeUnit = occupy(t);
+        if (timeUnit != null) {
+            if (sexStream.randomUnif() < 0.5) {
+                timeUnit.scheduleGirlBirth();
+            } else {
+                timeUnit.scheduleBoyBirth();
             }
         }
     }
 
     /**
      * @param t associated time
-     * @return TimeUnit, i.e. all events scheduled to happen at time t
+     * @return TimeUnit, i.e. all events scheduled to happen at time t, or null if the time step was already deleted
      */
     public TimeUnit getTimeUnit(int t) {
-        if (t >= 0 && t < eventList.length) {
-            return eventList[t];
+        if (t < start) {
+            return null;
+        }
+        long k = (long) t - start - window.length;
+        if (k < 0) {
+            return window[t & mask];
+        }
+        if (k >= overflow.length) {
+            if (k >= MAX_OVERFLOW && (long) t >= (long) horizon + window.length) {
+                TimeUnit unit = far.get(t);
+                if (unit == null) {
+                    unit = newUnit();
+                    far.put(t, unit);
+                }
+                return unit;
+            }
+            growOverflow((int) k + 1);
+        }
+        int i = (overflowHead + (int) k) & (overflow.length - 1);
+        if (overflow[i] == null) {
+            overflow[i] = newUnit();
+        }
+        return overflow[i];
+    }
+
+    /**
+     * @return a spare TimeUnit, or a new one if there is none
+     */
+    private TimeUnit newUnit() {
+        if (!spare.isEmpty()) {
+            return spare.pop();
+        }
+        TimeUnit unit = new TimeUnit(trackIDs);
+        units.add(unit);
+        return unit;
+    }
+
+    /**
+     * remember the TimeUnits of a copied or restored calendar, the ones of the ring buffer first
+     */
+    private void register() {
+        units.addAll(Arrays.asList(window));
+        for (TimeUnit unit : overflow) {
+            if (unit != null) {
+                units.add(unit);
+            }
+        }
+        units.addAll(far.values());
+    }
+
+    /**
+     * like getTimeUnit, for a time unit which is about to get an event, so it is counted as occupied
+     *
+     * @param t associated time
+     * @return TimeUnit, or null if the time step was already deleted
+     */
+    private TimeUnit occupy(int t) {
+        TimeUnit unit = getTimeUnit(t);
+        if (unit != null && !unit.hasScheduledEvents()) {
+            occupied++;
         }
-        return null;
+        return unit;
     }
 
     /**
-     * delete an event scheduled at the given time step
+     * delete all events scheduled up to the given time step, the freed TimeUnits are reused for later time steps
      * @param t a time step
      */
     public void deleteTimeUnit(int t) {
-        if (t >= 0 && t < eventList.length) {
-            eventList[t] = null;
+        while (start <= t) {
+            int slot = start & mask;
+            TimeUnit old = window[slot];
+            if (old.hasScheduledEvents()) {
+                occupied--;
+            }
+            old.clear();
+            // the first time step of the overflow moves into the window
+            TimeUnit next = overflow[overflowHead];
+            if (next != null) {
+                window[slot] = next;
+                overflow[overflowHead] = null;
+                spare.push(old);
+            }
+            overflowHead = (overflowHead + 1) & (overflow.length - 1);
+            start++;
+            // the overflow now reaches one time step further
+            unpark();
+        }
+    }
+
+    /**
+     * move the parked TimeUnits which the overflow reaches into it
+     */
+    private void unpark() {
+        long end = (long) start + window.length + overflow.length;
+        while (!far.isEmpty() && far.firstKey() < end) {
+            Map.Entry<Integer, TimeUnit> entry = far.pollFirstEntry();
+            int k = entry.getKey() - start - window.length;
+            overflow[(overflowHead + k) & (overflow.length - 1)] = entry.getValue();
+        }
+    }
+
+    /**
+     * @return first time step, which has not been deleted yet
+     */
+    public int getStart() {
+        return start;
+    }
+
+    /**
+     * @return number of time steps in the ring buffer
+     */
+    public int getWindowSize() {
+        return window.length;
+    }
+
+    /**
+     * @return number of time steps in the overflow, including the ones without a TimeUnit
+     */
+    public int getOverflowSize() {
+        return overflow.length;
+    }
+
+    /**
+     * @return number of TimeUnits parked after the overflow
+     */
+    public int getParkedUnits() {
+        return far.size();
+    }
+
+    /**
+     * @return number of time steps holding events which this calendar added, i.e. all but the immigrations of the
+     * current time step; kept up to date, so it is cheap enough to read after every time step
+     */
+    public int getOccupiedUnits() {
+        return occupied;
+    }
+
+    /**
+     * count the occupied TimeUnits in the ring buffer, the overflow and the parked ones
+     */
+    private int countOccupied() {
+        int n = 0;
+        for (TimeUnit unit : window) {
+            if (unit.hasScheduledEvents()) {
+                n++;
+            }
+        }
+        for (TimeUnit unit : overflow) {
+            if (unit != null && unit.hasScheduledEvents()) {
+                n++;
+            }
+        }
+        for (TimeUnit unit : far.values()) {
+            if (unit.hasScheduledEvents()) {
+                n++;
+            }
         }
+        return n;
     }
 
     /**
-     * @return number of time steps
+     * enlarge the overflow, keeping every TimeUnit at its time step
+     * @param size minimum number of time steps
      */
-    public int getDuration() {
-        return eventList.length;
+    private void growOverflow(int size) {
+        TimeUnit[] grown = new TimeUnit[powerOfTwo(size)];
+        for (int k = 0; k < overflow.length; k++) {
+            grown[k] = overflow[(overflowHead + k) & (overflow.length - 1)];
+        }
+        overflow = grown;
+        overflowHead = 0;
+        unpark();
+    }
+
+    private static int powerOfTwo(int n) {
+        if (n > 1 << 30) {
+            throw new IllegalArgumentException(String.format("Cannot hold %d time steps in a calendar.", n));
+        }
+        int p = 1;
+        while (p < n) {
+            p <<= 1;
+        }
+        return p;
     }
 }
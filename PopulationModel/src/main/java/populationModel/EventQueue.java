@@ -0,0 +1,170 @@
+package populationModel;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Pending events of the continuous-time engine, ordered by time. The queue is a 4-ary min-heap over primitive
+ * columns, so scheduling an event does not allocate an object. Besides its time and type, every event carries two
+ * values needed by births: the exit time and the birth rate of the mother.
+ */
+class EventQueue {
+    private static final int DEFAULT_CAPACITY = 1024;
+
+    private double[] time;
+    private int[] type;
+    private double[] exit;
+    private double[] rate;
+    private int size = 0;
+
+    /**
+     * @param capacity number of events which fit in without growing
+     */
+    EventQueue(int capacity) {
+        capacity = Math.max(capacity, DEFAULT_CAPACITY);
+        time = new double[capacity];
+        type = new int[capacity];
+        exit = new double[capacity];
+        rate = new double[capacity];
+    }
+
+    /**
+     * @param other queue whose events are copied, the heap order stays valid
+     */
+    EventQueue(EventQueue other) {
+        int capacity = Math.max(other.size, DEFAULT_CAPACITY);
+        time = Arrays.copyOf(other.time, capacity);
+        type = Arrays.copyOf(other.type, capacity);
+        exit = Arrays.copyOf(other.exit, capacity);
+        rate = Arrays.copyOf(other.rate, capacity);
+        size = other.size;
+    }
+
+    /**
+     * @param in checkpoint, positioned at a queue written by write
+     */
+    EventQueue(CheckpointInput in) throws IOException {
+        size = in.getLength();
+        time = in.getDoubles(DEFAULT_CAPACITY);
+        type = in.getInts(DEFAULT_CAPACITY);
+        exit = in.getDoubles(DEFAULT_CAPACITY);
+        rate = in.getDoubles(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(size);
+        out.putDoubles(time, size);
+        out.putInts(type, size);
+        out.putDoubles(exit, size);
+        out.putDoubles(rate, size);
+    }
+
+    /**
+     * schedule an event
+     *
+     * @param t    time of the event
+     * @param kind type of the event
+     * @param e    exit time of the mother (births only)
+     * @param r    birth rate of the mother (births only)
+     */
+    void push(double t, int kind, double e, double r) {
+        if (size == time.length) {
+            int capacity = 2 * size;
+            time = Arrays.copyOf(time, capacity);
+            type = Arrays.copyOf(type, capacity);
+            exit = Arrays.copyOf(exit, capacity);
+            rate = Arrays.copyOf(rate, capacity);
+        }
+        // sift up: move parents down until the new event fits
+        int i = size++;
+        while (i > 0) {
+            int parent = (i - 1) >>> 2;
+            if (time[parent] <= t) {
+                break;
+            }
+            move(parent, i);
+            i = parent;
+        }
+        set(i, t, kind, e, r);
+    }
+
+    /**
+     * remove the earliest event, read its values with the top* methods before
+     */
+    void pop() {
+        int last = --size;
+        if (last == 0) {
+            return;
+        }
+        double t = time[last];
+        int kind = type[last];
+        double e = exit[last];
+        double r = rate[last];
+        // sift down: move the smallest child up until the last event fits
+        int i = 0;
+        while (true) {
+            int first = 4 * i + 1;
+            if (first >= last) {
+                break;
+            }
+            int child = first;
+            int end = Math.min(first + 4, last);
+            for (int c = first + 1; c < end; c++) {
+                if (time[c] < time[child]) {
+                    child = c;
+                }
+            }
+            if (time[child] >= t) {
+                break;
+            }
+            move(child, i);
+            i = child;
+        }
+        set(i, t, kind, e, r);
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int size() {
+        return size;
+    }
+
+    double topTime() {
+        return time[0];
+    }
+
+    int topType() {
+        return type[0];
+    }
+
+    double topExit() {
+        return exit[0];
+    }
+
+    double topRate() {
+        return rate[0];
+    }
+
+    void clear() {
+        size = 0;
+    }
+
+    private void move(int from, int to) {
+        time[to] = time[from];
+        type[to] = type[from];
+        exit[to] = exit[from];
+        rate[to] = rate[from];
+    }
+
+    private void set(int i, double t, int kind, double e, double r) {
+        time[i] = t;
+        type[i] = kind;
+        exit[i] = e;
+        rate[i] = r;
+    }
+}
@@ -0,0 +1,51 @@
+package populationModel;
+
+import populationModel.util.IntList;
+
+/**
+ * Population which knows every person. Both sexes share one PopulationTable, this population is the view of one sex.
+ */
+class IndividualPopulation implements Population {
+    private final PopulationTable people;
+    private final boolean female;
+
+    /**
+     * @param people table of both sexes
+     * @param female true for the women of the table, false for the men
+     */
+    IndividualPopulation(PopulationTable people, boolean female) {
+        this.people = people;
+        this.female = female;
+    }
+
+    /**
+     * the newcomer's life events are entered with PopulationTable.setLife once they are drawn
+     */
+    @Override
+    public int admit() {
+        return people.add(female);
+    }
+
+    @Override
+    public void release(IntList leaving, int count) {
+        people.removeAll(leaving.elements(), 0, leaving.size());
+    }
+
+    @Override
+    public int size() {
+        return people.size(female);
+    }
+
+    /**
+     * clears the whole table, i.e. both sexes
+     */
+    @Override
+    public void clear() {
+        people.clear();
+    }
+
+    @Override
+    public boolean tracksIDs() {
+        return true;
+    }
+}
@@ -1,59 +1,141 @@
 package populationModel;
 
 import org.apache.commons.cli.*;
+import populationModel.metrics.SimulationMetrics;
+import populationModel.output.OutputFormat;
+import populationModel.output.ResultWriter;
+import populationModel.output.SummaryWriter;
 
+import javax.management.JMException;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.PrintWriter;
+import java.io.UncheckedIOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Calendar;
+import java.util.List;
+import java.util.Timer;
+import java.util.TimerTask;
 
 /**
  * Run a simulation in the console
  */
 public class Main {
     private static void usage() {
-        System.err.println("PopulationModel -i \"Input Path\" -o \"Output Path\"");
+        System.err.println("PopulationModel -i \"Input Path\" -o \"Output Path\" -r \"Repetitions\" -t \"Threads\" -f \"Format\" -c \"Reference Engine\" -k \"Checkpoint Path\" --resume \"Checkpoint Path\" -m \"Metrics Interval\" -w \"Workers\" --worker-options \"JVM Options\"");
         System.exit(1);
     }
 
     public static void main(String[] args) {
         // parse program arguments
         final Options options = new Options();
+        options.addOption(new Option("c", "compare", true, "Compare the engine of the input file with this engine instead of printing runs."));
+        options.addOption(new Option("f", "format", true, "Output format, csv, binary (needs an output file) or summary. Default = csv."));
         options.addOption(new Option("i", "input", true, "Input file path, if not specified use standard input."));
+        options.addOption(new Option("k", "checkpoint", true, "Checkpoint file, written in the background while running; repetitions run one after the other."));
+        options.addOption(Option.builder().longOpt("checkpoint-interval").hasArg().desc("Number of time steps between two checkpoints. Default = 10.").build());
+        options.addOption(Option.builder().longOpt("resume").hasArg().desc("Continue from this checkpoint file, with the same output options as before.").build());
+        options.addOption(new Option("m", "metrics", true, "Register metrics with JMX and print them to stderr every this many seconds (0 = only at the end)."));
         options.addOption(new Option("o", "output", true, "Output file path, if not specified use standard output."));
         options.addOption(new Option("r", "repetitions", true, "Number of time the simulation should be repeated. Default = 1."));
+        options.addOption(new Option("s", "seed", true, "Master seed of the random numbers, overrides the input file."));
+        options.addOption(new Option("t", "threads", true, "Number of threads running repetitions in parallel. Default = 1."));
+        options.addOption(new Option("w", "workers", true, "Run the repetitions in this many worker processes on this machine instead of threads."));
+        options.addOption(Option.builder().longOpt("worker-options").hasArg().desc("Options of the worker JVMs, separated by spaces, e.g. \"-Xmx8g\".").build());
 
         CommandLineParser parser = new DefaultParser();
 
         String inputPath;
-        PrintWriter printWriter;
+        String outputPath = null;
+        OutputFormat format = OutputFormat.CSV;
         int reps = 1;
+        int threads = 1;
+        Long seed = null;
+        EngineMode referenceEngine = null;
+        String checkpointPath = null;
+        String resumePath = null;
+        int checkpointInterval = 10;
+        Double metricsInterval = null;
+        int workers = 0;
+        List<String> workerOptions = new ArrayList<>();
         try {
             CommandLine cmd = parser.parse(options, args);
             if (cmd.hasOption("i")) {
                 inputPath = cmd.getOptionValue("i");
             } else {
                 inputPath = "../Calibration/init.txt";
-                System.err.println("Using example parameters.");
+                if (!cmd.hasOption("resume")) {
+                    System.err.println("Using example parameters.");
+                }
                 //usage();
                 //return;
             }
             if (cmd.hasOption("o")) {
-                String outputPath = cmd.getOptionValue("o");
-                printWriter = new PrintWriter(outputPath);
-            } else {
-                printWriter = new PrintWriter(System.out);
+                outputPath = cmd.getOptionValue("o");
+            }
+            if (cmd.hasOption("f")) {
+                format = OutputFormat.parse(cmd.getOptionValue("f"));
             }
             if (cmd.hasOption("r")) {
                 reps = Integer.parseInt(cmd.getOptionValue("r"));
             }
+            if (cmd.hasOption("s")) {
+                seed = Long.parseLong(cmd.getOptionValue("s"));
+            }
+            if (cmd.hasOption("t")) {
+                threads = Integer.parseInt(cmd.getOptionValue("t"));
+            }
+            if (cmd.hasOption("c")) {
+                referenceEngine = EngineMode.parse(cmd.getOptionValue("c"));
+            }
+            if (cmd.hasOption("k")) {
+                checkpointPath = cmd.getOptionValue("k");
+            }
+            if (cmd.hasOption("checkpoint-interval")) {
+                checkpointInterval = Integer.parseInt(cmd.getOptionValue("checkpoint-interval"));
+                if (checkpointInterval < 1) {
+                    throw new IllegalArgumentException("The checkpoint interval must be positive.");
+                }
+            }
+            if (cmd.hasOption("m")) {
+                metricsInterval = Double.parseDouble(cmd.getOptionValue("m"));
+                if (metricsInterval < 0) {
+                    throw new IllegalArgumentException("The metrics interval must not be negative.");
+                }
+            }
+            if (cmd.hasOption("resume")) {
+                resumePath = cmd.getOptionValue("resume");
+                if (checkpointPath == null) {
+                    checkpointPath = resumePath;
+                }
+            }
+            if (cmd.hasOption("w")) {
+                workers = Integer.parseInt(cmd.getOptionValue("w"));
+                if (workers < 1) {
+                    throw new IllegalArgumentException("The number of workers must be positive.");
+                }
+            }
+            if (cmd.hasOption("worker-options") && !cmd.getOptionValue("worker-options").trim().isEmpty()) {
+                workerOptions.addAll(Arrays.asList(cmd.getOptionValue("worker-options").trim().split("\\s+")));
+            }
+            if (workers > 0 && (threads != 1 || referenceEngine != null || checkpointPath != null
+                    || metricsInterval != null)) {
+                throw new IllegalArgumentException("Workers run single repetitions without threads, checkpoints, metrics or comparisons.");
+            }
+            if (checkpointPath != null && (threads != 1 || referenceEngine != null || format == OutputFormat.SUMMARY)) {
+                throw new IllegalArgumentException("Checkpoints need a single thread and csv or binary output.");
+            }
         } catch (ParseException e) {
             e.printStackTrace();
             usage();
             return;
-        } catch (FileNotFoundException e) {
-            System.err.println("Directory of output file does not exist");
-            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
             return;
         }
 
@@ -61,36 +143,231 @@ public class Main {
         // initialize simulation with parameters specified in file
         long tic = System.currentTimeMillis();
         Simulation sim = null;
+        Checkpoint resumed = null;
         try {
-            sim = new Simulation(inputPath);
+            if (resumePath != null) {
+                // parameters, seed and number of repetitions come from the checkpoint
+                resumed = Checkpoint.read(Paths.get(resumePath));
+                sim = resumed.getSnapshot().fork();
+                reps = resumed.getRepetitions();
+                seed = null;
+            } else {
+                sim = new Simulation(inputPath);
+            }
         } catch (IOException e) {
-            System.err.printf("Bad input file %s. \nCurrent directory: %s\n", inputPath, System.getProperty("user.dir"));
+            if (resumePath != null) {
+                System.err.println("Cannot read checkpoint: " + e.getMessage());
+            } else {
+                System.err.printf("Bad input file %s. \nCurrent directory: %s\n", inputPath, System.getProperty("user.dir"));
+            }
             System.exit(1);
-        } catch (NumberFormatException | NullPointerException e) {
+        } catch (IllegalArgumentException | NullPointerException e) {
             System.err.println(e.getMessage());
             System.exit(1);
         }
+        if (seed != null) {
+            sim.setSeed(seed);
+        }
+        SimulationMetrics metrics = (metricsInterval == null) ? null : startMetrics(metricsInterval);
+        sim.setMetrics(metrics);
+
+        if (referenceEngine != null) {
+            try {
+                PrintWriter printWriter = (outputPath == null) ? new PrintWriter(System.out) : new PrintWriter(outputPath);
+                new AccuracyReport(sim, referenceEngine, threads).write(reps, printWriter);
+                printWriter.close();
+            } catch (FileNotFoundException e) {
+                System.err.println("Directory of output file does not exist");
+                System.exit(1);
+            } catch (InterruptedException e) {
+                System.err.println("Simulation was interrupted.");
+                System.exit(1);
+            }
+            System.err.println("Run time: " + (System.currentTimeMillis() - tic) / 1000.0 + " seconds");
+            return;
+        }
 
         // write header line to output file
-        printWriter.println("# populationModel.Simulation run on " + Calendar.getInstance().getTime());
-        printWriter.println("# " + sim);
-        printWriter.println(Simulation.HEADER);
+        ResultWriter writer = null;
+        try {
+            if (resumed != null && resumed.getOutputLength() >= 0 && outputPath != null
+                    && Files.exists(Paths.get(outputPath))
+                    && Files.size(Paths.get(outputPath)) >= resumed.getOutputLength()) {
+                // the output of the finished repetitions is kept, everything after them is written again
+                writer = format.append(outputPath, resumed.getOutputLength(), Simulation.HEADER);
+            } else {
+                writer = format.open(outputPath, Simulation.HEADER,
+                        "populationModel.Simulation run on " + Calendar.getInstance().getTime(), sim.toString());
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot create output file: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
 
-        // run simulation
-        for (int i = 0; i < reps; i++) {
-            sim.reset();
-            while (sim.hasNext()) {
-                int[] res = sim.next();
-                // instead of packing apache's stringutils into the char ... i typed this out -.-
-                printWriter.printf("%d, %d, %d, %d, %d, %d, %d, %d, %d\n", res[0],
-                        res[1], res[2],
-                        res[3], res[4],
-                        res[5], res[6],
-                        res[7], res[8]
-                );
+        // run simulation, repetitions are written in order even if they are computed in parallel
+        ResultWriter out = writer;
+        try {
+            if (checkpointPath != null) {
+                runWithCheckpoints(sim, out, outputPath, reps, resumed, Paths.get(checkpointPath), checkpointInterval);
+                out.close();
+                printMetrics(metrics);
+                System.err.println("Run time: " + (System.currentTimeMillis() - tic) / 1000.0 + " seconds");
+                return;
+            }
+        } catch (IOException e) {
+            System.err.println("Cannot write output or checkpoint: " + e.getMessage());
+            System.exit(1);
+        }
+        if (workers > 0) {
+            runWithWorkers(sim, out, reps, workers, workerOptions);
+            System.err.println("Run time: " + (System.currentTimeMillis() - tic) / 1000.0 + " seconds");
+            return;
+        }
+        ReplicationRunner runner = new ReplicationRunner(sim, threads);
+        runner.setMetrics(metrics);
+        try {
+            if (out instanceof SummaryWriter) {
+                // the workers aggregate on their own, no trajectories are passed around
+                ((SummaryWriter) out).merge(runner.aggregate(reps));
+            } else {
+                runner.run(reps, (repetition, trajectory) -> {
+                    try {
+                        out.write(repetition, trajectory);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
             }
+            out.close();
+            printMetrics(metrics);
+        } catch (InterruptedException e) {
+            System.err.println("Simulation was interrupted.");
+            System.exit(1);
+        } catch (IOException | UncheckedIOException e) {
+            System.err.println("Cannot write output: " + e.getMessage());
+            System.exit(1);
         }
         System.err.println("Run time: " + (System.currentTimeMillis() - tic) / 1000.0 + " seconds");
-        printWriter.close();
+    }
+
+    /**
+     * run the repetitions in worker processes, see Coordinator, and close the output
+     *
+     * @param sim        simulation whose parameters the workers use
+     * @param out        receives the repetitions in order, or merges the partial aggregates of the workers
+     * @param reps       number of repetitions
+     * @param workers    number of worker processes
+     * @param jvmOptions options of the worker JVMs
+     */
+    private static void runWithWorkers(Simulation sim, ResultWriter out, int reps, int workers,
+                                       List<String> jvmOptions) {
+        Coordinator coordinator = new Coordinator(sim.getParameters(), workers);
+        coordinator.setJvmOptions(jvmOptions);
+        try {
+            if (out instanceof SummaryWriter) {
+                ((SummaryWriter) out).merge(coordinator.aggregate(reps));
+            } else {
+                coordinator.run(reps, (repetition, trajectory) -> {
+                    try {
+                        out.write(repetition, trajectory);
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+            }
+        } catch (InterruptedException e) {
+            System.err.println("Simulation was interrupted.");
+            System.exit(1);
+        } catch (UncheckedIOException e) {
+            System.err.println("Cannot write output: " + e.getMessage());
+            System.exit(1);
+        } catch (IOException e) {
+            System.err.println("Workers failed: " + e.getMessage());
+            System.exit(1);
+        } catch (IllegalStateException e) {
+            // a repetition failed in a worker, e.g. because of an invalid rate
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+        try {
+            out.close();
+        } catch (IOException e) {
+            System.err.println("Cannot write output: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    /**
+     * register metrics with JMX and print them regularly on a background thread
+     *
+     * @param interval seconds between two prints, 0 for none
+     * @return metrics to record to
+     */
+    private static SimulationMetrics startMetrics(double interval) {
+        SimulationMetrics metrics = new SimulationMetrics();
+        try {
+            metrics.register();
+        } catch (JMException e) {
+            System.err.println("Cannot register metrics: " + e.getMessage());
+        }
+        if (interval > 0) {
+            long period = Math.max(1, (long) (interval * 1000));
+            new Timer("metrics", true).scheduleAtFixedRate(new TimerTask() {
+                @Override
+                public void run() {
+                    printMetrics(metrics);
+                }
+            }, period, period);
+        }
+        return metrics;
+    }
+
+    private static void printMetrics(SimulationMetrics metrics) {
+        if (metrics != null) {
+            System.err.println("Metrics: " + metrics);
+        }
+    }
+
+    /**
+     * run the repetitions one after the other on the current thread and write a checkpoint every few time steps.
+     * The checkpoint file is deleted once all repetitions are written.
+     *
+     * @param sim            simulation, continues the resumed run if there is one
+     * @param out            receives the finished repetitions
+     * @param outputPath     output file, or null for standard output
+     * @param reps           number of repetitions
+     * @param resumed        checkpoint the run continues from, or null
+     * @param checkpointPath checkpoint file
+     * @param interval       number of time steps between two checkpoints
+     * @throws IOException if writing the output or a checkpoint fails
+     */
+    private static void runWithCheckpoints(Simulation sim, ResultWriter out, String outputPath, int reps,
+                                           Checkpoint resumed, Path checkpointPath, int interval) throws IOException {
+        int first = (resumed == null) ? 0 : resumed.getRepetition();
+        try (CheckpointWriter checkpoints = new CheckpointWriter(checkpointPath)) {
+            for (int repetition = first; repetition < reps; repetition++) {
+                List<int[]> trajectory = new ArrayList<>(sim.getDuration());
+                if (resumed != null && repetition == first) {
+                    trajectory.addAll(Arrays.asList(resumed.getTrajectory()));
+                } else {
+                    sim.reset(repetition);
+                }
+                while (sim.hasNext()) {
+                    trajectory.add(sim.next());
+                    // a checkpoint is skipped while the previous one is still being written
+                    if (sim.getTime() % interval == 0 && sim.hasNext() && !checkpoints.isBusy()) {
+                        out.flush();
+                        long length = (outputPath == null) ? -1 : Files.size(Paths.get(outputPath));
+                        checkpoints.submit(new Checkpoint(sim.snapshot(), repetition, reps,
+                                trajectory.toArray(new int[0][]), length));
+                    }
+                }
+                out.write(repetition, trajectory.toArray(new int[0][]));
+            }
+        }
+        Files.deleteIfExists(checkpointPath);
     }
 }
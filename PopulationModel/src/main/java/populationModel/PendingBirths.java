@@ -0,0 +1,140 @@
+package populationModel;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * The next births of several women, which are scheduled in the same TimeUnit. Each birth remembers what is needed
+ * to draw the following one, the mothers themselves are only known by their IDs.
+ */
+class PendingBirths {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    // one column per attribute
+    private int[] mother = new int[DEFAULT_CAPACITY];
+    private int[] motherBirth = new int[DEFAULT_CAPACITY];
+    private int[] motherExit = new int[DEFAULT_CAPACITY];
+    private double[] rate = new double[DEFAULT_CAPACITY];
+    private double[] offset = new double[DEFAULT_CAPACITY];
+
+    private int size = 0;
+    private int resolved = 0;
+
+    PendingBirths() {
+    }
+
+    /**
+     * @param other births which are copied, including which of them are resolved
+     */
+    PendingBirths(PendingBirths other) {
+        int capacity = Math.max(other.size, DEFAULT_CAPACITY);
+        mother = Arrays.copyOf(other.mother, capacity);
+        motherBirth = Arrays.copyOf(other.motherBirth, capacity);
+        motherExit = Arrays.copyOf(other.motherExit, capacity);
+        rate = Arrays.copyOf(other.rate, capacity);
+        offset = Arrays.copyOf(other.offset, capacity);
+        size = other.size;
+        resolved = other.resolved;
+    }
+
+    /**
+     * @param in checkpoint, positioned at births written by write
+     */
+    PendingBirths(CheckpointInput in) throws IOException {
+        size = in.getLength();
+        resolved = in.getInt();
+        mother = in.getInts(DEFAULT_CAPACITY);
+        motherBirth = in.getInts(DEFAULT_CAPACITY);
+        motherExit = in.getInts(DEFAULT_CAPACITY);
+        rate = in.getDoubles(DEFAULT_CAPACITY);
+        offset = in.getDoubles(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(size);
+        out.putInt(resolved);
+        out.putInts(mother, size);
+        out.putInts(motherBirth, size);
+        out.putInts(motherExit, size);
+        out.putDoubles(rate, size);
+        out.putDoubles(offset, size);
+    }
+
+    /**
+     * @param mother      ID of the mother, or Person.NO_ID if people are only counted
+     * @param motherBirth birth time of the mother
+     * @param motherExit  time the mother leaves the population
+     * @param rate        birth rate of the mother
+     * @param offset      exact time of the birth, relative to the mother's birth time
+     */
+    void add(int mother, int motherBirth, int motherExit, double rate, double offset) {
+        if (size == this.motherBirth.length) {
+            int capacity = 2 * size;
+            this.mother = Arrays.copyOf(this.mother, capacity);
+            this.motherBirth = Arrays.copyOf(this.motherBirth, capacity);
+            this.motherExit = Arrays.copyOf(this.motherExit, capacity);
+            this.rate = Arrays.copyOf(this.rate, capacity);
+            this.offset = Arrays.copyOf(this.offset, capacity);
+        }
+        this.mother[size] = mother;
+        this.motherBirth[size] = motherBirth;
+        this.motherExit[size] = motherExit;
+        this.rate[size] = rate;
+        this.offset[size] = offset;
+        size++;
+    }
+
+    /**
+     * @return true, if some births have not been resolved yet
+     */
+    boolean hasUnresolved() {
+        return resolved < size;
+    }
+
+    /**
+     * mark the next birth as resolved
+     *
+     * @return position of the birth
+     */
+    int resolveNext() {
+        return resolved++;
+    }
+
+    int getMother(int i) {
+        return mother[i];
+    }
+
+    int getMotherBirth(int i) {
+        return motherBirth[i];
+    }
+
+    int getMotherExit(int i) {
+        return motherExit[i];
+    }
+
+    double getRate(int i) {
+        return rate[i];
+    }
+
+    double getOffset(int i) {
+        return offset[i];
+    }
+
+    /**
+     * remove all births, but keep the allocated memory
+     */
+    void clear() {
+        size = 0;
+        resolved = 0;
+    }
+
+    /**
+     * @return number of scheduled births
+     */
+    int size() {
+        return size;
+    }
+}
@@ -0,0 +1,39 @@
+package populationModel;
+
+import populationModel.util.IntList;
+
+/**
+ * All people of one sex which currently live in the simulated region
+ */
+interface Population {
+
+    /**
+     * add a newcomer to the population
+     *
+     * @return ID of the newcomer, or Person.NO_ID if people are only counted
+     */
+    int admit();
+
+    /**
+     * remove people from the population
+     *
+     * @param ids   IDs of the leaving people, may be null if people are only counted
+     * @param count number of leaving people
+     */
+    void release(IntList ids, int count);
+
+    /**
+     * @return number of people
+     */
+    int size();
+
+    /**
+     * remove everyone and start handing out IDs from the beginning
+     */
+    void clear();
+
+    /**
+     * @return true, if every person has an ID which is stored in the TimeUnits
+     */
+    boolean tracksIDs();
+}
@@ -0,0 +1,392 @@
+package populationModel;
+
+import populationModel.person.Person;
+import populationModel.util.IdAllocator;
+import populationModel.util.IntList;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Everyone who currently lives in the region of an individual simulation, stored as a table with one primitive
+ * array per attribute (ID, sex, birth time, exit time, exit type, next birth) instead of one object per person.
+ * A person takes a few dozen bytes, the slots of people who left are reused, and queries like "women aged 20 to 40"
+ * scan contiguous arrays.
+ * <p>
+ * IDs are handed out by the table, so they are unique within the simulation across both sexes, and the IDs of
+ * people who left are handed out again. People are found by ID through an index, which is therefore only as long as
+ * the largest number of people who lived in the region at the same time.
+ */
+public final class PopulationTable {
+    /**
+     * next birth of women without further births, and of all men
+     */
+    public static final int NO_BIRTH = Integer.MIN_VALUE;
+
+    private static final int DEFAULT_CAPACITY = 16;
+    private static final Action[] ACTIONS = Action.values();
+
+    private final IdAllocator ids;
+
+    // one column per attribute, indexed by slot; free slots have the ID Person.NO_ID
+    private int[] id;
+    private boolean[] female;
+    private int[] birth;
+    private int[] exit;
+    private byte[] exitType;
+    private int[] nextBirth;
+
+    /**
+     * slots [0, used) have been occupied at least once, the free ones among them are on the free list
+     */
+    private int used = 0;
+    private final IntList free = new IntList();
+
+    /**
+     * slot of every ID handed out, -1 once the person left
+     */
+    private int[] slotOf;
+
+    private int sizeF = 0;
+    private int sizeM = 0;
+
+    /**
+     * @param capacity expected number of people
+     */
+    PopulationTable(int capacity) {
+        ids = new IdAllocator();
+        allocate(Math.max(capacity, DEFAULT_CAPACITY));
+        slotOf = new int[Math.max(capacity, DEFAULT_CAPACITY)];
+    }
+
+    /**
+     * @param other table whose people are copied; the copy continues handing out IDs where the other one is
+     */
+    PopulationTable(PopulationTable other) {
+        ids = new IdAllocator(other.ids);
+        id = other.id.clone();
+        female = other.female.clone();
+        birth = other.birth.clone();
+        exit = other.exit.clone();
+        exitType = other.exitType.clone();
+        nextBirth = other.nextBirth.clone();
+        used = other.used;
+        free.addAll(other.free.elements(), 0, other.free.size());
+        slotOf = other.slotOf.clone();
+        sizeF = other.sizeF;
+        sizeM = other.sizeM;
+    }
+
+    /**
+     * @param in checkpoint, positioned at a table written by write
+     */
+    PopulationTable(CheckpointInput in) throws IOException {
+        ids = new IdAllocator(in.getInt(), in.getInts(0), in.getLong());
+        int[] rows = in.getInts(0);
+        int size = rows.length / 6;
+        allocate(Math.max(size, DEFAULT_CAPACITY));
+        slotOf = new int[Math.max(ids.getAllocated(), DEFAULT_CAPACITY)];
+        Arrays.fill(slotOf, -1);
+        for (int s = 0, r = 0; s < size; s++) {
+            int person = rows[r++];
+            id[s] = person;
+            female[s] = rows[r++] != 0;
+            birth[s] = rows[r++];
+            exit[s] = rows[r++];
+            exitType[s] = (byte) rows[r++];
+            nextBirth[s] = rows[r++];
+            slotOf[person] = s;
+            if (female[s]) {
+                sizeF++;
+            } else {
+                sizeM++;
+            }
+        }
+        used = size;
+    }
+
+    /**
+     * write all people in slot order, without the free slots
+     *
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(ids.getAllocated());
+        int[] free = ids.getFree();
+        out.putInts(free, free.length);
+        out.putLong(ids.getIssued());
+        int[] rows = new int[6 * size()];
+        int r = 0;
+        for (int s = 0; s < used; s++) {
+            if (id[s] != Person.NO_ID) {
+                rows[r++] = id[s];
+                rows[r++] = female[s] ? 1 : 0;
+                rows[r++] = birth[s];
+                rows[r++] = exit[s];
+                rows[r++] = exitType[s];
+                rows[r++] = nextBirth[s];
+            }
+        }
+        out.putInts(rows, r);
+    }
+
+    /**
+     * add a person whose life events are not drawn yet, see setLife
+     *
+     * @param female true for a woman
+     * @return ID of the person
+     */
+    int add(boolean female) {
+        int person = ids.next();
+        int s;
+        if (free.size() > 0) {
+            s = free.removeLast();
+        } else {
+            if (used == id.length) {
+                allocate(2 * used);
+            }
+            s = used++;
+        }
+        if (person >= slotOf.length) {
+            int capacity = Math.max(2 * slotOf.length, person + 1);
+            slotOf = Arrays.copyOf(slotOf, capacity);
+        }
+        slotOf[person] = s;
+        id[s] = person;
+        this.female[s] = female;
+        birth[s] = 0;
+        exit[s] = 0;
+        exitType[s] = 0;
+        nextBirth[s] = NO_BIRTH;
+        if (female) {
+            sizeF++;
+        } else {
+            sizeM++;
+        }
+        return person;
+    }
+
+    /**
+     * @param person   ID of a person in the table
+     * @param birth    time step of the birth, earlier than 0 for people of the initial population or immigrants
+     * @param exit     time step at which the person dies or emigrates
+     * @param exitType death or emigration
+     */
+    void setLife(int person, int birth, int exit, Action exitType) {
+        int s = slot(person);
+        this.birth[s] = birth;
+        this.exit[s] = exit;
+        this.exitType[s] = (byte) exitType.ordinal();
+    }
+
+    /**
+     * @param person ID of a woman in the table
+     * @param time   time step of her next birth, or NO_BIRTH
+     */
+    void setNextBirth(int person, int time) {
+        nextBirth[slot(person)] = time;
+    }
+
+    /**
+     * @param person ID of a person
+     * @return true, if the person was in the table
+     */
+    boolean remove(int person) {
+        if (!contains(person)) {
+            return false;
+        }
+        int s = slotOf[person];
+        slotOf[person] = -1;
+        id[s] = Person.NO_ID;
+        ids.release(person);
+        if (female[s]) {
+            sizeF--;
+        } else {
+            sizeM--;
+        }
+        free.add(s);
+        return true;
+    }
+
+    /**
+     * remove all IDs in ids[from], ..., ids[to - 1]
+     *
+     * @param ids  array of IDs, e.g. the deaths scheduled in a TimeUnit
+     * @param from first position (inclusive)
+     * @param to   last position (exclusive)
+     * @return number of people who were actually removed
+     */
+    int removeAll(int[] ids, int from, int to) {
+        int removed = 0;
+        for (int i = from; i < to; i++) {
+            if (remove(ids[i])) {
+                removed++;
+            }
+        }
+        return removed;
+    }
+
+    /**
+     * remove everyone and start handing out IDs from the beginning, but keep the allocated memory
+     */
+    void clear() {
+        Arrays.fill(slotOf, 0, ids.getAllocated(), -1);
+        Arrays.fill(id, 0, used, Person.NO_ID);
+        ids.reset();
+        used = 0;
+        free.clear();
+        sizeF = 0;
+        sizeM = 0;
+    }
+
+    /**
+     * @param person ID of a person
+     * @return true, if the person lives in the region
+     */
+    public boolean contains(int person) {
+        return person >= 0 && person < ids.getAllocated() && slotOf[person] >= 0;
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return true for a woman
+     */
+    public boolean isFemale(int person) {
+        return female[slot(person)];
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return time step of the birth
+     */
+    public int getBirth(int person) {
+        return birth[slot(person)];
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return time step at which the person leaves
+     */
+    public int getExit(int person) {
+        return exit[slot(person)];
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return death or emigration
+     */
+    public Action getExitType(int person) {
+        return ACTIONS[exitType[slot(person)]];
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return time step of the next birth, or NO_BIRTH. With BirthScheduling.LIFETIME the births are not linked to
+     * their mothers once they are scheduled, so this is the first birth of the woman.
+     */
+    public int getNextBirth(int person) {
+        return nextBirth[slot(person)];
+    }
+
+    /**
+     * @return number of people
+     */
+    public int size() {
+        return sizeF + sizeM;
+    }
+
+    /**
+     * @return number of people who entered the region since the last clear, including the ones who left
+     */
+    public long getEntered() {
+        return ids.getIssued();
+    }
+
+    /**
+     * @param female true for women, false for men
+     * @return number of people of the sex
+     */
+    public int size(boolean female) {
+        return female ? sizeF : sizeM;
+    }
+
+    /**
+     * count the people of one sex in an age range, e.g. women aged 20 to 40 with count(true, t, 20, 41)
+     *
+     * @param female true for women, false for men
+     * @param now    current time step
+     * @param minAge lowest age (inclusive)
+     * @param maxAge highest age (exclusive)
+     * @return number of people
+     */
+    public int count(boolean female, int now, int minAge, int maxAge) {
+        // now - birth in [minAge, maxAge) is the same as birth in (now - maxAge, now - minAge]
+        long first = (long) now - maxAge;
+        long last = (long) now - minAge;
+        int count = 0;
+        for (int s = 0; s < used; s++) {
+            if (this.female[s] == female && id[s] != Person.NO_ID && birth[s] > first && birth[s] <= last) {
+                count++;
+            }
+        }
+        return count;
+    }
+
+    /**
+     * count the people of one sex by age, people older than the histogram go to the last bin
+     *
+     * @param female true for women, false for men
+     * @param now    current time step
+     * @param out    receives the number of people aged a at out[a], is cleared first
+     */
+    public void ageHistogram(boolean female, int now, int[] out) {
+        if (out.length == 0) {
+            throw new IllegalArgumentException("Please provide at least one age bin.");
+        }
+        Arrays.fill(out, 0);
+        int last = out.length - 1;
+        for (int s = 0; s < used; s++) {
+            if (this.female[s] == female && id[s] != Person.NO_ID) {
+                int age = now - birth[s];
+                out[Math.max(Math.min(age, last), 0)]++;
+            }
+        }
+    }
+
+    /**
+     * @param person ID of a person in the table
+     * @return slot of the person
+     */
+    private int slot(int person) {
+        if (!contains(person)) {
+            throw new IllegalArgumentException(String.format("Person %d does not live in the region.", person));
+        }
+        return slotOf[person];
+    }
+
+    /**
+     * grow the columns
+     *
+     * @param capacity number of slots
+     */
+    private void allocate(int capacity) {
+        if (id == null) {
+            id = new int[capacity];
+            Arrays.fill(id, Person.NO_ID);
+            female = new boolean[capacity];
+            birth = new int[capacity];
+            exit = new int[capacity];
+            exitType = new byte[capacity];
+            nextBirth = new int[capacity];
+            return;
+        }
+        int length = id.length;
+        id = Arrays.copyOf(id, capacity);
+        Arrays.fill(id, length, capacity, Person.NO_ID);
+        female = Arrays.copyOf(female, capacity);
+        birth = Arrays.copyOf(birth, capacity);
+        exit = Arrays.copyOf(exit, capacity);
+        exitType = Arrays.copyOf(exitType, capacity);
+        nextBirth = Arrays.copyOf(nextBirth, capacity);
+    }
+}
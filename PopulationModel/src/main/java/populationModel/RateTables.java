@@ -0,0 +1,93 @@
+package populationModel;
+
+import populationModel.util.ImmigrationParameters;
+import populationModel.util.LifeTable;
+import populationModel.util.PopulationParameters;
+import populationModel.util.RateSchedule;
+import populationModel.util.RateSchedules;
+import populationModel.util.RateTable;
+
+/**
+ * All time-dependent rates of a parameter set, compiled into one RateTable per rate over the duration. Each rate is
+ * the linear one of the parameters, or the one of a RateSchedules file; rates which a life table replaces are not
+ * compiled at all. Building the tables validates every time step of the duration, so invalid parameters are
+ * rejected before a run starts.
+ */
+public final class RateTables {
+    // null if the life table replaces the rate
+    private final RateTable deathF;
+    private final RateTable deathM;
+    private final RateTable emigrationF;
+    private final RateTable emigrationM;
+    private final RateTable birth;
+    private final RateTable immigration;
+
+    /**
+     * @param women       parameters for women
+     * @param men         parameters for men
+     * @param immigration parameters for immigration
+     * @param schedules   rates which replace the linear ones, or null
+     * @param lifeTable   age-specific rates, which replace the ones of the birth cohort, or null
+     * @param births      with BirthScheduling.LIFETIME, birth rates must be below 1
+     * @param horizon     number of time steps which are compiled, e.g. the duration
+     * @throws IllegalArgumentException if a rate is invalid at a time step of the horizon
+     */
+    RateTables(PopulationParameters women, PopulationParameters men, ImmigrationParameters immigration,
+               RateSchedules schedules, LifeTable lifeTable, BirthScheduling births, int horizon) {
+        deathF = (lifeTable != null && lifeTable.getDeath(true) != null) ? null : compile("death rate",
+                RateSchedule.linear(women.getDeathRate(), women.getSlopeDeathRate()),
+                (schedules == null) ? null : schedules.getDeath(true), horizon, Double.POSITIVE_INFINITY);
+        deathM = (lifeTable != null && lifeTable.getDeath(false) != null) ? null : compile("death rate",
+                RateSchedule.linear(men.getDeathRate(), men.getSlopeDeathRate()),
+                (schedules == null) ? null : schedules.getDeath(false), horizon, Double.POSITIVE_INFINITY);
+        emigrationF = (lifeTable != null && lifeTable.getEmigration(true) != null) ? null : compile(
+                "emigration rate", RateSchedule.linear(women.getEmigrationRate(), women.getSlopeEmigrationRate()),
+                (schedules == null) ? null : schedules.getEmigration(true), horizon, Double.POSITIVE_INFINITY);
+        emigrationM = (lifeTable != null && lifeTable.getEmigration(false) != null) ? null : compile(
+                "emigration rate", RateSchedule.linear(men.getEmigrationRate(), men.getSlopeEmigrationRate()),
+                (schedules == null) ? null : schedules.getEmigration(false), horizon, Double.POSITIVE_INFINITY);
+        // all births of a woman are drawn at once with LIFETIME, which needs a rate below 1
+        birth = (lifeTable != null && lifeTable.getFertility() != null) ? null : compile("birth rate",
+                RateSchedule.linear(women.getBirthRate(), women.getSlopeBirthRate()),
+                (schedules == null) ? null : schedules.getBirth(), horizon,
+                (births == BirthScheduling.LIFETIME) ? 1 : Double.POSITIVE_INFINITY);
+        this.immigration = compile("immigration rate",
+                RateSchedule.linear(immigration.getRate(), immigration.getSlope()),
+                (schedules == null) ? null : schedules.getImmigration(), horizon, Double.POSITIVE_INFINITY);
+    }
+
+    private static RateTable compile(String name, RateSchedule linear, RateSchedule schedule, int horizon,
+                                     double limit) {
+        return new RateTable(name, (schedule == null) ? linear : schedule, horizon, limit);
+    }
+
+    /**
+     * @param female true for women
+     * @return death rate per birth cohort, null if the life table replaces it
+     */
+    public RateTable getDeath(boolean female) {
+        return female ? deathF : deathM;
+    }
+
+    /**
+     * @param female true for women
+     * @return emigration rate per birth cohort, null if the life table replaces it
+     */
+    public RateTable getEmigration(boolean female) {
+        return female ? emigrationF : emigrationM;
+    }
+
+    /**
+     * @return birth rate of women per birth cohort, null if the life table replaces it
+     */
+    public RateTable getBirth() {
+        return birth;
+    }
+
+    /**
+     * @return immigration rate per time step
+     */
+    public RateTable getImmigration() {
+        return immigration;
+    }
+}
@@ -0,0 +1,355 @@
+package populationModel;
+
+import populationModel.metrics.SimulationMetrics;
+import populationModel.output.Aggregate;
+import populationModel.output.PairedAggregate;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
+/**
+ * Runs independent repetitions of a simulation on a fixed pool of worker threads. Every worker uses its own copy
+ * of the simulation, the results are handed out in the order of the repetitions.
+ */
+public class ReplicationRunner {
+
+    /**
+     * receives the results of one repetition
+     */
+    public interface ResultHandler {
+        /**
+         * @param repetition index of the repetition, starting at 0
+         * @param trajectory all arrays returned by Simulation.next() during the repetition
+         */
+        void handle(int repetition, int[][] trajectory);
+    }
+
+    private final int threads;
+
+    /**
+     * simulations which are currently not used by a worker
+     */
+    private final BlockingQueue<Simulation> simulations;
+
+    /**
+     * prepare one simulation per thread, all of them with the parameters specified in the input file
+     *
+     * @param inputFile path to a file from which all initial parameters are read in
+     * @param threads   number of worker threads
+     * @throws IOException if the init file cannot be found
+     */
+    public ReplicationRunner(String inputFile, int threads) throws IOException {
+        this(SimulationParameters.read(inputFile), threads);
+    }
+
+    /**
+     * prepare one simulation per thread, all of them with the parameters of the prototype
+     *
+     * @param prototype simulation whose parameters are copied
+     * @param threads   number of worker threads
+     */
+    public ReplicationRunner(Simulation prototype, int threads) {
+        this(prototype.getParameters(), threads);
+    }
+
+    /**
+     * prepare one simulation per thread, all of them with the given parameters
+     *
+     * @param parameters settings of every repetition
+     * @param threads    number of worker threads
+     */
+    public ReplicationRunner(SimulationParameters parameters, int threads) {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Please provide a positive thread count.");
+        }
+        this.threads = threads;
+        simulations = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            simulations.add(new Simulation(parameters));
+        }
+    }
+
+    /**
+     * let every worker's simulation record to the metrics, see Simulation.setMetrics; call it while nothing runs
+     *
+     * @param metrics shared counters and timers, or null to stop recording
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        for (Simulation sim : simulations) {
+            sim.setMetrics(metrics);
+        }
+    }
+
+    /**
+     * run the simulation repeatedly. The handler is called on the current thread, in order of the repetitions.
+     * Repetition i always uses the random numbers of replication i, no matter which thread computes it.
+     *
+     * @param reps    number of repetitions
+     * @param handler receives the result of every repetition
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public void run(int reps, ResultHandler handler) throws InterruptedException {
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        // only keep a few repetitions ahead of the handler, so finished results don't pile up
+        int window = 4 * threads;
+        ArrayDeque<Future<int[][]>> pending = new ArrayDeque<>(window);
+        int submitted = 0;
+        try {
+            for (int i = 0; i < reps; i++) {
+                while (submitted < reps && pending.size() < window) {
+                    int repetition = submitted++;
+                    pending.add(pool.submit(() -> runOnce(repetition)));
+                }
+                handler.handle(i, pending.poll().get());
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    /**
+     * run the simulation repeatedly and collect all results
+     *
+     * @param reps number of repetitions
+     * @return one trajectory (array of time steps) per repetition
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public int[][][] run(int reps) throws InterruptedException {
+        int[][][] results = new int[reps][][];
+        run(reps, (repetition, trajectory) -> results[repetition] = trajectory);
+        return results;
+    }
+
+    /**
+     * run the simulation repeatedly and only keep summary statistics. Every simulation aggregates the repetitions
+     * it computes, the partial aggregates are merged at the end, so nothing is passed between the threads while
+     * running.
+     *
+     * @param reps number of repetitions
+     * @return mean, variance and quantiles per time step and column
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public Aggregate aggregate(int reps) throws InterruptedException {
+        int columns = Simulation.COLUMNS;
+        List<Simulation> borrowed = new ArrayList<>(threads);
+        List<Aggregate> partials = new ArrayList<>(threads);
+        borrowed.add(simulations.take());
+        simulations.drainTo(borrowed, threads - 1);
+        for (int i = 0; i < borrowed.size(); i++) {
+            partials.add(new Aggregate(columns));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>(threads);
+            for (int w = 0; w < borrowed.size(); w++) {
+                Simulation sim = borrowed.get(w);
+                Aggregate partial = partials.get(w);
+                int first = w;
+                // repetitions are dealt out round robin, each worker uses its own simulation and aggregate, the
+                // time steps go straight into the aggregate
+                tasks.add(pool.submit(() -> {
+                    int[] stats = new int[Simulation.COLUMNS];
+                    for (int repetition = first; repetition < reps; repetition += borrowed.size()) {
+                        sim.reset(repetition);
+                        for (int t = 0; sim.hasNext(); t++) {
+                            sim.next(stats);
+                            partial.add(t, stats);
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+            simulations.addAll(borrowed);
+        }
+        Aggregate total = new Aggregate(columns);
+        for (Aggregate partial : partials) {
+            total.merge(partial);
+        }
+        return total;
+    }
+
+    /**
+     * run antithetic pairs, i.e. replications 2k and 2k+1, and estimate the achieved variance reduction, see
+     * PairedAggregate.antitheticReduction. The parameters must use Sampling.ANTITHETIC.
+     *
+     * @param pairs number of pairs
+     * @return moments of the even (x) and odd (y) replications per time step and column
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public PairedAggregate antitheticPairs(int pairs) throws InterruptedException {
+        if (simulations.peek().getSampling() != Sampling.ANTITHETIC) {
+            throw new IllegalArgumentException("Antithetic pairs need the sampling antithetic.");
+        }
+        return pairs(pairs, null);
+    }
+
+    /**
+     * run every replication with the parameters of this runner and with other parameters, using the same random
+     * numbers for both (common random numbers), and estimate the achieved variance reduction of the differences, see
+     * PairedAggregate.commonRandomReduction
+     *
+     * @param other parameters to compare with, should have the same seed
+     * @param reps  number of replications
+     * @return moments of this runner's (x) and the other parameters' (y) replications per time step and column
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public PairedAggregate compare(SimulationParameters other, int reps) throws InterruptedException {
+        return pairs(reps, other);
+    }
+
+    /**
+     * continue a snapshot with several parameter sets in parallel, e.g. scenarios after a common history. All branches
+     * draw the same random numbers, see SimulationSnapshot.fork(parameters).
+     *
+     * @param snapshot   state at which the branches start
+     * @param parameters settings of every branch
+     * @param threads    number of worker threads
+     * @return the remaining time steps of every branch, i.e. [branch][time][statistic]
+     * @throws InterruptedException if the current thread is interrupted while waiting for a result
+     */
+    public static int[][][] runBranches(SimulationSnapshot snapshot, SimulationParameters[] parameters, int threads)
+            throws InterruptedException {
+        if (threads < 1) {
+            throw new IllegalArgumentException("Please provide a positive thread count.");
+        }
+        int[][][] results = new int[parameters.length][][];
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<int[][]>> tasks = new ArrayList<>(parameters.length);
+            for (SimulationParameters branch : parameters) {
+                tasks.add(pool.submit(() -> runRemaining(snapshot.fork(branch))));
+            }
+            for (int i = 0; i < results.length; i++) {
+                results[i] = tasks.get(i).get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+        }
+        return results;
+    }
+
+    /**
+     * run pairs of repetitions, dealt out round robin like in aggregate
+     *
+     * @param pairs number of pairs
+     * @param other parameters of the second members, or null for antithetic pairs
+     * @return moments of both members
+     */
+    private PairedAggregate pairs(int pairs, SimulationParameters other) throws InterruptedException {
+        int columns = Simulation.COLUMNS;
+        List<Simulation> borrowed = new ArrayList<>(threads);
+        List<PairedAggregate> partials = new ArrayList<>(threads);
+        borrowed.add(simulations.take());
+        simulations.drainTo(borrowed, threads - 1);
+        for (int i = 0; i < borrowed.size(); i++) {
+            partials.add(new PairedAggregate(columns));
+        }
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            List<Future<?>> tasks = new ArrayList<>(threads);
+            for (int w = 0; w < borrowed.size(); w++) {
+                Simulation sim = borrowed.get(w);
+                PairedAggregate partial = partials.get(w);
+                int first = w;
+                tasks.add(pool.submit(() -> {
+                    Simulation partner = (other == null) ? null : new Simulation(other);
+                    if (partner != null) {
+                        partner.setMetrics(sim.getMetrics());
+                    }
+                    for (int pair = first; pair < pairs; pair += borrowed.size()) {
+                        if (partner == null) {
+                            partial.add(runOnce(sim, 2 * pair), runOnce(sim, 2 * pair + 1));
+                        } else {
+                            partial.add(runOnce(sim, pair), runOnce(partner, pair));
+                        }
+                    }
+                }));
+            }
+            for (Future<?> task : tasks) {
+                task.get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        } finally {
+            pool.shutdownNow();
+            simulations.addAll(borrowed);
+        }
+        PairedAggregate total = new PairedAggregate(columns);
+        for (PairedAggregate partial : partials) {
+            total.merge(partial);
+        }
+        return total;
+    }
+
+    /**
+     * borrow an idle simulation and step through one complete run
+     *
+     * @param repetition replication number of the run
+     * @return all time steps of the run
+     */
+    private int[][] runOnce(int repetition) throws InterruptedException {
+        Simulation sim = simulations.take();
+        try {
+            return runOnce(sim, repetition);
+        } finally {
+            simulations.put(sim);
+        }
+    }
+
+    /**
+     * @param sim        simulation, not used by another thread
+     * @param repetition replication number of the run
+     * @return all time steps of the run
+     */
+    static int[][] runOnce(Simulation sim, int repetition) {
+        sim.reset(repetition);
+        return runRemaining(sim);
+    }
+
+    /**
+     * @param sim simulation, not used by another thread
+     * @return all time steps from the current one to the end of the run
+     */
+    private static int[][] runRemaining(Simulation sim) {
+        int[][] trajectory = new int[sim.getDuration() - sim.getTime()][Simulation.COLUMNS];
+        int t = 0;
+        while (sim.hasNext()) {
+            sim.next(trajectory[t++]);
+        }
+        return trajectory;
+    }
+}
@@ -0,0 +1,35 @@
+package populationModel;
+
+import java.util.Arrays;
+
+/**
+ * Selects how the random numbers of the replications depend on each other, set with the field sampling in the
+ * input file. In both cases replication i draws from the same streams under any parameters (common random
+ * numbers), so runs with different rates but the same seed and replication are positively correlated.
+ */
+public enum Sampling {
+    /**
+     * every replication has its own random numbers
+     */
+    INDEPENDENT,
+    /**
+     * replications 2k and 2k+1 form an antithetic pair: the odd one draws 1-u wherever the even one draws u, and
+     * both sample exponential times by inversion, so short lifetimes in one run face long ones in the other. The
+     * mean of a pair usually varies less than the mean of two independent runs, see PairedAggregate.
+     */
+    ANTITHETIC;
+
+    /**
+     * @param name name of the sampling, case insensitive
+     * @return the associated sampling
+     */
+    public static Sampling parse(String name) {
+        for (Sampling sampling : values()) {
+            if (sampling.name().equalsIgnoreCase(name.trim())) {
+                return sampling;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown sampling <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+}
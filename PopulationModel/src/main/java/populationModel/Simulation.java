@@ -1,16 +1,17 @@
 package populationModel;
 
-import populationModel.person.Man;
-import populationModel.person.Woman;
+import populationModel.metrics.SimulationMetrics;
+import populationModel.metrics.SimulationMetrics.Phase;
+import populationModel.util.HazardSampler;
 import populationModel.util.ImmigrationParameters;
+import populationModel.util.LifeTable;
 import populationModel.util.PopulationParameters;
+import populationModel.util.RandomStream;
+import populationModel.util.RandomStreams;
+import populationModel.util.RateSchedules;
 
-import java.io.FileInputStream;
 import java.io.IOException;
 import java.util.*;
-import java.util.stream.Collectors;
-
-import static populationModel.util.RandomGenerator.*;
 
 /**
  * Gets initialized with parameters and allows to step through simulation runs
@@ -18,121 +19,333 @@ import static populationModel.util.RandomGenerator.*;
 public class Simulation implements Iterator<int[]> {
     public static final String HEADER = String.format("time, populationF, populationM, %s", TimeUnit.HEADER);
 
-    // time <= duration
+    /**
+     * length of the arrays returned by next(), i.e. number of columns of HEADER
+     */
+    public static final int COLUMNS = TimeUnit.STATCOUNT + 3;
+
+    // time <= horizon
     private int time;
-    // fixed value
+    // fixed value, number of time steps of every new run
     private int duration;
+    // number of time steps of the current run, may be extended while running
+    private int horizon;
     private EventHistory eventList;
+    // only used by the continuous engine
+    private ContinuousEngine continuous;
+    private double reportInterval;
+    // only used by the tau-leaping engine, until the population drops below exactThreshold
+    private TauLeapEngine tauLeap;
+    private double leapSize;
+    private int exactThreshold;
+
+    private EngineMode engine;
+    private BirthScheduling births;
+    private Sampling sampling;
+    private Population populationF;
+    private Population populationM;
+    // both sexes, only used by the individual engine
+    private PopulationTable people;
+
+    private PopulationParameters womenParams;
+    private PopulationParameters menParams;
+    private ImmigrationParameters immigrationParameters;
+    // age-specific rates, null if all rates are the ones of the birth cohort
+    private LifeTable lifeTable;
+    // rates per time step, null if all rates are linear in time
+    private RateSchedules rateSchedules;
+    // compiled from the rates above, null if a setter changed them since the last reset
+    private RateTables rates;
 
-    private Set<Integer> populationF;
-    private Set<Integer> populationM;
+    private double cumulativeImmigrationTime;
 
-    private final PopulationParameters womenParams;
-    private final PopulationParameters menParams;
-    private final ImmigrationParameters immigrationParameters;
+    // random streams of the current run are derived from the master seed and the replication number
+    private long seed;
+    private long replication;
+    private RandomStreams random;
 
-    private double cumulativeImmigrationTime;
+    /**
+     * exit type drawn by the last call of drawExit
+     */
+    private Action exit;
+
+    /**
+     * stands in for time steps without events, never changed
+     */
+    private static final TimeUnit EMPTY = new TimeUnit(false);
+
+    /**
+     * reused by runRemaining
+     */
+    private int[] buffer;
 
+    // counters and timers, null if nothing is recorded
+    private SimulationMetrics metrics;
     /**
-     * read parameters from input file, where each line starts with the key name, followed by an equality symbol and
-     * then the value. In order to ensure correct parsing, no punctuation is accepted.
-     * <p>
-     * save all parameters for the simulation and initialize the population
+     * population size last added to the metrics
+     */
+    private long recordedPopulation;
+
+    /**
+     * read parameters from input file, see SimulationParameters.read, and initialize the population
      *
      * @param inputFile path to input file
      */
     public Simulation(String inputFile) throws IOException, NumberFormatException {
-        // create and load default properties
-        Properties properties = new Properties();
-        FileInputStream inputStream = new FileInputStream(inputFile);
-        properties.load(inputStream);
-        inputStream.close();
-
-
-        String fieldName = "time_steps";
-        String propertyValue = properties.getProperty(fieldName);
-        try {
-            // init parameters
-            duration = Integer.parseInt(propertyValue);
-
-            // immigration parameters
-            propertyValue = properties.getProperty(fieldName = "lambda_immi");
-            double immigrationRate = Double.parseDouble(propertyValue);
-
-            propertyValue = properties.getProperty(fieldName = "slope_immi_rate");
-            double slopeImmigrationRate = Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "imm_prop_female", "0.5");
-            double propF = Double.parseDouble(propertyValue);
-            // propertyValue = properties.getProperty(fieldName = "imm_mean_age");
-            // double meanAge = Double.parseDouble(propertyValue);
-            // propertyValue = properties.getProperty(fieldName = "imm_sd_age");
-            // double sdAge = Double.parseDouble(propertyValue);
-            immigrationParameters = new ImmigrationParameters(immigrationRate, slopeImmigrationRate,
-                    propF, 0, 0);
-
-            // population parameters women
-
-            propertyValue = properties.getProperty(fieldName = "init_f");
-            int initialPopulationSizeWomen = Integer.parseInt(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "mu_death_f");
-            double deathRateWomen = 1 / Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "slope_death_rate_f");
-            double slopeDeathRateWomen = Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "mu_emigration");
-            double emigrationRateWomen = 1 / Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "slope_emigration_rate");
-            double slopeEmigrationRateWomen = Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "mu_birth");
-            double birthRate = 1 / Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "slope_birth_rate");
-            double slopeBirthRate = Double.parseDouble(propertyValue);
-
-            womenParams = new PopulationParameters(initialPopulationSizeWomen,
-                    deathRateWomen, slopeDeathRateWomen,
-                    emigrationRateWomen, slopeEmigrationRateWomen,
-                    birthRate, slopeBirthRate);
-
-            // population parameters men
-            propertyValue = properties.getProperty(fieldName = "init_m");
-            int initialPopulationSizeMen = Integer.parseInt(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "mu_death_m");
-            double deathRateMen = 1 / Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "slope_death_rate_m");
-            double slopeDeathRateMen = Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "mu_emigration");
-            double emigrationRateMen = 1 / Double.parseDouble(propertyValue);
-            propertyValue = properties.getProperty(fieldName = "slope_emigration_rate");
-            double slopeEmigrationRateMen = Double.parseDouble(propertyValue);
-
-            menParams = new PopulationParameters(initialPopulationSizeMen,
-                    deathRateMen, slopeDeathRateMen,
-                    emigrationRateMen, slopeEmigrationRateMen);
-        } catch (NullPointerException e) {
-            throw new NullPointerException(String.format("Required field <%s> not found in input file. Check spelling.", fieldName));
-        } catch (NumberFormatException e) {
-            if (propertyValue == null) {
-                throw new NullPointerException(String.format("Required field <%s> not found in input file. Check spelling.", fieldName));
-            } else {
-                throw new NumberFormatException(String.format("Cannot parse number <%s> in field <%s>.", propertyValue, fieldName));
+        this(SimulationParameters.read(inputFile));
+    }
+
+    /**
+     * save all parameters for the simulation and initialize the population. Many simulations may share the same
+     * parameters, which are read only once.
+     *
+     * @param parameters settings of every run
+     */
+    public Simulation(SimulationParameters parameters) {
+        setParameters(parameters);
+        reset(0);
+    }
+
+    /**
+     * create an independent simulation with the same settings (and seed) as the prototype, e.g. for running
+     * repetitions on several threads
+     *
+     * @param prototype simulation whose parameters are copied
+     */
+    Simulation(Simulation prototype) {
+        this(prototype.getParameters());
+    }
+
+    /**
+     * copy the state of a run, see snapshot
+     *
+     * @param source     simulation whose state is copied
+     * @param parameters settings of the copy; engine, birth scheduling, sampling, report interval and leap size
+     *                   must be the ones of the source
+     * @param branch     negative to continue with the same random numbers as the source, otherwise the index of
+     *                   a branch with its own random numbers
+     */
+    private Simulation(Simulation source, SimulationParameters parameters, long branch) {
+        setParameters(parameters);
+        if (engine != source.engine || births != source.births || sampling != source.sampling
+                || reportInterval != source.reportInterval || leapSize != source.leapSize) {
+            throw new IllegalArgumentException(
+                    "A fork must keep the engine, birth scheduling, sampling, report interval and leap size.");
+        }
+        time = source.time;
+        horizon = (duration == source.duration) ? source.horizon : horizon();
+        if (horizon < time) {
+            throw new IllegalArgumentException(String.format(
+                    "The duration %d of a fork must not end before the time %d of the snapshot.", duration, time));
+        }
+        replication = source.replication;
+        random = new RandomStreams(source.random, branch);
+        cumulativeImmigrationTime = source.cumulativeImmigrationTime;
+        if (source.people != null) {
+            people = new PopulationTable(source.people);
+            populationF = new IndividualPopulation(people, true);
+            populationM = new IndividualPopulation(people, false);
+        } else {
+            populationF = ((CountedPopulation) source.populationF).copy();
+            populationM = ((CountedPopulation) source.populationM).copy();
+        }
+        if (source.eventList != null) {
+            eventList = new EventHistory(source.eventList, random);
+            eventList.setHorizon(horizon);
+            eventList.setFertility(fertility());
+        }
+        if (source.continuous != null) {
+            continuous = new ContinuousEngine(source.continuous, immigrationParameters, rates, random, populationF,
+                    populationM);
+        }
+        if (source.tauLeap != null) {
+            tauLeap = new TauLeapEngine(source.tauLeap, immigrationParameters, rates, random,
+                    (CountedPopulation) populationF, (CountedPopulation) populationM);
+        }
+    }
+
+    /**
+     * continue a run from a checkpoint
+     *
+     * @param in checkpoint, positioned at a simulation written by write
+     * @throws IOException if reading fails
+     */
+    Simulation(CheckpointInput in) throws IOException {
+        setParameters(SimulationParameters.read(in));
+        time = in.getInt();
+        horizon = in.getInt();
+        replication = in.getLong();
+        cumulativeImmigrationTime = in.getDouble();
+        RandomStream[] streams = new RandomStream[RandomStreams.Purpose.values().length];
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = new RandomStream(in.getLong(), in.getLong());
+            if (sampling == Sampling.ANTITHETIC) {
+                streams[i] = streams[i].coupled((replication & 1) != 0);
             }
         }
+        random = new RandomStreams(streams);
+        if (engine == EngineMode.INDIVIDUAL) {
+            people = new PopulationTable(in);
+            populationF = new IndividualPopulation(people, true);
+            populationM = new IndividualPopulation(people, false);
+        } else {
+            populationF = new CountedPopulation(in);
+            populationM = new CountedPopulation(in);
+        }
+        if (in.getBoolean()) {
+            eventList = new EventHistory(in, random);
+            eventList.setFertility(fertility());
+        }
+        if (in.getBoolean()) {
+            continuous = new ContinuousEngine(in, immigrationParameters, rates, random, populationF, populationM);
+        }
+        if (in.getBoolean()) {
+            tauLeap = new TauLeapEngine(in, immigrationParameters, rates, random,
+                    (CountedPopulation) populationF, (CountedPopulation) populationM);
+        }
+    }
 
-        reset();
+    /**
+     * write the whole state of the current run; only call it on a copy which no other thread changes, see snapshot
+     *
+     * @param out checkpoint
+     * @throws IOException if writing fails
+     */
+    void write(CheckpointOutput out) throws IOException {
+        getParameters().write(out);
+        out.putInt(time);
+        out.putInt(horizon);
+        out.putLong(replication);
+        out.putDouble(cumulativeImmigrationTime);
+        for (RandomStreams.Purpose p : RandomStreams.Purpose.values()) {
+            out.putLong(random.get(p).getSeed());
+            out.putLong(random.get(p).getState());
+        }
+        if (people != null) {
+            people.write(out);
+        } else {
+            ((CountedPopulation) populationF).write(out);
+            ((CountedPopulation) populationM).write(out);
+        }
+        out.putBoolean(eventList != null);
+        if (eventList != null) {
+            eventList.write(out);
+        }
+        out.putBoolean(continuous != null);
+        if (continuous != null) {
+            continuous.write(out);
+        }
+        out.putBoolean(tauLeap != null);
+        if (tauLeap != null) {
+            tauLeap.write(out);
+        }
     }
 
     /**
-     * after changed parameters, re-initialize the simulation
+     * freeze the state of the current run, e.g. after a common history, from which several scenarios branch off.
+     * The simulation itself is not changed and may go on.
+     *
+     * @return a copy of the current state, from which any number of simulations can be forked
+     */
+    public SimulationSnapshot snapshot() {
+        return new SimulationSnapshot(copy(getParameters(), -1));
+    }
+
+    /**
+     * @param parameters settings of the copy, see snapshot
+     * @param branch     negative to keep the random numbers, otherwise the index of a branch
+     * @return an independent simulation in the same state as this one
+     */
+    Simulation copy(SimulationParameters parameters, long branch) {
+        return new Simulation(this, parameters, branch);
+    }
+
+    /**
+     * after changed parameters, re-initialize the simulation with the next replication number
+     */
+    public void reset() {
+        reset(replication + 1);
+    }
+
+    /**
+     * re-initialize the simulation, such that its random numbers are the ones of the given replication
      * Reset time = 0
-     * population = new HashSet
-     * eventList = new EventHistory
+     * population = empty population, IDs start at 0
+     * eventList = empty EventHistory
      * create initial population
+     *
+     * @param replication number of the run, together with the seed it determines all random numbers
      */
-    public void reset() {
+    public void reset(long replication) {
+        if (metrics != null) {
+            metrics.recordPopulation(-recordedPopulation);
+            recordedPopulation = 0;
+        }
+        if (rates == null) {
+            rates = new RateTables(womenParams, menParams, immigrationParameters, rateSchedules, lifeTable, births,
+                    duration);
+        }
+        this.replication = replication;
+        random = new RandomStreams(seed, replication, sampling == Sampling.ANTITHETIC);
         time = 0;
-        populationF = new HashSet<>(womenParams.getInitialPopulationSize());
-        populationM = new HashSet<>(menParams.getInitialPopulationSize());
-        eventList = new EventHistory(duration);
-        initPopulation(womenParams.getInitialPopulationSize(), menParams.getInitialPopulationSize());
+        horizon = horizon();
+        if (populationF == null || populationF.tracksIDs() != (engine == EngineMode.INDIVIDUAL)) {
+            createPopulations(womenParams.getInitialPopulationSize() + menParams.getInitialPopulationSize());
+        } else {
+            populationF.clear();
+            populationM.clear();
+        }
+        // the engines of the finished run lend their buffers to the new ones
+        TauLeapEngine previousTauLeap = tauLeap;
+        ContinuousEngine previousContinuous = (previousTauLeap == null) ? continuous : null;
+        tauLeap = null;
+        if (engine == EngineMode.TAU_LEAP) {
+            eventList = null;
+            continuous = null;
+            tauLeap = new TauLeapEngine(immigrationParameters, rates, random,
+                    (CountedPopulation) populationF, (CountedPopulation) populationM, leapSize, previousTauLeap);
+            tauLeap.initPopulation(womenParams.getInitialPopulationSize(), menParams.getInitialPopulationSize());
+        } else if (engine == EngineMode.CONTINUOUS) {
+            eventList = null;
+            continuous = new ContinuousEngine(womenParams, menParams, immigrationParameters, rates, random,
+                    populationF, populationM, reportInterval, previousContinuous);
+            continuous.initPopulation(womenParams.getInitialPopulationSize(), menParams.getInitialPopulationSize());
+        } else {
+            continuous = null;
+            int window = Math.min(duration + 1, EventHistory.DEFAULT_WINDOW);
+            // the calendar of the finished run is emptied, so its time units keep their memory
+            if (eventList != null && eventList.fits(window, populationF.tracksIDs(), births)) {
+                eventList.reset(horizon, random);
+            } else {
+                eventList = new EventHistory(window, horizon, random, populationF.tracksIDs(), births);
+            }
+            eventList.setFertility(fertility());
+            initPopulation(womenParams.getInitialPopulationSize(), menParams.getInitialPopulationSize());
+        }
+    }
+
+    /**
+     * @return number of time steps (reports, for the continuous engine) of a run of the current duration
+     */
+    private int horizon() {
+        return (engine == EngineMode.CONTINUOUS) ? (int) Math.round(duration / reportInterval) : duration;
+    }
+
+    /**
+     * create empty populations, as required by the engine mode
+     *
+     * @param capacity expected population size of both sexes
+     */
+    private void createPopulations(int capacity) {
+        if (engine == EngineMode.INDIVIDUAL) {
+            people = new PopulationTable(capacity);
+            populationF = new IndividualPopulation(people, true);
+            populationM = new IndividualPopulation(people, false);
+        } else {
+            people = null;
+            populationF = new CountedPopulation();
+            populationM = new CountedPopulation();
+        }
     }
 
     /**
@@ -143,18 +356,14 @@ public class Simulation implements Iterator<int[]> {
      */
     private void initPopulation(int sizeF, int sizeM) {
         int time0 = 0;
-        cumulativeImmigrationTime = (float) (time0 + randomExp(immigrationParameters.getImmigrationRate(time0)));
+        cumulativeImmigrationTime = (float) (time0 + random.immigration().randomExp(rates.getImmigration().at(time0)));
         // todo: maybe change people's ages
         for (int i = 0; i < sizeF; i++) {
-            Woman w = new Woman(time0, womenParams);
-            populationF.add(w.getID());
-            eventList.addEvents(w);
+            integrateWoman(time0);
         }
 
         for (int i = 0; i < sizeM; i++) {
-            Man m = new Man(time0, menParams);
-            populationM.add(m.getID());
-            eventList.addEvents(m);
+            integrateMan(time0);
         }
     }
 
@@ -163,7 +372,7 @@ public class Simulation implements Iterator<int[]> {
         // don't compare with attribute duration, which might
         // have changed already in preparation for a
         // new simulation run
-        return time < eventList.getDuration();
+        return time < horizon;
     }
 
     /**
@@ -173,69 +382,234 @@ public class Simulation implements Iterator<int[]> {
      */
     @Override
     public int[] next() {
+        int[] stats = new int[COLUMNS];
+        next(stats);
+        return stats;
+    }
+
+    /**
+     * like next(), but writes into an array of the caller, so stepping allocates nothing for the results
+     *
+     * @param out receives the statistics of the time step, at least COLUMNS long
+     */
+    public void next(int[] out) {
+        if (out.length < COLUMNS) {
+            throw new IllegalArgumentException(String.format("Provide an array of at least %d statistics.", COLUMNS));
+        }
+        step(out);
+        if (metrics != null) {
+            record(out);
+        }
+    }
+
+    /**
+     * step through the rest of the run, handing every time step to the sink. The sink always receives the same
+     * array, which is overwritten by the next time step.
+     *
+     * @param sink receives the statistics of every time step
+     * @return number of time steps
+     */
+    public int runRemaining(StatsSink sink) {
+        if (buffer == null) {
+            buffer = new int[COLUMNS];
+        }
+        int steps = 0;
+        while (hasNext()) {
+            next(buffer);
+            sink.accept(buffer);
+            steps++;
+        }
+        return steps;
+    }
+
+    /**
+     * @param stats receives the statistics of the next time step
+     */
+    private void step(int[] stats) {
         if (time == 0) {
-            return currentStats(time++);
+            currentStats(time++, stats);
+            return;
+        }
+        long lap = (metrics == null) ? 0 : System.nanoTime();
+        if (tauLeap != null) {
+            tauLeap.next(time, stats);
+            if (populationF.size() + populationM.size() < exactThreshold) {
+                // small populations are simulated exactly, as leaps would be too coarse
+                continuous = new ContinuousEngine(womenParams, menParams, immigrationParameters, rates, random,
+                        populationF, populationM, 1, null);
+                tauLeap.transferTo(continuous, time);
+                tauLeap = null;
+            }
+            time++;
+            lap(Phase.TAU_LEAP, lap);
+            return;
+        }
+        if (continuous != null) {
+            continuous.next(time++, stats);
+            lap(Phase.CONTINUOUS, lap);
+            return;
         }
         TimeUnit e = eventList.getTimeUnit(time);
         if (e != null) {
             addImmigrations(time, e);
-
-            // births and immigrations women
-            for (int i = 0; i < e.getBirthsFemale(); i++) {
-                Woman w = new Woman(time, womenParams);
-                integrateWoman(w);
-            }
-            for (int j = 0; j < e.getImmigrationsFemale(); j++) {
-                int birthYear = time - immigrationParameters.randomAge();
-                integrateWoman(new Woman(birthYear, womenParams));
-            }
+            lap = lap(Phase.IMMIGRATION, lap);
+
+            // births and immigrations women; newcomers may give birth within the same time step, if their births
+            // are scheduled one at a time
+            int bornF = 0;
+            int immigratedF = 0;
+            do {
+                eventList.resolveBirths(e, people);
+                for (; bornF < e.getBirthsFemale(); bornF++) {
+                    integrateWoman(time);
+                }
+                for (; immigratedF < e.getImmigrationsFemale(); immigratedF++) {
+                    int birthYear = time - immigrationParameters.randomAge(random.immigration());
+                    integrateWoman(birthYear);
+                }
+            } while (e.hasUnresolvedBirths());
 
             // births and immigrations men
             for (int i = 0; i < e.getBirthsMale(); i++) {
-                Man m = new Man(time, menParams);
-                integrateMan(m);
+                integrateMan(time);
             }
             for (int i = 0; i < e.getImmigrationsMale(); i++) {
-                int birthYear = time - immigrationParameters.randomAge();
-                integrateMan(new Man(birthYear, menParams));
+                int birthYear = time - immigrationParameters.randomAge(random.immigration());
+                integrateMan(birthYear);
             }
+            lap = lap(Phase.ENTRY, lap);
 
             // emigrations
-            populationF.removeAll(e.getEmigrationsFemale());
-            populationM.removeAll(e.getEmigrationsMale());
+            populationF.release(e.getEmigrationsFemale(), e.getEmigrationCountFemale());
+            populationM.release(e.getEmigrationsMale(), e.getEmigrationCountMale());
 
             // deaths
-            populationF.removeAll(e.getDeathsFemale());
-            populationM.removeAll(e.getDeathsMale());
+            populationF.release(e.getDeathsFemale(), e.getDeathCountFemale());
+            populationM.release(e.getDeathsMale(), e.getDeathCountMale());
+            lap = lap(Phase.EXIT, lap);
 
         } else {
-            e = new TimeUnit();
+            e = EMPTY;
         }
         // todo check if immediately leaving entities show up in toString()
-        // delete history for performance reasons - however THAT MEANS THAT EVENTS
+        currentStats(time, e, stats);
+        // the time unit is reused for a later time step - THAT MEANS THAT EVENTS
         // SCHEDULED AT THE CURRENT TIME UNIT CANNOT BE ADDED
-        eventList.deleteTimeUnit(time);
-        return currentStats(time++, e);
+        eventList.deleteTimeUnit(time++);
+        lap(Phase.REPORT, lap);
+    }
+
+    /**
+     * add the time since the last lap to a phase, if metrics are recorded
+     *
+     * @param phase part of the time step which just ended
+     * @param since start of the phase, see System.nanoTime()
+     * @return start of the next phase
+     */
+    private long lap(Phase phase, long since) {
+        if (metrics == null) {
+            return 0;
+        }
+        long now = System.nanoTime();
+        metrics.recordTime(phase, now - since);
+        return now;
     }
 
     /**
-     * add woman to population and add life events to eventList
+     * report a finished time step to the metrics
      *
-     * @param w woman
+     * @param stats statistics of the time step
      */
-    private void integrateWoman(Woman w) {
-        populationF.add(w.getID());
-        eventList.addEvents(w);
+    private void record(int[] stats) {
+        metrics.recordStep(stats);
+        long size = (long) stats[1] + stats[2];
+        metrics.recordPopulation(size - recordedPopulation);
+        recordedPopulation = size;
+        if (eventList != null) {
+            metrics.recordEventHistory(eventList.getOccupiedUnits(), eventList.getOverflowSize());
+        }
+        if (!hasNext()) {
+            metrics.recordReplication();
+        }
     }
 
     /**
-     * add man to population and add life event to event list
+     * add a woman to the population and her life events to eventList
      *
-     * @param m man
+     * @param timestamp woman's birth time
      */
-    private void integrateMan(Man m) {
-        populationM.add(m.getID());
-        eventList.addEvents(m);
+    private void integrateWoman(int timestamp) {
+        int id = populationF.admit();
+        int exitTime = drawExit(true, timestamp);
+        eventList.addExit(true, id, exitTime, exit);
+        // the table of a LIFETIME scheduling only holds birth rates below 1
+        double rate = (fertility() != null) ? 0 : rates.getBirth().at(timestamp);
+        int nextBirth;
+        if (births == BirthScheduling.LIFETIME) {
+            nextBirth = eventList.addLifetimeBirths(timestamp, exitTime, rate);
+        } else {
+            nextBirth = eventList.addNextBirth(id, timestamp, exitTime, rate);
+        }
+        if (people != null) {
+            people.setLife(id, timestamp, exitTime, exit);
+            people.setNextBirth(id, nextBirth);
+        }
+    }
+
+    /**
+     * add a man to the population and his life event to event list
+     *
+     * @param timestamp man's birth time
+     */
+    private void integrateMan(int timestamp) {
+        int id = populationM.admit();
+        int exitTime = drawExit(false, timestamp);
+        eventList.addExit(false, id, exitTime, exit);
+        if (people != null) {
+            people.setLife(id, timestamp, exitTime, exit);
+        }
+    }
+
+    /**
+     * draw whether a person dies or emigrates first, the exit type is stored in the attribute exit. With a life
+     * table, the exit is drawn given that the person is still there at the current age.
+     *
+     * @param female    true for a woman
+     * @param timestamp person's birth time
+     * @return time step of the exit
+     */
+    private int drawExit(boolean female, int timestamp) {
+        HazardSampler deathTable = (lifeTable == null) ? null : lifeTable.getDeath(female);
+        HazardSampler emigrationTable = (lifeTable == null) ? null : lifeTable.getEmigration(female);
+        int age = Math.max(time - timestamp, 0);
+        double death = (deathTable == null) ? random.death().randomExp(rates.getDeath(female).at(timestamp))
+                : deathTable.next(age, random.death());
+        double emigration = (emigrationTable == null)
+                ? random.emigration().randomExp(rates.getEmigration(female).at(timestamp))
+                : emigrationTable.next(age, random.emigration());
+        if (death < emigration) {
+            exit = Action.DEATH;
+            return exitTime(timestamp, death);
+        }
+        exit = Action.EMIGRATION;
+        return exitTime(timestamp, emigration);
+    }
+
+    /**
+     * @param timestamp person's birth time
+     * @param lifetime  time until the exit, possibly huge for tiny rates
+     * @return time step of the exit, at most Integer.MAX_VALUE
+     */
+    private static int exitTime(int timestamp, double lifetime) {
+        double t = timestamp + Math.floor(0.5 + lifetime);
+        return (t >= Integer.MAX_VALUE) ? Integer.MAX_VALUE : (int) t;
+    }
+
+    /**
+     * @return sampler of the mothers' ages at births, or null if women have the birth rate of their cohort
+     */
+    private HazardSampler fertility() {
+        return (lifeTable == null) ? null : lifeTable.getFertility();
     }
 
     /**
@@ -250,34 +624,28 @@ public class Simulation implements Iterator<int[]> {
     /**
      * get population size
      * @param timeStamp current timestamp
-     * @return an array of initial population statistics
+     * @param stats receives the initial population statistics
      */
-    private int[] currentStats(int timeStamp) {
-        int[] stats = new int[TimeUnit.STATCOUNT + 3];
-        stats[0] = timeStamp;
-        stats[1] = populationF.size();
-        stats[2] = populationM.size();
-        return stats;
+    private void currentStats(int timeStamp, int[] stats) {
+        currentStats(timeStamp, EMPTY, stats);
     }
 
     /**
      * get population size and birth/death, migration counts
      * @param timeStamp current timestamp
      * @param e TimeUnit event associated with the timestamp
-     * @return population size and birth/death/migration statistics
+     * @param stats receives population size and birth/death/migration statistics
      */
-    private int[] currentStats(int timeStamp, TimeUnit e) {
-        int[] stats = new int[TimeUnit.STATCOUNT + 3];
+    private void currentStats(int timeStamp, TimeUnit e, int[] stats) {
         stats[0] = timeStamp;
         stats[1] = populationF.size();
         stats[2] = populationM.size();
         stats[3] = e.getBirthsFemale();
         stats[4] = e.getBirthsMale();
-        stats[5] = e.getDeathsFemale().size();
-        stats[6] = e.getDeathsMale().size();
+        stats[5] = e.getDeathCountFemale();
+        stats[6] = e.getDeathCountMale();
         stats[7] = e.getImmigrationsFemale() + e.getImmigrationsMale();
-        stats[8] = e.getEmigrationsFemale().size() + e.getEmigrationsMale().size();
-        return stats;
+        stats[8] = e.getEmigrationCountFemale() + e.getEmigrationCountMale();
     }
 
     /**
@@ -288,50 +656,300 @@ public class Simulation implements Iterator<int[]> {
      */
     private void addImmigrations(int timestamp, TimeUnit e) {
         // compute how many immigrations happen in timestep
-        double lambda = immigrationParameters.getImmigrationRate(timestamp);
+        double lambda = rates.getImmigration().at(timestamp);
 
-        //cumulativeImmigrationTime += randomExp(lambda);
+        //cumulativeImmigrationTime += random.immigration().randomExp(lambda);
         while (cumulativeImmigrationTime < timestamp) {
-            if (randomUnif() < immigrationParameters.getProportionF()) {
+            if (random.immigration().randomUnif() < immigrationParameters.getProportionF()) {
                 e.scheduleWomanImmigration();
             } else {
                 e.scheduleManImmigration();
             }
-            cumulativeImmigrationTime += randomExp(lambda);
+            cumulativeImmigrationTime += random.immigration().randomExp(lambda);
         }
     }
 
     // setters
 
+    /**
+     * replace all settings at once, takes effect at the next reset. The current run is not affected, as the engines
+     * keep the parameters they were created with.
+     *
+     * @param parameters settings of every run
+     */
+    public void setParameters(SimulationParameters parameters) {
+        duration = parameters.getDuration();
+        seed = parameters.getSeed();
+        engine = parameters.getEngine();
+        births = parameters.getBirthScheduling();
+        sampling = parameters.getSampling();
+        reportInterval = parameters.getReportInterval();
+        leapSize = parameters.getLeapSize();
+        exactThreshold = parameters.getExactThreshold();
+        womenParams = parameters.getWomenParams();
+        menParams = parameters.getMenParams();
+        immigrationParameters = parameters.getImmigrationParameters();
+        lifeTable = parameters.getLifeTable();
+        rateSchedules = parameters.getRateSchedules();
+        rates = parameters.getRates();
+    }
+
+    /**
+     * record counters and timers of every time step from now on, e.g. for monitoring long batches
+     *
+     * @param metrics shared by any number of simulations, or null to stop recording
+     */
+    public void setMetrics(SimulationMetrics metrics) {
+        if (this.metrics != null) {
+            this.metrics.recordPopulation(-recordedPopulation);
+            recordedPopulation = 0;
+        }
+        this.metrics = metrics;
+    }
+
+    /**
+     * change the master seed, takes effect at the next reset
+     *
+     * @param seed master seed of all random streams
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+
+    /**
+     * change how the population is stored, takes effect at the next reset
+     *
+     * @param engine engine mode, individual or counts if a life table is used
+     */
+    public void setEngine(EngineMode engine) {
+        if (lifeTable != null && (engine == EngineMode.CONTINUOUS || engine == EngineMode.TAU_LEAP)) {
+            throw new IllegalArgumentException(String.format(
+                    "Life tables need the individual or counts engine, not %s.", engine.name().toLowerCase()));
+        }
+        this.engine = engine;
+    }
+
+    /**
+     * change how births are scheduled, takes effect at the next reset
+     *
+     * @param births birth scheduling
+     */
+    public void setBirthScheduling(BirthScheduling births) {
+        this.births = births;
+        rates = null;
+    }
+
+    /**
+     * change how the random numbers of the replications depend on each other, takes effect at the next reset
+     *
+     * @param sampling sampling
+     */
+    public void setSampling(Sampling sampling) {
+        this.sampling = sampling;
+    }
+
+    /**
+     * continue the current run for more time steps. Events beyond the original duration are kept, so the run goes on
+     * exactly as if it had been started with the longer duration. The duration of later runs is not changed.
+     *
+     * @param steps number of additional time steps
+     */
+    public void extend(int steps) {
+        if (steps < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative step count.");
+        }
+        horizon += steps;
+        if (eventList != null) {
+            eventList.setHorizon(horizon);
+        }
+    }
+
+    /**
+     * change the time between two reports of the continuous engine, takes effect at the next reset
+     *
+     * @param interval e.g. 1.0/12 for monthly reports
+     */
+    public void setReportInterval(double interval) {
+        this.reportInterval = interval;
+    }
+
+    /**
+     * change the length of a leap of the tau-leaping engine, takes effect at the next reset
+     *
+     * @param leapSize fraction of a time step, in (0, 1]
+     */
+    public void setLeapSize(double leapSize) {
+        this.leapSize = leapSize;
+    }
+
+    /**
+     * change the population size below which the tau-leaping engine hands over to the exact continuous engine
+     *
+     * @param threshold number of people, 0 never switches
+     */
+    public void setExactThreshold(int threshold) {
+        if (threshold < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative threshold.");
+        }
+        this.exactThreshold = threshold;
+    }
+
     public boolean setDuration(int t) {
         boolean b = !hasNext();
         if (b) {
             duration = t;
+            rates = null;
         }
         return b;
     }
 
     // getters
 
+    /**
+     * @return number of time steps (reports, for the continuous engine) of the current simulation run
+     */
+    public int getDuration() {
+        return horizon;
+    }
+
+    /**
+     * @return number of time steps computed in the current run, i.e. the next call of next() returns this step
+     */
+    public int getTime() {
+        return time;
+    }
+
+    /**
+     * @return how the population is stored
+     */
+    public EngineMode getEngine() {
+        return engine;
+    }
+
+    /**
+     * @return time between two reports of the continuous engine
+     */
+    public double getReportInterval() {
+        return reportInterval;
+    }
+
+    /**
+     * @return length of a leap of the tau-leaping engine
+     */
+    public double getLeapSize() {
+        return leapSize;
+    }
+
+    /**
+     * @return population size below which the tau-leaping engine hands over to the exact continuous engine
+     */
+    public int getExactThreshold() {
+        return exactThreshold;
+    }
+
+    /**
+     * @return how births are scheduled
+     */
+    public BirthScheduling getBirthScheduling() {
+        return births;
+    }
+
+    /**
+     * @return how the random numbers of the replications depend on each other
+     */
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    /**
+     * @return master seed of all random streams
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return replication number of the current run
+     */
+    public long getReplication() {
+        return replication;
+    }
+
+    /**
+     * @return everyone in the region with their birth, exit and next birth, e.g. to count the people in an age
+     * range; null unless the engine is EngineMode.INDIVIDUAL. The table changes with every time step.
+     */
+    public PopulationTable getPopulationTable() {
+        return people;
+    }
+
+    /**
+     * @return counters and timers the simulation records to, or null
+     */
+    public SimulationMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * @return a snapshot of the settings of the next run, e.g. to create more simulations cheaply
+     */
+    public SimulationParameters getParameters() {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @return a copy of the parameters for women; the rates are compiled when they are set, so change them with
+     * setParameters
+     */
     public PopulationParameters getWomenParams() {
-        return womenParams;
+        return new PopulationParameters(womenParams);
     }
 
+    /**
+     * @return a copy of the parameters for men
+     */
     public PopulationParameters getMenParams() {
-        return menParams;
+        return new PopulationParameters(menParams);
     }
 
+    /**
+     * @return a copy of the parameters for immigration
+     */
     public ImmigrationParameters getImmigrationParameters() {
-        return immigrationParameters;
+        return new ImmigrationParameters(immigrationParameters);
+    }
+
+    /**
+     * @return rates per time step, or null if all rates are linear in time
+     */
+    public RateSchedules getRateSchedules() {
+        return rateSchedules;
+    }
+
+    /**
+     * @return age-specific rates, or null if all rates are the ones of the birth cohort
+     */
+    public LifeTable getLifeTable() {
+        return lifeTable;
     }
 
     @Override
     public String toString() {
         return "Simulation{" +
                 "duration=" + duration +
+                ", seed=" + seed +
+                ", engine=" + engine.name().toLowerCase() +
+                ", births=" + births.name().toLowerCase() +
+                ", sampling=" + sampling.name().toLowerCase() +
+                ", reportInterval=" + reportInterval +
+                ", leapSize=" + leapSize +
+                ", exactThreshold=" + exactThreshold +
                 ", womenParams=" + womenParams +
                 ", menParams=" + menParams +
                 ", immigrationParameters=" + immigrationParameters +
+                ((lifeTable != null) ? ", lifeTable=" + lifeTable : "") +
+                ((rateSchedules != null) ? ", rateSchedules=" + rateSchedules : "") +
                 '}';
     }
 }
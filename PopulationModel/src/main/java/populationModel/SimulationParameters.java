@@ -0,0 +1,668 @@
+package populationModel;
+
+import populationModel.util.ImmigrationParameters;
+import populationModel.util.Interpolation;
+import populationModel.util.LifeTable;
+import populationModel.util.PopulationParameters;
+import populationModel.util.RateSchedules;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.util.Properties;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * All settings of a simulation, validated once and never changed. Read it from an input file once, then create any
+ * number of simulations from it; the with* methods return modified copies, e.g. for calibration.
+ */
+public final class SimulationParameters {
+    /**
+     * keys of the input file, which belong to the entries of getParams and withParams
+     */
+    public static final String[] PARAMS_KEYS = {"mu_birth", "slope_birth_rate", "mu_death_f", "slope_death_rate_f",
+            "mu_death_m", "slope_death_rate_m", "lambda_immi", "slope_immi_rate", "mu_emigration",
+            "slope_emigration_rate"};
+
+    private final int duration;
+    private final long seed;
+    private final EngineMode engine;
+    private final BirthScheduling births;
+    private final Sampling sampling;
+    private final double reportInterval;
+    private final double leapSize;
+    private final int exactThreshold;
+
+    // mutable objects, which are copied whenever they enter or leave this object
+    private final PopulationParameters womenParams;
+    private final PopulationParameters menParams;
+    private final ImmigrationParameters immigrationParameters;
+    // immutable, null if all rates are the ones of the birth cohort
+    private final LifeTable lifeTable;
+    // immutable, null if all rates are linear in time
+    private final RateSchedules rateSchedules;
+    // compiled from the rates above when the parameters are validated
+    private final RateTables rates;
+
+    /**
+     * @param duration              number of time steps of every run
+     * @param seed                  master seed of all random streams
+     * @param engine                how the population is stored
+     * @param births                how births are scheduled
+     * @param sampling              how the random numbers of the replications depend on each other
+     * @param reportInterval        time between two reports of the continuous engine
+     * @param leapSize              length of a leap of the tau-leaping engine
+     * @param exactThreshold        population size below which the tau-leaping engine hands over to the exact one
+     * @param womenParams           parameters for women, copied
+     * @param menParams             parameters for men, copied
+     * @param immigrationParameters parameters for immigration, copied
+     * @throws IllegalArgumentException if a value is out of range, e.g. a rate becomes negative within the duration
+     */
+    public SimulationParameters(int duration, long seed, EngineMode engine, BirthScheduling births,
+                                Sampling sampling, double reportInterval, double leapSize, int exactThreshold,
+                                PopulationParameters womenParams, PopulationParameters menParams,
+                                ImmigrationParameters immigrationParameters) {
+        this(duration, seed, engine, births, sampling, reportInterval, leapSize, exactThreshold, womenParams,
+                menParams, immigrationParameters, null);
+    }
+
+    /**
+     * @param duration              number of time steps of every run
+     * @param seed                  master seed of all random streams
+     * @param engine                how the population is stored
+     * @param births                how births are scheduled
+     * @param sampling              how the random numbers of the replications depend on each other
+     * @param reportInterval        time between two reports of the continuous engine
+     * @param leapSize              length of a leap of the tau-leaping engine
+     * @param exactThreshold        population size below which the tau-leaping engine hands over to the exact one
+     * @param womenParams           parameters for women, copied
+     * @param menParams             parameters for men, copied
+     * @param immigrationParameters parameters for immigration, copied
+     * @param lifeTable             age-specific rates, which replace the ones of the parameters, or null
+     * @throws IllegalArgumentException if a value is out of range, e.g. a rate becomes negative within the duration
+     */
+    public SimulationParameters(int duration, long seed, EngineMode engine, BirthScheduling births,
+                                Sampling sampling, double reportInterval, double leapSize, int exactThreshold,
+                                PopulationParameters womenParams, PopulationParameters menParams,
+                                ImmigrationParameters immigrationParameters, LifeTable lifeTable) {
+        this(duration, seed, engine, births, sampling, reportInterval, leapSize, exactThreshold, womenParams,
+                menParams, immigrationParameters, lifeTable, null);
+    }
+
+    /**
+     * @param duration              number of time steps of every run
+     * @param seed                  master seed of all random streams
+     * @param engine                how the population is stored
+     * @param births                how births are scheduled
+     * @param sampling              how the random numbers of the replications depend on each other
+     * @param reportInterval        time between two reports of the continuous engine
+     * @param leapSize              length of a leap of the tau-leaping engine
+     * @param exactThreshold        population size below which the tau-leaping engine hands over to the exact one
+     * @param womenParams           parameters for women, copied
+     * @param menParams             parameters for men, copied
+     * @param immigrationParameters parameters for immigration, copied
+     * @param lifeTable             age-specific rates, which replace the ones of the parameters, or null
+     * @param rateSchedules         rates per time step, which replace the linear ones of the parameters, or null
+     * @throws IllegalArgumentException if a value is out of range, e.g. a rate becomes negative within the duration
+     */
+    public SimulationParameters(int duration, long seed, EngineMode engine, BirthScheduling births,
+                                Sampling sampling, double reportInterval, double leapSize, int exactThreshold,
+                                PopulationParameters womenParams, PopulationParameters menParams,
+                                ImmigrationParameters immigrationParameters, LifeTable lifeTable,
+                                RateSchedules rateSchedules) {
+        if (engine == null || births == null || sampling == null) {
+            throw new NullPointerException("Please provide an engine, a birth scheduling and a sampling.");
+        }
+        this.duration = duration;
+        this.seed = seed;
+        this.engine = engine;
+        this.births = births;
+        this.sampling = sampling;
+        this.reportInterval = reportInterval;
+        this.leapSize = leapSize;
+        this.exactThreshold = exactThreshold;
+        this.womenParams = new PopulationParameters(womenParams);
+        this.menParams = new PopulationParameters(menParams);
+        this.immigrationParameters = new ImmigrationParameters(immigrationParameters);
+        this.lifeTable = lifeTable;
+        this.rateSchedules = rateSchedules;
+        validate();
+        rates = new RateTables(this.womenParams, this.menParams, this.immigrationParameters, rateSchedules,
+                lifeTable, births, duration);
+    }
+
+    /**
+     * read parameters from input file, where each line starts with the key name, followed by an equality symbol and
+     * then the value. In order to ensure correct parsing, no punctuation is accepted. The optional field seed
+     * makes runs reproducible, otherwise a random seed is chosen. The optional field engine chooses between tracking
+     * individuals (default) and only counting them, see EngineMode. The optional field birth_scheduling chooses
+     * between drawing all births of a woman at once (default) and one at a time, see BirthScheduling. The optional
+     * field sampling chooses between independent (default) and antithetic replications, see Sampling. With the
+     * continuous engine, the optional field report_interval sets the time between two reports (default 1). With the
+     * tau_leap engine, the optional field leap_size sets the length of a leap (default 1) and exact_threshold the
+     * population size below which the exact continuous engine takes over (default 1000, 0 never switches). The
+     * optional field life_table names a csv file with age-specific rates, see LifeTable.read; a relative path is
+     * resolved against the directory of the input file. The optional field rate_schedule names a csv file with
+     * rates per time step, see RateSchedules.read, which are filled in between its time steps as chosen by the
+     * optional field rate_interpolation (step by default, see Interpolation); a relative path is resolved in the same
+     * way.
+     *
+     * @param inputFile path to input file
+     * @return the parameters of the file
+     * @throws IOException if the file cannot be read
+     */
+    public static SimulationParameters read(String inputFile) throws IOException, NumberFormatException {
+        // create and load default properties
+        Properties properties = new Properties();
+        FileInputStream inputStream = new FileInputStream(inputFile);
+        properties.load(inputStream);
+        inputStream.close();
+
+
+        String fieldName = "time_steps";
+        String propertyValue = properties.getProperty(fieldName);
+        try {
+            // init parameters
+            int duration = Integer.parseInt(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "seed");
+            long seed = (propertyValue == null) ? ThreadLocalRandom.current().nextLong() : Long.parseLong(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "engine", "individual");
+            EngineMode engine = EngineMode.parse(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "birth_scheduling", "lifetime");
+            BirthScheduling births = BirthScheduling.parse(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "sampling", "independent");
+            Sampling sampling = Sampling.parse(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "report_interval", "1");
+            double reportInterval = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "leap_size", "1");
+            double leapSize = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "exact_threshold", "1000");
+            int exactThreshold = Integer.parseInt(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "life_table", "");
+            LifeTable lifeTable = null;
+            if (!propertyValue.trim().isEmpty()) {
+                File table = new File(propertyValue.trim());
+                if (!table.isAbsolute()) {
+                    table = new File(new File(inputFile).getAbsoluteFile().getParentFile(), table.getPath());
+                }
+                lifeTable = LifeTable.read(table.getPath());
+            }
+            propertyValue = properties.getProperty(fieldName = "rate_interpolation", "step");
+            Interpolation interpolation = Interpolation.parse(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "rate_schedule", "");
+            RateSchedules rateSchedules = null;
+            if (!propertyValue.trim().isEmpty()) {
+                File schedule = new File(propertyValue.trim());
+                if (!schedule.isAbsolute()) {
+                    schedule = new File(new File(inputFile).getAbsoluteFile().getParentFile(), schedule.getPath());
+                }
+                rateSchedules = RateSchedules.read(schedule.getPath(), interpolation);
+            }
+
+            // immigration parameters
+            propertyValue = properties.getProperty(fieldName = "lambda_immi");
+            double immigrationRate = Double.parseDouble(propertyValue);
+
+            propertyValue = properties.getProperty(fieldName = "slope_immi_rate");
+            double slopeImmigrationRate = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "imm_prop_female", "0.5");
+            double propF = Double.parseDouble(propertyValue);
+            // propertyValue = properties.getProperty(fieldName = "imm_mean_age");
+            // double meanAge = Double.parseDouble(propertyValue);
+            // propertyValue = properties.getProperty(fieldName = "imm_sd_age");
+            // double sdAge = Double.parseDouble(propertyValue);
+            ImmigrationParameters immigrationParameters = new ImmigrationParameters(immigrationRate,
+                    slopeImmigrationRate, propF, 0, 0);
+
+            // population parameters women
+
+            propertyValue = properties.getProperty(fieldName = "init_f");
+            int initialPopulationSizeWomen = Integer.parseInt(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "mu_death_f");
+            double deathRateWomen = 1 / Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "slope_death_rate_f");
+            double slopeDeathRateWomen = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "mu_emigration");
+            double emigrationRateWomen = 1 / Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "slope_emigration_rate");
+            double slopeEmigrationRateWomen = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "mu_birth");
+            double birthRate = 1 / Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "slope_birth_rate");
+            double slopeBirthRate = Double.parseDouble(propertyValue);
+
+            PopulationParameters womenParams = new PopulationParameters(initialPopulationSizeWomen,
+                    deathRateWomen, slopeDeathRateWomen,
+                    emigrationRateWomen, slopeEmigrationRateWomen,
+                    birthRate, slopeBirthRate);
+
+            // population parameters men
+            propertyValue = properties.getProperty(fieldName = "init_m");
+            int initialPopulationSizeMen = Integer.parseInt(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "mu_death_m");
+            double deathRateMen = 1 / Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "slope_death_rate_m");
+            double slopeDeathRateMen = Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "mu_emigration");
+            double emigrationRateMen = 1 / Double.parseDouble(propertyValue);
+            propertyValue = properties.getProperty(fieldName = "slope_emigration_rate");
+            double slopeEmigrationRateMen = Double.parseDouble(propertyValue);
+
+            PopulationParameters menParams = new PopulationParameters(initialPopulationSizeMen,
+                    deathRateMen, slopeDeathRateMen,
+                    emigrationRateMen, slopeEmigrationRateMen);
+
+            return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                    exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+        } catch (NullPointerException e) {
+            throw new NullPointerException(String.format("Required field <%s> not found in input file. Check spelling.", fieldName));
+        } catch (NumberFormatException e) {
+            if (propertyValue == null) {
+                throw new NullPointerException(String.format("Required field <%s> not found in input file. Check spelling.", fieldName));
+            } else {
+                throw new NumberFormatException(String.format("Cannot parse number <%s> in field <%s>.", propertyValue, fieldName));
+            }
+        }
+    }
+
+    /**
+     * @param in checkpoint, positioned at parameters written by write
+     * @return the parameters
+     * @throws IOException if reading fails
+     */
+    static SimulationParameters read(CheckpointInput in) throws IOException {
+        int duration = in.getInt();
+        long seed = in.getLong();
+        EngineMode engine = EngineMode.values()[in.getInt()];
+        BirthScheduling births = BirthScheduling.values()[in.getInt()];
+        Sampling sampling = Sampling.values()[in.getInt()];
+        double reportInterval = in.getDouble();
+        double leapSize = in.getDouble();
+        int exactThreshold = in.getInt();
+        PopulationParameters women = readPopulation(in);
+        PopulationParameters men = readPopulation(in);
+        ImmigrationParameters immigration = new ImmigrationParameters(in.getDouble(), in.getDouble(),
+                in.getDouble(), in.getDouble(), in.getDouble());
+        LifeTable lifeTable = null;
+        if (in.getBoolean()) {
+            double[][] schedules = new double[LifeTable.COLUMNS.length][];
+            for (int c = 0; c < schedules.length; c++) {
+                if (in.getBoolean()) {
+                    schedules[c] = in.getDoubles(0);
+                }
+            }
+            lifeTable = new LifeTable(schedules);
+        }
+        RateSchedules rateSchedules = null;
+        if (in.getBoolean()) {
+            Interpolation interpolation = Interpolation.values()[in.getInt()];
+            int[] times = in.getInts(0);
+            double[][] rates = new double[RateSchedules.COLUMNS.length][];
+            for (int c = 0; c < rates.length; c++) {
+                if (in.getBoolean()) {
+                    rates[c] = in.getDoubles(0);
+                }
+            }
+            rateSchedules = new RateSchedules(times, rates, interpolation);
+        }
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, women, men, immigration, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param out checkpoint
+     * @throws IOException if writing fails
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(duration);
+        out.putLong(seed);
+        out.putInt(engine.ordinal());
+        out.putInt(births.ordinal());
+        out.putInt(sampling.ordinal());
+        out.putDouble(reportInterval);
+        out.putDouble(leapSize);
+        out.putInt(exactThreshold);
+        writePopulation(out, womenParams);
+        writePopulation(out, menParams);
+        out.putDouble(immigrationParameters.getRate());
+        out.putDouble(immigrationParameters.getSlope());
+        out.putDouble(immigrationParameters.getProportionF());
+        out.putDouble(immigrationParameters.getMeanAge());
+        out.putDouble(immigrationParameters.getSdAge());
+        out.putBoolean(lifeTable != null);
+        if (lifeTable != null) {
+            for (double[] schedule : lifeTable.getSchedules()) {
+                out.putBoolean(schedule != null);
+                if (schedule != null) {
+                    out.putDoubles(schedule, schedule.length);
+                }
+            }
+        }
+        out.putBoolean(rateSchedules != null);
+        if (rateSchedules != null) {
+            out.putInt(rateSchedules.getInterpolation().ordinal());
+            int[] times = rateSchedules.getTimes();
+            out.putInts(times, times.length);
+            for (double[] schedule : rateSchedules.getRates()) {
+                out.putBoolean(schedule != null);
+                if (schedule != null) {
+                    out.putDoubles(schedule, schedule.length);
+                }
+            }
+        }
+    }
+
+    private static PopulationParameters readPopulation(CheckpointInput in) throws IOException {
+        // same order as the constructor's arguments
+        return new PopulationParameters(in.getInt(), in.getDouble(), in.getDouble(), in.getDouble(), in.getDouble(),
+                in.getDouble(), in.getDouble());
+    }
+
+    private static void writePopulation(CheckpointOutput out, PopulationParameters p) throws IOException {
+        out.putInt(p.getInitialPopulationSize());
+        out.putDouble(p.getDeathRate());
+        out.putDouble(p.getSlopeDeathRate());
+        out.putDouble(p.getEmigrationRate());
+        out.putDouble(p.getSlopeEmigrationRate());
+        out.putDouble(p.getBirthRate());
+        out.putDouble(p.getSlopeBirthRate());
+    }
+
+    /**
+     * checks the settings; the rates are checked for every time step of the duration when they are compiled into
+     * RateTables, the rates of a life table when it is created
+     */
+    private void validate() {
+        if (duration < 1) {
+            throw new IllegalArgumentException("Please provide a positive number of time steps.");
+        }
+        if (womenParams.getInitialPopulationSize() < 0 || menParams.getInitialPopulationSize() < 0) {
+            throw new IllegalArgumentException("Please provide non-negative initial population sizes.");
+        }
+        if (!(reportInterval > 0)) {
+            throw new IllegalArgumentException("The report interval must be positive.");
+        }
+        if (!(leapSize > 0 && leapSize <= 1)) {
+            throw new IllegalArgumentException("The leap size must be in (0, 1].");
+        }
+        if (exactThreshold < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative threshold.");
+        }
+        if (lifeTable != null && (engine == EngineMode.CONTINUOUS || engine == EngineMode.TAU_LEAP)) {
+            throw new IllegalArgumentException(String.format(
+                    "Life tables need the individual or counts engine, not %s.", engine.name().toLowerCase()));
+        }
+        double propF = immigrationParameters.getProportionF();
+        if (!(propF >= 0 && propF <= 1)) {
+            throw new IllegalArgumentException(String.format("The proportion of female immigrants %.2f is not in [0, 1].", propF));
+        }
+    }
+
+    // modified copies
+
+    /**
+     * @param seed master seed of all random streams
+     * @return a copy with another seed
+     */
+    public SimulationParameters withSeed(long seed) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param duration number of time steps of every run
+     * @return a copy with another duration
+     */
+    public SimulationParameters withDuration(int duration) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param engine how the population is stored
+     * @return a copy with another engine
+     */
+    public SimulationParameters withEngine(EngineMode engine) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param births how births are scheduled
+     * @return a copy with another birth scheduling
+     */
+    public SimulationParameters withBirthScheduling(BirthScheduling births) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param sampling how the random numbers of the replications depend on each other
+     * @return a copy with another sampling
+     */
+    public SimulationParameters withSampling(Sampling sampling) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param reportInterval time between two reports of the continuous engine
+     * @return a copy with another report interval
+     */
+    public SimulationParameters withReportInterval(double reportInterval) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param leapSize       length of a leap of the tau-leaping engine
+     * @param exactThreshold population size below which the exact continuous engine takes over, 0 never switches
+     * @return a copy with other tau-leaping settings
+     */
+    public SimulationParameters withTauLeap(double leapSize, int exactThreshold) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param lifeTable age-specific rates, which replace the ones of the parameters, or null
+     * @return a copy with another life table
+     */
+    public SimulationParameters withLifeTable(LifeTable lifeTable) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param rateSchedules rates per time step, which replace the linear ones of the parameters, or null
+     * @return a copy with other rate schedules
+     */
+    public SimulationParameters withRateSchedules(RateSchedules rateSchedules) {
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, womenParams, menParams, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @param sizeF number of women at time 0
+     * @param sizeM number of men at time 0
+     * @return a copy with another initial population
+     */
+    public SimulationParameters withInitialPopulation(int sizeF, int sizeM) {
+        PopulationParameters women = new PopulationParameters(womenParams);
+        PopulationParameters men = new PopulationParameters(menParams);
+        women.setInitialPopulationSize(sizeF);
+        men.setInitialPopulationSize(sizeM);
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, women, men, immigrationParameters, lifeTable, rateSchedules);
+    }
+
+    /**
+     * Change the rates using a vector of length 10 in the following order:
+     * <ol>
+     *     <li>muBirth</li>
+     *     <li>slopeBirthRate</li>
+     *     <li>muDeathF</li>
+     *     <li>slopeDeathRateF</li>
+     *     <li>muDeathM</li>
+     *     <li>slopeDeathRateM</li>
+     *     <li>lambdaImmi</li>
+     *     <li>slopeImmiRate</li>
+     *     <li>muEmi</li>
+     *     <li>slopeEmiRate</li>
+     * </ol>
+     * Rates which the rate schedules or the life table replace keep their schedule.
+     *
+     * @param params a vector of length 10
+     * @return a copy with other rates
+     * @throws IllegalArgumentException if a rate is invalid at a time step of the duration
+     */
+    public SimulationParameters withParams(double[] params) {
+        if (params.length != 10) {
+            throw new IllegalArgumentException("Provide an array of exactly 10 parameters");
+        }
+        PopulationParameters women = new PopulationParameters(womenParams);
+        PopulationParameters men = new PopulationParameters(menParams);
+        ImmigrationParameters immigration = new ImmigrationParameters(immigrationParameters);
+
+        women.setBirthRate(1 / params[0]);
+        women.setSlopeBirthRate(params[1]);
+
+        women.setDeathRate(1 / params[2]);
+        women.setSlopeDeathRate(params[3]);
+
+        men.setDeathRate(1 / params[4]);
+        men.setSlopeDeathRate(params[5]);
+
+        immigration.setRate(params[6]);
+        immigration.setSlope(params[7]);
+
+        double emigrationRate = 1 / params[8];
+        double emigrationSlope = params[9];
+        women.setEmigrationRate(emigrationRate);
+        men.setEmigrationRate(emigrationRate);
+        women.setSlopeEmigrationRate(emigrationSlope);
+        men.setSlopeEmigrationRate(emigrationSlope);
+
+        return new SimulationParameters(duration, seed, engine, births, sampling, reportInterval, leapSize,
+                exactThreshold, women, men, immigration, lifeTable, rateSchedules);
+    }
+
+    /**
+     * @return the rates as a vector of length 10, in the order of withParams
+     */
+    public double[] getParams() {
+        double[] params = new double[10];
+
+        params[0] = 1 / womenParams.getBirthRate();
+        params[1] = womenParams.getSlopeBirthRate();
+
+        params[2] = 1 / womenParams.getDeathRate();
+        params[3] = womenParams.getSlopeDeathRate();
+
+        params[4] = 1 / menParams.getDeathRate();
+        params[5] = menParams.getSlopeDeathRate();
+
+        params[6] = immigrationParameters.getRate();
+        params[7] = immigrationParameters.getSlope();
+
+        params[8] = 1 / womenParams.getEmigrationRate();
+        params[9] = womenParams.getSlopeEmigrationRate();
+
+        return params;
+    }
+
+    // getters
+
+    public int getDuration() {
+        return duration;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public EngineMode getEngine() {
+        return engine;
+    }
+
+    public BirthScheduling getBirthScheduling() {
+        return births;
+    }
+
+    public Sampling getSampling() {
+        return sampling;
+    }
+
+    public double getReportInterval() {
+        return reportInterval;
+    }
+
+    public double getLeapSize() {
+        return leapSize;
+    }
+
+    public int getExactThreshold() {
+        return exactThreshold;
+    }
+
+    /**
+     * @return a copy of the parameters for women
+     */
+    public PopulationParameters getWomenParams() {
+        return new PopulationParameters(womenParams);
+    }
+
+    /**
+     * @return a copy of the parameters for men
+     */
+    public PopulationParameters getMenParams() {
+        return new PopulationParameters(menParams);
+    }
+
+    /**
+     * @return a copy of the parameters for immigration
+     */
+    public ImmigrationParameters getImmigrationParameters() {
+        return new ImmigrationParameters(immigrationParameters);
+    }
+
+    /**
+     * @return age-specific rates, or null if all rates are the ones of the birth cohort
+     */
+    public LifeTable getLifeTable() {
+        return lifeTable;
+    }
+
+    /**
+     * @return rates per time step, or null if all rates are linear in time
+     */
+    public RateSchedules getRateSchedules() {
+        return rateSchedules;
+    }
+
+    /**
+     * @return the rates of every time step of the duration, shared by all simulations of these parameters
+     */
+    public RateTables getRates() {
+        return rates;
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationParameters{" +
+                "duration=" + duration +
+                ", seed=" + seed +
+                ", engine=" + engine.name().toLowerCase() +
+                ", births=" + births.name().toLowerCase() +
+                ", sampling=" + sampling.name().toLowerCase() +
+                ", reportInterval=" + reportInterval +
+                ", leapSize=" + leapSize +
+                ", exactThreshold=" + exactThreshold +
+                ", womenParams=" + womenParams +
+                ", menParams=" + menParams +
+                ", immigrationParameters=" + immigrationParameters +
+                ((lifeTable != null) ? ", lifeTable=" + lifeTable : "") +
+                ((rateSchedules != null) ? ", rateSchedules=" + rateSchedules : "") +
+                '}';
+    }
+}
@@ -0,0 +1,96 @@
+package populationModel;
+
+import java.io.IOException;
+
+/**
+ * Frozen state of a simulation run at some time step: the populations, the pending events of the engine, the next
+ * immigration and the positions of the random streams. The shared history of several scenarios is then computed
+ * only once, every scenario forks its own simulation from the snapshot. A snapshot is never changed, so forks can be
+ * created concurrently from several threads.
+ */
+public final class SimulationSnapshot {
+    private final Simulation state;
+
+    /**
+     * @param state copy of a simulation, which must not be used elsewhere
+     */
+    SimulationSnapshot(Simulation state) {
+        this.state = state;
+    }
+
+    /**
+     * @param in checkpoint, positioned at a snapshot written by write
+     * @return the snapshot
+     * @throws IOException if reading fails
+     */
+    static SimulationSnapshot read(CheckpointInput in) throws IOException {
+        return new SimulationSnapshot(new Simulation(in));
+    }
+
+    /**
+     * @param out checkpoint
+     * @throws IOException if writing fails
+     */
+    void write(CheckpointOutput out) throws IOException {
+        state.write(out);
+    }
+
+    /**
+     * @return time step at which the forks continue
+     */
+    public int getTime() {
+        return state.getTime();
+    }
+
+    /**
+     * @return settings of the run at the time of the snapshot
+     */
+    public SimulationParameters getParameters() {
+        return state.getParameters();
+    }
+
+    /**
+     * continue the run exactly as the original simulation would
+     *
+     * @return an independent simulation
+     */
+    public Simulation fork() {
+        return state.copy(state.getParameters(), -1);
+    }
+
+    /**
+     * continue the run with other rates or another duration. All forks draw the same random numbers (common random
+     * numbers), so the differences between them are due to the parameters. Events which were already scheduled
+     * before the snapshot keep their times, only later draws use the new rates.
+     *
+     * @param parameters settings from now on; engine, birth scheduling, sampling, report interval and leap size must
+     *                   not change
+     * @return an independent simulation
+     */
+    public Simulation fork(SimulationParameters parameters) {
+        return state.copy(parameters, -1);
+    }
+
+    /**
+     * like fork(parameters), but the fork draws its own random numbers, e.g. for repetitions of a scenario
+     *
+     * @param parameters settings from now on; engine, birth scheduling, sampling, report interval and leap size must
+     *                   not change
+     * @param branch     non-negative index of the branch, equal indices give equal random numbers
+     * @return an independent simulation
+     */
+    public Simulation fork(SimulationParameters parameters, long branch) {
+        if (branch < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative branch index.");
+        }
+        return state.copy(parameters, branch);
+    }
+
+    @Override
+    public String toString() {
+        return "SimulationSnapshot{" +
+                "time=" + getTime() +
+                ", state=" + state +
+                '}';
+    }
+}
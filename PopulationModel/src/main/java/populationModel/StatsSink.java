@@ -0,0 +1,12 @@
+package populationModel;
+
+/**
+ * receives the statistics of time steps without copying them, see Simulation.runRemaining
+ */
+public interface StatsSink {
+    /**
+     * @param stats statistics of one time step, as returned by Simulation.next(); the array is reused for the next
+     *              time step, so copy what has to be kept
+     */
+    void accept(int[] stats);
+}
@@ -0,0 +1,260 @@
+package populationModel;
+
+import populationModel.util.ImmigrationParameters;
+import populationModel.util.RandomStream;
+import populationModel.util.RandomStreams;
+import populationModel.util.RateTable;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Approximate engine for large populations. Instead of single people it keeps one compartment per sex and birth
+ * cohort (people born in the same time step share their rates) and advances all of them by leaps of a fixed
+ * length, drawing binomial numbers of exits and Poisson numbers of births and immigrations. The cost of a time step
+ * depends on the number of cohorts, not on the population size.
+ * <p>
+ * Time step k covers the interval (k-1, k], like the continuous engine, which takes over once the population gets
+ * small.
+ */
+class TauLeapEngine {
+    private final ImmigrationParameters immigrationParameters;
+    // compiled rates, see RateTables
+    private final RateTable deathF;
+    private final RateTable deathM;
+    private final RateTable emigrationF;
+    private final RateTable emigrationM;
+    private final RateTable birth;
+    private final RateTable immigration;
+    private final RandomStreams random;
+    private final CountedPopulation populationF;
+    private final CountedPopulation populationM;
+
+    /**
+     * number of leaps per time step
+     */
+    private final int leaps;
+
+    // one entry per birth cohort, the index is the time step of the birth
+    private int[] women = new int[16];
+    private int[] men = new int[16];
+    private int cohorts = 0;
+
+    /**
+     * deaths among the exits drawn last
+     */
+    private int deaths;
+
+    /**
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the run
+     * @param populationF           number of women
+     * @param populationM           number of men
+     * @param leapSize              length of a leap, at most 1 time step
+     * @param previous              engine of a finished run whose cohort arrays are reused, or null
+     */
+    TauLeapEngine(ImmigrationParameters immigrationParameters, RateTables rates, RandomStreams random,
+                  CountedPopulation populationF, CountedPopulation populationM, double leapSize,
+                  TauLeapEngine previous) {
+        if (!(leapSize > 0 && leapSize <= 1)) {
+            throw new IllegalArgumentException("The leap size must be in (0, 1].");
+        }
+        this.immigrationParameters = immigrationParameters;
+        deathF = rates.getDeath(true);
+        deathM = rates.getDeath(false);
+        emigrationF = rates.getEmigration(true);
+        emigrationM = rates.getEmigration(false);
+        birth = rates.getBirth();
+        immigration = rates.getImmigration();
+        this.random = random;
+        this.populationF = populationF;
+        this.populationM = populationM;
+        leaps = (int) Math.ceil(1 / leapSize - 1e-9);
+        if (previous != null) {
+            women = previous.women;
+            men = previous.men;
+            Arrays.fill(women, 0);
+            Arrays.fill(men, 0);
+        }
+    }
+
+    /**
+     * copy the cohorts of another engine, e.g. to continue a run in several ways
+     *
+     * @param other                 engine whose state is copied
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the copy
+     * @param populationF           number of women, a copy of the other engine's
+     * @param populationM           number of men, a copy of the other engine's
+     */
+    TauLeapEngine(TauLeapEngine other, ImmigrationParameters immigrationParameters, RateTables rates,
+                  RandomStreams random, CountedPopulation populationF, CountedPopulation populationM) {
+        this.immigrationParameters = immigrationParameters;
+        deathF = rates.getDeath(true);
+        deathM = rates.getDeath(false);
+        emigrationF = rates.getEmigration(true);
+        emigrationM = rates.getEmigration(false);
+        birth = rates.getBirth();
+        immigration = rates.getImmigration();
+        this.random = random;
+        this.populationF = populationF;
+        this.populationM = populationM;
+        leaps = other.leaps;
+        int capacity = Math.max(other.cohorts, 16);
+        women = Arrays.copyOf(other.women, capacity);
+        men = Arrays.copyOf(other.men, capacity);
+        cohorts = other.cohorts;
+    }
+
+    /**
+     * continue an engine from a checkpoint
+     *
+     * @param in                    checkpoint, positioned at an engine written by write
+     * @param immigrationParameters parameters for immigration
+     * @param rates                 rates of the parameters per time step
+     * @param random                random streams of the run
+     * @param populationF           number of women, as written in the checkpoint
+     * @param populationM           number of men, as written in the checkpoint
+     */
+    TauLeapEngine(CheckpointInput in, ImmigrationParameters immigrationParameters, RateTables rates,
+                  RandomStreams random, CountedPopulation populationF, CountedPopulation populationM)
+            throws IOException {
+        this.immigrationParameters = immigrationParameters;
+        deathF = rates.getDeath(true);
+        deathM = rates.getDeath(false);
+        emigrationF = rates.getEmigration(true);
+        emigrationM = rates.getEmigration(false);
+        birth = rates.getBirth();
+        immigration = rates.getImmigration();
+        this.random = random;
+        this.populationF = populationF;
+        this.populationM = populationM;
+        leaps = in.getInt();
+        cohorts = in.getLength();
+        women = in.getInts(16);
+        men = in.getInts(16);
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(leaps);
+        out.putInt(cohorts);
+        out.putInts(women, cohorts);
+        out.putInts(men, cohorts);
+    }
+
+    /**
+     * the initial population is born at time 0
+     *
+     * @param sizeF number of women
+     * @param sizeM number of men
+     */
+    void initPopulation(int sizeF, int sizeM) {
+        addToCohort(0, sizeF, sizeM);
+    }
+
+    /**
+     * advance from time step-1 to step
+     *
+     * @param step number of the time step
+     * @param stats receives population size and birth/death/migration statistics of the time step
+     */
+    void next(int step, int[] stats) {
+        Arrays.fill(stats, 0, TimeUnit.STATCOUNT + 3, 0);
+        double tau = 1.0 / leaps;
+        int year = step - 1;
+        for (int l = 0; l < leaps; l++) {
+            long births = 0;
+            for (int c = 0; c < cohorts; c++) {
+                int w = women[c];
+                if (w > 0) {
+                    births += random.birth().randomPoisson(birth.at(c) * w * tau);
+                    int leaving = exits(w, deathF.at(c), emigrationF.at(c), tau);
+                    women[c] -= leaving;
+                    populationF.release(null, leaving);
+                    stats[5] += deaths;
+                    stats[8] += leaving - deaths;
+                }
+                int m = men[c];
+                if (m > 0) {
+                    int leaving = exits(m, deathM.at(c), emigrationM.at(c), tau);
+                    men[c] -= leaving;
+                    populationM.release(null, leaving);
+                    stats[6] += deaths;
+                    stats[8] += leaving - deaths;
+                }
+            }
+            int girls = (int) random.sex().randomBinomial(births, 0.5);
+            int boys = (int) births - girls;
+            stats[3] += girls;
+            stats[4] += boys;
+
+            // immigrants are treated as newborns, their age is obsolete
+            double lambda = immigration.at(year);
+            RandomStream stream = random.immigration();
+            int immigrants = (int) stream.randomPoisson(Math.max(lambda, 0) * tau);
+            int immigrantsF = (int) stream.randomBinomial(immigrants, immigrationParameters.getProportionF());
+            stats[7] += immigrants;
+
+            addToCohort(year, girls + immigrantsF, boys + immigrants - immigrantsF);
+        }
+        stats[0] = step;
+        stats[1] = populationF.size();
+        stats[2] = populationM.size();
+    }
+
+    /**
+     * hand all people over to the continuous engine, which continues with the exact process
+     *
+     * @param engine continuous engine sharing this engine's populations
+     * @param now    current time
+     */
+    void transferTo(ContinuousEngine engine, double now) {
+        for (int c = 0; c < cohorts; c++) {
+            engine.addSurvivors(c, now, women[c], true);
+            engine.addSurvivors(c, now, men[c], false);
+        }
+        engine.startImmigration(now);
+    }
+
+    /**
+     * @return number of birth cohorts
+     */
+    int getCohorts() {
+        return cohorts;
+    }
+
+    /**
+     * draw the number of people of a cohort who die or emigrate during a leap, the number of deaths among them is
+     * stored in the attribute deaths
+     *
+     * @param n              number of people
+     * @param deathRate      death rate of the cohort
+     * @param emigrationRate emigration rate of the cohort
+     * @param tau            length of the leap
+     * @return number of deaths and emigrations
+     */
+    private int exits(int n, double deathRate, double emigrationRate, double tau) {
+        double rate = deathRate + emigrationRate;
+        int leaving = (int) random.death().randomBinomial(n, -Math.expm1(-rate * tau));
+        deaths = (int) random.emigration().randomBinomial(leaving, deathRate / rate);
+        return leaving;
+    }
+
+    private void addToCohort(int year, int f, int m) {
+        if (year >= women.length) {
+            int capacity = Math.max(2 * women.length, year + 1);
+            women = Arrays.copyOf(women, capacity);
+            men = Arrays.copyOf(men, capacity);
+        }
+        cohorts = Math.max(cohorts, year + 1);
+        women[year] += f;
+        men[year] += m;
+        populationF.admit(f);
+        populationM.admit(m);
+    }
+}
@@ -1,10 +1,8 @@
 package populationModel;
 
-import populationModel.person.Man;
-import populationModel.person.Woman;
+import populationModel.util.IntList;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.io.IOException;
 
 /**
  * Holds information about events, which are scheduled to happen within a specific time step
@@ -17,16 +15,131 @@ public class TimeUnit {
     private int immigrationsFemale = 0;
     private int immigrationsMale = 0;
 
-    private final List<Integer> deathsFemale;
-    private final List<Integer> deathsMale;
-    private final List<Integer> emigrationsFemale;
-    private final List<Integer> emigrationsMale;
+    private int deathCountFemale = 0;
+    private int deathCountMale = 0;
+    private int emigrationCountFemale = 0;
+    private int emigrationCountMale = 0;
 
+    // IDs of the people leaving, null if people are only counted
+    private final IntList deathsFemale;
+    private final IntList deathsMale;
+    private final IntList emigrationsFemale;
+    private final IntList emigrationsMale;
+
+    // next births of women, only used with BirthScheduling.NEXT
+    private PendingBirths pendingBirths;
+
+    /**
+     * create a time unit which stores the IDs of leaving people
+     */
     public TimeUnit() {
-        emigrationsMale = new ArrayList<>();
-        deathsFemale = new ArrayList<>();
-        deathsMale = new ArrayList<>();
-        emigrationsFemale = new ArrayList<>();
+        this(true);
+    }
+
+    /**
+     * @param trackIDs if false, only the number of deaths and emigrations is stored
+     */
+    public TimeUnit(boolean trackIDs) {
+        if (trackIDs) {
+            emigrationsMale = new IntList();
+            deathsFemale = new IntList();
+            deathsMale = new IntList();
+            emigrationsFemale = new IntList();
+        } else {
+            emigrationsMale = null;
+            deathsFemale = null;
+            deathsMale = null;
+            emigrationsFemale = null;
+        }
+    }
+
+    /**
+     * @param other time unit whose events are copied
+     */
+    public TimeUnit(TimeUnit other) {
+        birthsFemale = other.birthsFemale;
+        birthsMale = other.birthsMale;
+        immigrationsFemale = other.immigrationsFemale;
+        immigrationsMale = other.immigrationsMale;
+        deathCountFemale = other.deathCountFemale;
+        deathCountMale = other.deathCountMale;
+        emigrationCountFemale = other.emigrationCountFemale;
+        emigrationCountMale = other.emigrationCountMale;
+        if (other.deathsFemale != null) {
+            deathsFemale = new IntList(other.deathsFemale);
+            deathsMale = new IntList(other.deathsMale);
+            emigrationsFemale = new IntList(other.emigrationsFemale);
+            emigrationsMale = new IntList(other.emigrationsMale);
+        } else {
+            deathsFemale = null;
+            deathsMale = null;
+            emigrationsFemale = null;
+            emigrationsMale = null;
+        }
+        if (other.pendingBirths != null && other.pendingBirths.size() > 0) {
+            pendingBirths = new PendingBirths(other.pendingBirths);
+        }
+    }
+
+    /**
+     * @param in checkpoint, positioned at a time unit written by write
+     */
+    TimeUnit(CheckpointInput in) throws IOException {
+        birthsFemale = in.getInt();
+        birthsMale = in.getInt();
+        immigrationsFemale = in.getInt();
+        immigrationsMale = in.getInt();
+        deathCountFemale = in.getInt();
+        deathCountMale = in.getInt();
+        emigrationCountFemale = in.getInt();
+        emigrationCountMale = in.getInt();
+        if (in.getBoolean()) {
+            deathsFemale = readList(in);
+            deathsMale = readList(in);
+            emigrationsFemale = readList(in);
+            emigrationsMale = readList(in);
+        } else {
+            deathsFemale = null;
+            deathsMale = null;
+            emigrationsFemale = null;
+            emigrationsMale = null;
+        }
+        if (in.getBoolean()) {
+            pendingBirths = new PendingBirths(in);
+        }
+    }
+
+    /**
+     * @param out checkpoint
+     */
+    void write(CheckpointOutput out) throws IOException {
+        out.putInt(birthsFemale);
+        out.putInt(birthsMale);
+        out.putInt(immigrationsFemale);
+        out.putInt(immigrationsMale);
+        out.putInt(deathCountFemale);
+        out.putInt(deathCountMale);
+        out.putInt(emigrationCountFemale);
+        out.putInt(emigrationCountMale);
+        out.putBoolean(deathsFemale != null);
+        if (deathsFemale != null) {
+            out.putInts(deathsFemale.elements(), deathsFemale.size());
+            out.putInts(deathsMale.elements(), deathsMale.size());
+            out.putInts(emigrationsFemale.elements(), emigrationsFemale.size());
+            out.putInts(emigrationsMale.elements(), emigrationsMale.size());
+        }
+        boolean pending = pendingBirths != null && pendingBirths.size() > 0;
+        out.putBoolean(pending);
+        if (pending) {
+            pendingBirths.write(out);
+        }
+    }
+
+    private static IntList readList(CheckpointInput in) throws IOException {
+        int[] ids = in.getInts(0);
+        IntList list = new IntList(ids.length);
+        list.addAll(ids, 0, ids.length);
+        return list;
     }
 
     /**
@@ -41,29 +154,66 @@ public class TimeUnit {
     }
 
     /**
-     * add scheduled death of person
+     * add scheduled death of a person, who is only known by the ID
      *
-     * @param w populationModel.person.Person
+     * @param female true for a woman
+     * @param id     ID of the person, ignored if people are only counted
      */
-    public void scheduleOneDeath(Woman w) {
-        deathsFemale.add(w.getID());
+    public void scheduleDeath(boolean female, int id) {
+        if (female) {
+            deathCountFemale++;
+            if (deathsFemale != null) {
+                deathsFemale.add(id);
+            }
+        } else {
+            deathCountMale++;
+            if (deathsMale != null) {
+                deathsMale.add(id);
+            }
+        }
     }
 
-    public void scheduleOneDeath(Man p) {
-        deathsMale.add(p.getID());
+    /**
+     * add scheduled emigration of a person, who is only known by the ID
+     *
+     * @param female true for a woman
+     * @param id     ID of the person, ignored if people are only counted
+     */
+    public void scheduleEmigration(boolean female, int id) {
+        if (female) {
+            emigrationCountFemale++;
+            if (emigrationsFemale != null) {
+                emigrationsFemale.add(id);
+            }
+        } else {
+            emigrationCountMale++;
+            if (emigrationsMale != null) {
+                emigrationsMale.add(id);
+            }
+        }
     }
 
     /**
-     * add scheduled emigration of person
+     * add the next birth of a woman, whose sex is not yet known
      *
-     * @param p populationModel.person.Person
+     * @param mother      ID of the mother, or Person.NO_ID if people are only counted
+     * @param motherBirth birth time of the mother
+     * @param motherExit  time the mother leaves the population
+     * @param rate        birth rate of the mother
+     * @param offset      exact time of the birth, relative to the mother's birth time
      */
-    public void scheduleOneEmigration(Man p) {
-        emigrationsMale.add(p.getID());
+    public void schedulePendingBirth(int mother, int motherBirth, int motherExit, double rate, double offset) {
+        if (pendingBirths == null) {
+            pendingBirths = new PendingBirths();
+        }
+        pendingBirths.add(mother, motherBirth, motherExit, rate, offset);
     }
 
-    public void scheduleOneEmigration(Woman p) {
-        emigrationsFemale.add(p.getID());
+    /**
+     * @return true, if there are births whose sex has not been decided yet
+     */
+    public boolean hasUnresolvedBirths() {
+        return pendingBirths != null && pendingBirths.hasUnresolved();
     }
 
     /**
@@ -96,30 +246,94 @@ public class TimeUnit {
         return immigrationsMale;
     }
 
-    public List<Integer> getDeathsFemale() {
+    PendingBirths getPendingBirths() {
+        return pendingBirths;
+    }
+
+    public int getDeathCountFemale() {
+        return deathCountFemale;
+    }
+
+    public int getDeathCountMale() {
+        return deathCountMale;
+    }
+
+    public int getEmigrationCountFemale() {
+        return emigrationCountFemale;
+    }
+
+    public int getEmigrationCountMale() {
+        return emigrationCountMale;
+    }
+
+    /**
+     * @return IDs of women dying, null if IDs are not tracked
+     */
+    public IntList getDeathsFemale() {
         return deathsFemale;
     }
 
-    public List<Integer> getDeathsMale() {
+    public IntList getDeathsMale() {
         return deathsMale;
     }
 
-    public List<Integer> getEmigrationsFemale() {
+    public IntList getEmigrationsFemale() {
         return emigrationsFemale;
     }
 
-    public List<Integer> getEmigrationsMale() {
+    public IntList getEmigrationsMale() {
         return emigrationsMale;
     }
 
+    /**
+     * @return true, if no event is scheduled at this time unit
+     */
+    public boolean isEmpty() {
+        return birthsFemale == 0 && birthsMale == 0 && immigrationsFemale == 0 && immigrationsMale == 0
+                && deathCountFemale == 0 && deathCountMale == 0 && emigrationCountFemale == 0
+                && emigrationCountMale == 0 && (pendingBirths == null || pendingBirths.size() == 0);
+    }
+
+    /**
+     * @return true, if an event besides immigrations is scheduled, i.e. one which EventHistory added
+     */
+    boolean hasScheduledEvents() {
+        return birthsFemale != 0 || birthsMale != 0 || deathCountFemale != 0 || deathCountMale != 0
+                || emigrationCountFemale != 0 || emigrationCountMale != 0
+                || (pendingBirths != null && pendingBirths.size() != 0);
+    }
+
+    /**
+     * remove all events, so that the time unit can be reused for another time step
+     */
+    public void clear() {
+        birthsFemale = 0;
+        birthsMale = 0;
+        immigrationsFemale = 0;
+        immigrationsMale = 0;
+        deathCountFemale = 0;
+        deathCountMale = 0;
+        emigrationCountFemale = 0;
+        emigrationCountMale = 0;
+        if (deathsFemale != null) {
+            deathsFemale.clear();
+            deathsMale.clear();
+            emigrationsFemale.clear();
+            emigrationsMale.clear();
+        }
+        if (pendingBirths != null) {
+            pendingBirths.clear();
+        }
+    }
+
     @Override
     public String toString() {
         return birthsFemale +
                 ", " + birthsMale +
-                ", " + deathsFemale.size() +
-                ", " + deathsMale.size() +
+                ", " + deathCountFemale +
+                ", " + deathCountMale +
                 ", " + (immigrationsFemale + immigrationsMale) +
-                ", " + (emigrationsFemale.size() + emigrationsMale.size())
+                ", " + (emigrationCountFemale + emigrationCountMale)
                 ;
     }
 }
@@ -0,0 +1,101 @@
+package populationModel;
+
+import populationModel.output.Aggregate;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.Socket;
+
+/**
+ * Worker process of a Coordinator: connects to it, receives the parameters and runs the repetitions it claims one
+ * after the other. Started by the coordinator, not by hand.
+ */
+public final class Worker {
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    private Worker(DataInputStream in, DataOutputStream out) {
+        this.in = in;
+        this.out = out;
+    }
+
+    /**
+     * @param args host and port of the coordinator, slot, number of the worker in the slot, token
+     */
+    public static void main(String[] args) {
+        if (args.length != 5) {
+            System.err.println("Worker \"Host\" \"Port\" \"Slot\" \"Worker\" \"Token\"");
+            System.exit(1);
+        }
+        // anything printed by the simulation must not mix with the output of the coordinator
+        System.setOut(System.err);
+        try (Socket socket = new Socket(args[0], Integer.parseInt(args[1]))) {
+            socket.setTcpNoDelay(true);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeLong(Long.parseLong(args[4]));
+            out.writeInt(Integer.parseInt(args[2]));
+            out.writeInt(Integer.parseInt(args[3]));
+            out.flush();
+            new Worker(in, out).run();
+        } catch (IOException e) {
+            System.err.println("Worker " + args[2] + " lost the coordinator: " + e.getMessage());
+            System.exit(1);
+        }
+    }
+
+    private void run() throws IOException {
+        boolean aggregate = in.readBoolean();
+        Simulation sim = new Simulation(Coordinator.readParameters(in));
+        Aggregate partial = aggregate ? new Aggregate(Simulation.COLUMNS) : null;
+        int[] stats = new int[Simulation.COLUMNS];
+        int repetition;
+        while ((repetition = claim()) != Coordinator.NONE) {
+            try {
+                if (aggregate) {
+                    sim.reset(repetition);
+                    for (int t = 0; sim.hasNext(); t++) {
+                        sim.next(stats);
+                        partial.add(t, stats);
+                    }
+                    out.writeByte(Coordinator.DONE);
+                    out.writeInt(repetition);
+                } else {
+                    int[][] trajectory = ReplicationRunner.runOnce(sim, repetition);
+                    out.writeByte(Coordinator.RESULT);
+                    out.writeInt(repetition);
+                    out.writeInt(trajectory.length);
+                    for (int[] row : trajectory) {
+                        for (int value : row) {
+                            out.writeInt(value);
+                        }
+                    }
+                }
+            } catch (RuntimeException e) {
+                // the same repetition would fail in every worker, so the coordinator stops the run
+                out.writeByte(Coordinator.ERROR);
+                out.writeInt(repetition);
+                out.writeUTF(String.valueOf(e.getMessage()));
+                out.flush();
+                return;
+            }
+        }
+        if (aggregate) {
+            out.writeByte(Coordinator.PARTIAL);
+            partial.write(out);
+        }
+        out.flush();
+    }
+
+    /**
+     * @return the next repetition, or Coordinator.NONE if all are done
+     */
+    private int claim() throws IOException {
+        out.writeByte(Coordinator.CLAIM);
+        out.flush();
+        return in.readInt();
+    }
+}
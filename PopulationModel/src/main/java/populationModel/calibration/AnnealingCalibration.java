@@ -0,0 +1,303 @@
+package populationModel.calibration;
+
+import populationModel.EngineMode;
+import populationModel.Simulation;
+import populationModel.SimulationParameters;
+import populationModel.util.RandomStream;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.ThreadLocalRandom;
+
+/**
+ * Simulated annealing over the 10 rates of SimulationParameters.withParams, a port of Calibration/CalAlgMulti.m.
+ * Every iteration draws several candidates from a normal distribution around the accepted parameters and scores them
+ * concurrently, each by the mean of several repetitions. The best candidate is then accepted or rejected like the
+ * single candidate of the MATLAB loop, so with one candidate per iteration the algorithm is the same. All candidates
+ * run the same replications (common random numbers), so differences in their errors are due to the parameters.
+ */
+public class AnnealingCalibration {
+
+    /**
+     * is informed after every iteration, e.g. to print the progress
+     */
+    public interface ProgressListener {
+        /**
+         * @param iteration number of the iteration, starting at 1
+         * @param errorF    error of the women of the best candidate, infinite if no candidate had valid rates
+         * @param errorM    error of the men of the best candidate
+         * @param accepted  true, if the candidate was accepted
+         * @param current   accepted state after the iteration
+         */
+        void iteration(int iteration, double errorF, double errorM, boolean accepted, CalibrationResult current);
+    }
+
+    /**
+     * variances of the proposal distribution at the start, as in CalAlgMulti.m
+     */
+    public static final double[] DEFAULT_VARIANCES = {10, 0.01, 10, 0.02, 1, 0.02, 100, 1, 10, 0.001};
+
+    private final SimulationParameters parameters;
+    private final TargetData target;
+    private final ErrorFunction errorFunction;
+    private final int reps;
+    private final int threads;
+
+    // settings, by default the ones of CalAlgMulti.m and CalibrationScript.m
+    private double temperature = 100;
+    private double decline = 0.8;
+    private int iterations = 100;
+    private int candidates;
+    private double toleranceF = 10;
+    private double toleranceM = 10;
+    private double[] variances = DEFAULT_VARIANCES.clone();
+    private long seed = ThreadLocalRandom.current().nextLong();
+
+    /**
+     * @param parameters    starting point of the calibration, its duration is replaced by the target's
+     * @param target        observed population sizes
+     * @param errorFunction e.g. ErrorMethod.LAST_VALUE_ERROR
+     * @param reps          number of repetitions per candidate
+     * @param threads       number of worker threads, also the default number of candidates per iteration
+     */
+    public AnnealingCalibration(SimulationParameters parameters, TargetData target, ErrorFunction errorFunction,
+                                int reps, int threads) {
+        if (reps < 1 || threads < 1) {
+            throw new IllegalArgumentException("Please provide positive repetition and thread counts.");
+        }
+        if (parameters.getEngine() == EngineMode.CONTINUOUS && parameters.getReportInterval() != 1) {
+            throw new IllegalArgumentException("The calibration needs one report per time step.");
+        }
+        this.parameters = parameters.withDuration(target.getSteps());
+        this.target = target;
+        this.errorFunction = errorFunction;
+        this.reps = reps;
+        this.threads = threads;
+        candidates = threads;
+    }
+
+    /**
+     * run the annealing loop until both errors are below their tolerances or the iterations are used up
+     *
+     * @param listener informed after every iteration, may be null
+     * @return the accepted parameters at the end
+     * @throws InterruptedException if the current thread is interrupted while waiting for the candidates
+     */
+    public CalibrationResult run(ProgressListener listener) throws InterruptedException {
+        BlockingQueue<Simulation> simulations = new ArrayBlockingQueue<>(threads);
+        for (int i = 0; i < threads; i++) {
+            simulations.add(new Simulation(parameters));
+        }
+        RandomStream random = new RandomStream(seed);
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            double[] params = parameters.getParams();
+            double[][] means = evaluate(pool, simulations, new double[][]{params})[0];
+            if (means == null) {
+                throw new IllegalArgumentException("The rates of the starting point are not valid.");
+            }
+            CalibrationResult current = score(params, means, 0);
+            double temp = temperature;
+            double[] var = variances.clone();
+            for (int iteration = 1; iteration <= iterations && !fits(current); iteration++) {
+                double[][] proposals = new double[candidates][];
+                for (int c = 0; c < candidates; c++) {
+                    proposals[c] = propose(current.getParams(), var, random);
+                }
+                double[][][] results = evaluate(pool, simulations, proposals);
+
+                // the best candidate of the iteration, by the sum of both errors
+                CalibrationResult best = null;
+                for (int c = 0; c < candidates; c++) {
+                    if (results[c] != null) {
+                        CalibrationResult candidate = score(proposals[c], results[c], iteration);
+                        if (best == null
+                                || candidate.getErrorF() + candidate.getErrorM() < best.getErrorF() + best.getErrorM()) {
+                            best = candidate;
+                        }
+                    }
+                }
+                boolean accepted = best != null && ((best.getErrorF() < current.getErrorF()
+                        && best.getErrorM() < current.getErrorM())
+                        || random.randomUnif() < Math.exp(-(best.getErrorF() - current.getErrorF()) / temp)
+                        || random.randomUnif() < Math.exp(-(best.getErrorM() - current.getErrorM()) / temp));
+                current = accepted ? best : score(current.getParams(), current, iteration);
+                if (listener != null) {
+                    listener.iteration(iteration, (best == null) ? Double.POSITIVE_INFINITY : best.getErrorF(),
+                            (best == null) ? Double.POSITIVE_INFINITY : best.getErrorM(), accepted, current);
+                }
+                for (int k = 0; k < var.length; k++) {
+                    var[k] *= temp / 100;
+                }
+                temp *= decline;
+            }
+            return current;
+        } finally {
+            pool.shutdownNow();
+        }
+    }
+
+    private boolean fits(CalibrationResult result) {
+        return result.getErrorF() < toleranceF && result.getErrorM() < toleranceM;
+    }
+
+    /**
+     * draw a candidate around the accepted parameters, keeping the slopes of birth, death and emigration rates
+     * positive as in CalAlgMulti.m
+     */
+    private static double[] propose(double[] mu, double[] var, RandomStream random) {
+        double[] p = new double[mu.length];
+        for (int k = 0; k < p.length; k++) {
+            p[k] = random.randomNorm(mu[k], Math.sqrt(var[k]));
+        }
+        p[1] = Math.abs(p[1]);
+        p[3] = Math.abs(p[3]);
+        p[5] = Math.abs(p[5]);
+        p[9] = Math.abs(p[9]);
+        // fixed problem with too rapid birth rate
+        if (p[1] > 0.03) {
+            p[1] *= 0.01;
+        }
+        return p;
+    }
+
+    private CalibrationResult score(double[] params, double[][] means, int iteration) {
+        double errorF = errorFunction.error(target.atTimes(means[0]), target.getFemale());
+        double errorM = errorFunction.error(target.atTimes(means[1]), target.getMale());
+        return new CalibrationResult(params, means[0], means[1], errorF, errorM, iteration);
+    }
+
+    private static CalibrationResult score(double[] params, CalibrationResult result, int iteration) {
+        return new CalibrationResult(params, result.getMeanFemale(), result.getMeanMale(), result.getErrorF(),
+                result.getErrorM(), iteration);
+    }
+
+    /**
+     * run all candidates on the pool, one task per candidate
+     *
+     * @return mean numbers of women and men per candidate and time step, null for candidates with invalid rates
+     */
+    private double[][][] evaluate(ExecutorService pool, BlockingQueue<Simulation> simulations, double[][] proposals)
+            throws InterruptedException {
+        List<Future<double[][]>> tasks = new ArrayList<>(proposals.length);
+        for (double[] params : proposals) {
+            tasks.add(pool.submit(() -> simulate(simulations, params)));
+        }
+        double[][][] results = new double[proposals.length][][];
+        try {
+            for (int c = 0; c < results.length; c++) {
+                results[c] = tasks.get(c).get();
+            }
+        } catch (ExecutionException e) {
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new IllegalStateException(cause);
+        }
+        return results;
+    }
+
+    /**
+     * @return mean numbers of women ([0]) and men ([1]) per time step over all repetitions, or null if the rates are
+     * not valid
+     */
+    private double[][] simulate(BlockingQueue<Simulation> simulations, double[] params) throws InterruptedException {
+        SimulationParameters candidate;
+        try {
+            candidate = parameters.withParams(params);
+        } catch (IllegalArgumentException e) {
+            return null;
+        }
+        int steps = target.getSteps();
+        double[][] means = new double[2][steps];
+        Simulation sim = simulations.take();
+        try {
+            sim.setParameters(candidate);
+            for (int repetition = 0; repetition < reps; repetition++) {
+                sim.reset(repetition);
+                for (int t = 0; sim.hasNext(); t++) {
+                    int[] stats = sim.next();
+                    means[0][t] += stats[1];
+                    means[1][t] += stats[2];
+                }
+            }
+        } catch (IllegalArgumentException e) {
+            // a rate became invalid while running
+            return null;
+        } finally {
+            simulations.put(sim);
+        }
+        for (int t = 0; t < steps; t++) {
+            means[0][t] /= reps;
+            means[1][t] /= reps;
+        }
+        return means;
+    }
+
+    // settings
+
+    /**
+     * @param temperature temperature at the start, 100 by default
+     * @param decline     factor by which the temperature is multiplied after every iteration, 0.8 by default
+     */
+    public void setTemperature(double temperature, double decline) {
+        if (!(temperature > 0) || !(decline > 0 && decline <= 1)) {
+            throw new IllegalArgumentException("The temperature must be positive and the decline in (0, 1].");
+        }
+        this.temperature = temperature;
+        this.decline = decline;
+    }
+
+    /**
+     * @param iterations maximum number of iterations, 100 by default
+     */
+    public void setIterations(int iterations) {
+        if (iterations < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative number of iterations.");
+        }
+        this.iterations = iterations;
+    }
+
+    /**
+     * @param candidates number of candidates scored per iteration, the number of threads by default
+     */
+    public void setCandidates(int candidates) {
+        if (candidates < 1) {
+            throw new IllegalArgumentException("Please provide a positive number of candidates.");
+        }
+        this.candidates = candidates;
+    }
+
+    /**
+     * @param toleranceF the calibration stops once the error of the women is below this value...
+     * @param toleranceM ... and the error of the men is below this one; 10 by default
+     */
+    public void setTolerances(double toleranceF, double toleranceM) {
+        this.toleranceF = toleranceF;
+        this.toleranceM = toleranceM;
+    }
+
+    /**
+     * @param variances variances of the proposal distribution at the start, see DEFAULT_VARIANCES
+     */
+    public void setVariances(double[] variances) {
+        if (variances.length != DEFAULT_VARIANCES.length) {
+            throw new IllegalArgumentException("Provide an array of exactly 10 variances");
+        }
+        this.variances = variances.clone();
+    }
+
+    /**
+     * @param seed seed of the proposals and acceptance decisions; the simulations use the seed of the parameters
+     */
+    public void setSeed(long seed) {
+        this.seed = seed;
+    }
+}
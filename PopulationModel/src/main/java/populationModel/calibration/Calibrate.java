@@ -0,0 +1,151 @@
+package populationModel.calibration;
+
+import org.apache.commons.cli.*;
+import populationModel.SimulationParameters;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.Calendar;
+import java.util.Locale;
+
+/**
+ * Calibrate the rates of an input file to observed population sizes in the console, without MATLAB. The result is
+ * written in the format of the input file, so its lines can replace the rates in init.txt.
+ */
+public class Calibrate {
+    private static void usage() {
+        System.err.println("Calibrate -i \"Input Path\" -d \"Target Data\" -e \"Error Method\" -r \"Repetitions\" -t \"Threads\" -n \"Iterations\" -o \"Output Path\"");
+        System.exit(1);
+    }
+
+    public static void main(String[] args) {
+        // parse program arguments
+        final Options options = new Options();
+        options.addOption(new Option("c", "candidates", true, "Number of candidates scored per iteration. Default = number of threads."));
+        options.addOption(new Option("d", "data", true, "CSV file with the columns time, populationF and populationM. Default = ../Calibration/target.csv."));
+        options.addOption(new Option("e", "error", true, "Error method, maxError, meanError or lastValueError. Default = lastValueError."));
+        options.addOption(new Option("i", "input", true, "Input file with the starting point. Default = ../Calibration/init.txt."));
+        options.addOption(new Option("n", "iterations", true, "Maximum number of iterations. Default = 100."));
+        options.addOption(new Option("o", "output", true, "Output file path, if not specified use standard output."));
+        options.addOption(new Option("r", "repetitions", true, "Number of repetitions per candidate. Default = 100."));
+        options.addOption(new Option("s", "seed", true, "Seed of the proposals."));
+        options.addOption(new Option("t", "threads", true, "Number of threads scoring candidates in parallel. Default = number of processors."));
+        options.addOption(Option.builder().longOpt("tol-f").hasArg().desc("Stop once the error of the women is below this value and the one of the men below --tol-m. Default = 10.").build());
+        options.addOption(Option.builder().longOpt("tol-m").hasArg().desc("See --tol-f. Default = 10.").build());
+
+        CommandLineParser parser = new DefaultParser();
+
+        String inputPath = "../Calibration/init.txt";
+        String dataPath = "../Calibration/target.csv";
+        String outputPath = null;
+        ErrorMethod method = ErrorMethod.LAST_VALUE_ERROR;
+        int reps = 100;
+        int threads = Runtime.getRuntime().availableProcessors();
+        Integer candidates = null;
+        Integer iterations = null;
+        Long seed = null;
+        double toleranceF = 10;
+        double toleranceM = 10;
+        try {
+            CommandLine cmd = parser.parse(options, args);
+            if (cmd.hasOption("i")) {
+                inputPath = cmd.getOptionValue("i");
+            }
+            if (cmd.hasOption("d")) {
+                dataPath = cmd.getOptionValue("d");
+            }
+            if (cmd.hasOption("o")) {
+                outputPath = cmd.getOptionValue("o");
+            }
+            if (cmd.hasOption("e")) {
+                method = ErrorMethod.parse(cmd.getOptionValue("e"));
+            }
+            if (cmd.hasOption("r")) {
+                reps = Integer.parseInt(cmd.getOptionValue("r"));
+            }
+            if (cmd.hasOption("t")) {
+                threads = Integer.parseInt(cmd.getOptionValue("t"));
+            }
+            if (cmd.hasOption("c")) {
+                candidates = Integer.parseInt(cmd.getOptionValue("c"));
+            }
+            if (cmd.hasOption("n")) {
+                iterations = Integer.parseInt(cmd.getOptionValue("n"));
+            }
+            if (cmd.hasOption("s")) {
+                seed = Long.parseLong(cmd.getOptionValue("s"));
+            }
+            if (cmd.hasOption("tol-f")) {
+                toleranceF = Double.parseDouble(cmd.getOptionValue("tol-f"));
+            }
+            if (cmd.hasOption("tol-m")) {
+                toleranceM = Double.parseDouble(cmd.getOptionValue("tol-m"));
+            }
+        } catch (ParseException e) {
+            e.printStackTrace();
+            usage();
+            return;
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            usage();
+            return;
+        }
+
+        long tic = System.currentTimeMillis();
+        AnnealingCalibration calibration = null;
+        try {
+            SimulationParameters parameters = SimulationParameters.read(inputPath);
+            TargetData target = TargetData.read(dataPath);
+            calibration = new AnnealingCalibration(parameters, target, method, reps, threads);
+            if (candidates != null) {
+                calibration.setCandidates(candidates);
+            }
+            if (iterations != null) {
+                calibration.setIterations(iterations);
+            }
+            if (seed != null) {
+                calibration.setSeed(seed);
+            }
+            calibration.setTolerances(toleranceF, toleranceM);
+        } catch (IOException e) {
+            System.err.printf("Bad input file: %s \nCurrent directory: %s\n", e.getMessage(), System.getProperty("user.dir"));
+            System.exit(1);
+        } catch (IllegalArgumentException | NullPointerException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        CalibrationResult result = null;
+        try {
+            result = calibration.run((iteration, errorF, errorM, accepted, current) ->
+                    System.err.printf("iteration %d: candidate %.4f / %.4f %s, current %.4f / %.4f\n", iteration,
+                            errorF, errorM, accepted ? "accepted" : "rejected", current.getErrorF(),
+                            current.getErrorM()));
+        } catch (InterruptedException e) {
+            System.err.println("Calibration was interrupted.");
+            System.exit(1);
+        } catch (IllegalArgumentException e) {
+            System.err.println(e.getMessage());
+            System.exit(1);
+        }
+
+        try {
+            PrintWriter out = (outputPath == null) ? new PrintWriter(System.out) : new PrintWriter(outputPath);
+            out.println("# populationModel.calibration.Calibrate run on " + Calendar.getInstance().getTime());
+            out.printf("# %s of %s, %d repetitions per candidate\n", method.name().toLowerCase(), dataPath, reps);
+            out.printf(Locale.ROOT, "# error f = %.4f, error m = %.4f after %d iterations\n", result.getErrorF(),
+                    result.getErrorM(), result.getIterations());
+            double[] params = result.getParams();
+            // read back like an input file, which expects decimal points
+            for (int k = 0; k < params.length; k++) {
+                out.printf(Locale.ROOT, "%s = %.6f\n", SimulationParameters.PARAMS_KEYS[k], params[k]);
+            }
+            out.close();
+        } catch (FileNotFoundException e) {
+            System.err.println("Directory of output file does not exist");
+            System.exit(1);
+        }
+        System.err.println("Run time: " + (System.currentTimeMillis() - tic) / 1000.0 + " seconds");
+    }
+}
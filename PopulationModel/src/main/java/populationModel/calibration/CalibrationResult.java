@@ -0,0 +1,64 @@
+package populationModel.calibration;
+
+/**
+ * State of a calibration: the accepted parameters, their errors and the mean population sizes they produce
+ */
+public final class CalibrationResult {
+    private final double[] params;
+    private final double errorF;
+    private final double errorM;
+    private final double[] meanFemale;
+    private final double[] meanMale;
+    private final int iterations;
+
+    /**
+     * @param params     parameter vector, in the order of SimulationParameters.withParams
+     * @param errorF     error of the women
+     * @param errorM     error of the men
+     * @param meanFemale mean number of women per time step
+     * @param meanMale   mean number of men per time step
+     * @param iterations number of iterations so far
+     */
+    CalibrationResult(double[] params, double[] meanFemale, double[] meanMale, double errorF, double errorM,
+                      int iterations) {
+        this.params = params.clone();
+        this.meanFemale = meanFemale.clone();
+        this.meanMale = meanMale.clone();
+        this.errorF = errorF;
+        this.errorM = errorM;
+        this.iterations = iterations;
+    }
+
+    /**
+     * @return parameter vector, in the order of SimulationParameters.withParams
+     */
+    public double[] getParams() {
+        return params.clone();
+    }
+
+    public double getErrorF() {
+        return errorF;
+    }
+
+    public double getErrorM() {
+        return errorM;
+    }
+
+    /**
+     * @return mean number of women per time step, starting at time 0
+     */
+    public double[] getMeanFemale() {
+        return meanFemale.clone();
+    }
+
+    /**
+     * @return mean number of men per time step, starting at time 0
+     */
+    public double[] getMeanMale() {
+        return meanMale.clone();
+    }
+
+    public int getIterations() {
+        return iterations;
+    }
+}
@@ -0,0 +1,13 @@
+package populationModel.calibration;
+
+/**
+ * Measures how far the simulated means of one sex are from the observed numbers, like Calibration/err.m
+ */
+public interface ErrorFunction {
+    /**
+     * @param simulated mean population size per observed time step
+     * @param observed  observed population size per time step, same length
+     * @return a non-negative error, 0 for a perfect fit
+     */
+    double error(double[] simulated, double[] observed);
+}
@@ -0,0 +1,60 @@
+package populationModel.calibration;
+
+import java.util.Arrays;
+
+/**
+ * The error functions of Calibration/err.m, selected by name
+ */
+public enum ErrorMethod implements ErrorFunction {
+    /**
+     * largest absolute difference
+     */
+    MAX_ERROR {
+        @Override
+        public double error(double[] simulated, double[] observed) {
+            double max = 0;
+            for (int i = 0; i < observed.length; i++) {
+                max = Math.max(max, Math.abs(simulated[i] - observed[i]));
+            }
+            return max;
+        }
+    },
+    /**
+     * mean absolute difference
+     */
+    MEAN_ERROR {
+        @Override
+        public double error(double[] simulated, double[] observed) {
+            double sum = 0;
+            for (int i = 0; i < observed.length; i++) {
+                sum += Math.abs(simulated[i] - observed[i]);
+            }
+            return sum / observed.length;
+        }
+    },
+    /**
+     * absolute difference at the last observed time step
+     */
+    LAST_VALUE_ERROR {
+        @Override
+        public double error(double[] simulated, double[] observed) {
+            int last = observed.length - 1;
+            return Math.abs(simulated[last] - observed[last]);
+        }
+    };
+
+    /**
+     * @param name name of the method, case insensitive, e.g. "maxError" (as in err.m) or "max_error"
+     * @return the associated method
+     */
+    public static ErrorMethod parse(String name) {
+        String key = name.trim().replace("_", "");
+        for (ErrorMethod method : values()) {
+            if (method.name().replace("_", "").equalsIgnoreCase(key)) {
+                return method;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown error method <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+}
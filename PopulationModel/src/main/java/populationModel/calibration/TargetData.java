@@ -0,0 +1,139 @@
+package populationModel.calibration;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Observed population sizes of women and men, which a calibration tries to reproduce
+ */
+public final class TargetData {
+    private final int[] times;
+    private final double[] female;
+    private final double[] male;
+
+    /**
+     * @param times  time steps of the observations, increasing and non-negative
+     * @param female number of women at each time step
+     * @param male   number of men at each time step
+     */
+    public TargetData(int[] times, double[] female, double[] male) {
+        if (times.length == 0 || times.length != female.length || times.length != male.length) {
+            throw new IllegalArgumentException("Provide the same positive number of times, women and men.");
+        }
+        for (int i = 0; i < times.length; i++) {
+            if (times[i] < 0 || (i > 0 && times[i] <= times[i - 1])) {
+                throw new IllegalArgumentException("The times must be non-negative and increasing.");
+            }
+        }
+        this.times = times.clone();
+        this.female = female.clone();
+        this.male = male.clone();
+    }
+
+    /**
+     * read a csv file in the output format of Main: lines starting with "#" are skipped, the first other line names
+     * the columns, of which time, populationF and populationM are used
+     *
+     * @param path csv file, e.g. Calibration/target.csv
+     * @return the observations
+     * @throws IOException if the file cannot be read or misses a column
+     */
+    public static TargetData read(String path) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String[] header = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s*,\\s*");
+                if (header == null) {
+                    header = fields;
+                } else {
+                    rows.add(fields);
+                }
+            }
+        }
+        if (header == null) {
+            throw new IOException(String.format("<%s> has no header.", path));
+        }
+        int timeColumn = column(header, "time", path);
+        int femaleColumn = column(header, "populationF", path);
+        int maleColumn = column(header, "populationM", path);
+        int[] times = new int[rows.size()];
+        double[] female = new double[rows.size()];
+        double[] male = new double[rows.size()];
+        for (int i = 0; i < times.length; i++) {
+            String[] row = rows.get(i);
+            try {
+                times[i] = Integer.parseInt(row[timeColumn]);
+                female[i] = Double.parseDouble(row[femaleColumn]);
+                male[i] = Double.parseDouble(row[maleColumn]);
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(String.format("Cannot parse line <%s> of <%s>.", String.join(", ", row), path));
+            }
+        }
+        return new TargetData(times, female, male);
+    }
+
+    private static int column(String[] header, String name, String path) throws IOException {
+        int i = Arrays.asList(header).indexOf(name);
+        if (i < 0) {
+            throw new IOException(String.format("Required column <%s> not found in <%s>.", name, path));
+        }
+        return i;
+    }
+
+    /**
+     * @return number of time steps a simulation needs to cover all observations, including time 0
+     */
+    public int getSteps() {
+        return times[times.length - 1] + 1;
+    }
+
+    /**
+     * @return time steps of the observations
+     */
+    public int[] getTimes() {
+        return times.clone();
+    }
+
+    /**
+     * @return number of women at each observed time step
+     */
+    public double[] getFemale() {
+        return female.clone();
+    }
+
+    /**
+     * @return number of men at each observed time step
+     */
+    public double[] getMale() {
+        return male.clone();
+    }
+
+    /**
+     * @param means simulated values per time step, e.g. the mean number of women
+     * @return the values at the observed time steps
+     */
+    double[] atTimes(double[] means) {
+        double[] values = new double[times.length];
+        for (int i = 0; i < times.length; i++) {
+            values[i] = means[times[i]];
+        }
+        return values;
+    }
+
+    /**
+     * @return number of observations
+     */
+    public int size() {
+        return times.length;
+    }
+}
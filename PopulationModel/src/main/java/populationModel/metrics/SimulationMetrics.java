@@ -0,0 +1,318 @@
+package populationModel.metrics;
+
+import populationModel.Simulation;
+
+import javax.management.InstanceAlreadyExistsException;
+import javax.management.InstanceNotFoundException;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import java.lang.management.ManagementFactory;
+import java.util.concurrent.atomic.LongAccumulator;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters and timers of running simulations, shared by any number of them (e.g. all workers of a
+ * ReplicationRunner). Every value is a LongAdder, so threads don't compete while recording. The values can be read
+ * with the getters at any time, or through JMX after register. Simulations without metrics don't record anything.
+ */
+public class SimulationMetrics implements SimulationMetricsMBean {
+    public static final String DEFAULT_NAME = "populationModel:type=SimulationMetrics";
+
+    /**
+     * the parts of Simulation.next() which are timed
+     */
+    public enum Phase {
+        /**
+         * drawing the arrival times of immigrants
+         */
+        IMMIGRATION,
+        /**
+         * creating newborns and immigrants and scheduling their events
+         */
+        ENTRY,
+        /**
+         * removing the people who die or emigrate
+         */
+        EXIT,
+        /**
+         * collecting the statistics and clearing the time step
+         */
+        REPORT,
+        /**
+         * a whole time step of the continuous engine
+         */
+        CONTINUOUS,
+        /**
+         * a whole time step of the tau-leaping engine
+         */
+        TAU_LEAP
+    }
+
+    private final LongAdder steps = new LongAdder();
+    private final LongAdder replications = new LongAdder();
+    private final LongAdder population = new LongAdder();
+    /**
+     * events per column of the arrays returned by Simulation.next(), columns 3 to 8 are used
+     */
+    private final LongAdder[] events = new LongAdder[Simulation.COLUMNS];
+    private final LongAdder[] phaseNanos = new LongAdder[Phase.values().length];
+    private final LongAdder occupiedUnits = new LongAdder();
+    private final LongAdder samples = new LongAdder();
+    private final LongAccumulator maxOverflow = new LongAccumulator(Math::max, 0);
+    private volatile long started = System.nanoTime();
+
+    private ObjectName name;
+
+    public SimulationMetrics() {
+        for (int i = 0; i < events.length; i++) {
+            events[i] = new LongAdder();
+        }
+        for (int i = 0; i < phaseNanos.length; i++) {
+            phaseNanos[i] = new LongAdder();
+        }
+    }
+
+    // recording, called by the simulations
+
+    /**
+     * count one time step and its events
+     *
+     * @param stats array filled by Simulation.next(int[]), which may be longer than Simulation.COLUMNS
+     */
+    public void recordStep(int[] stats) {
+        steps.increment();
+        for (int c = 3; c < events.length; c++) {
+            if (stats[c] != 0) {
+                events[c].add(stats[c]);
+            }
+        }
+    }
+
+    /**
+     * @param phase part of the time step
+     * @param nanos time spent in it
+     */
+    public void recordTime(Phase phase, long nanos) {
+        phaseNanos[phase.ordinal()].add(nanos);
+    }
+
+    /**
+     * @param delta change of the number of people held by a simulation
+     */
+    public void recordPopulation(long delta) {
+        population.add(delta);
+    }
+
+    /**
+     * @param occupied     number of time steps of an EventHistory which hold events
+     * @param overflowSize number of time steps in its overflow
+     */
+    public void recordEventHistory(int occupied, int overflowSize) {
+        occupiedUnits.add(occupied);
+        samples.increment();
+        maxOverflow.accumulate(overflowSize);
+    }
+
+    /**
+     * count a finished run
+     */
+    public void recordReplication() {
+        replications.increment();
+    }
+
+    // JMX
+
+    /**
+     * register with the platform MBean server under DEFAULT_NAME
+     *
+     * @throws JMException if the name is already taken
+     */
+    public void register() throws JMException {
+        register(DEFAULT_NAME);
+    }
+
+    /**
+     * register with the platform MBean server, e.g. with a name per batch if several batches run in one JVM
+     *
+     * @param objectName JMX name, e.g. populationModel:type=SimulationMetrics,name=batch1
+     * @throws JMException if the name is not valid or already taken
+     */
+    public synchronized void register(String objectName) throws JMException {
+        if (name != null) {
+            throw new InstanceAlreadyExistsException("The metrics are already registered as " + name);
+        }
+        ObjectName candidate = new ObjectName(objectName);
+        ManagementFactory.getPlatformMBeanServer().registerMBean(this, candidate);
+        name = candidate;
+    }
+
+    /**
+     * remove the registration, if there is one
+     */
+    public synchronized void unregister() {
+        if (name == null) {
+            return;
+        }
+        MBeanServer server = ManagementFactory.getPlatformMBeanServer();
+        try {
+            server.unregisterMBean(name);
+        } catch (InstanceNotFoundException e) {
+            // already removed by someone else
+        } catch (JMException e) {
+            throw new IllegalStateException(e);
+        }
+        name = null;
+    }
+
+    // reading
+
+    /**
+     * @return number of time steps computed, including the initial one of every run
+     */
+    @Override
+    public long getTimeSteps() {
+        return steps.sum();
+    }
+
+    /**
+     * @return time steps per second of wall-clock time since the metrics were created or reset
+     */
+    @Override
+    public double getTimeStepsPerSecond() {
+        double seconds = (System.nanoTime() - started) / 1e9;
+        return (seconds > 0) ? steps.sum() / seconds : 0;
+    }
+
+    /**
+     * @return number of finished runs
+     */
+    @Override
+    public long getReplications() {
+        return replications.sum();
+    }
+
+    /**
+     * @return number of people currently held by all simulations, including finished runs which were not reset yet
+     */
+    @Override
+    public long getPopulation() {
+        return population.sum();
+    }
+
+    @Override
+    public long getBirthsFemale() {
+        return events[3].sum();
+    }
+
+    @Override
+    public long getBirthsMale() {
+        return events[4].sum();
+    }
+
+    @Override
+    public long getDeathsFemale() {
+        return events[5].sum();
+    }
+
+    @Override
+    public long getDeathsMale() {
+        return events[6].sum();
+    }
+
+    @Override
+    public long getImmigrations() {
+        return events[7].sum();
+    }
+
+    @Override
+    public long getEmigrations() {
+        return events[8].sum();
+    }
+
+    /**
+     * @param phase part of the time step
+     * @return seconds spent in it, summed over all threads
+     */
+    public double getSeconds(Phase phase) {
+        return phaseNanos[phase.ordinal()].sum() / 1e9;
+    }
+
+    @Override
+    public double getImmigrationSeconds() {
+        return getSeconds(Phase.IMMIGRATION);
+    }
+
+    @Override
+    public double getEntrySeconds() {
+        return getSeconds(Phase.ENTRY);
+    }
+
+    @Override
+    public double getExitSeconds() {
+        return getSeconds(Phase.EXIT);
+    }
+
+    @Override
+    public double getReportSeconds() {
+        return getSeconds(Phase.REPORT);
+    }
+
+    @Override
+    public double getContinuousSeconds() {
+        return getSeconds(Phase.CONTINUOUS);
+    }
+
+    @Override
+    public double getTauLeapSeconds() {
+        return getSeconds(Phase.TAU_LEAP);
+    }
+
+    /**
+     * @return mean number of time steps of the EventHistory holding events, over all time steps of the individual and
+     * counts engines
+     */
+    @Override
+    public double getMeanOccupiedUnits() {
+        long n = samples.sum();
+        return (n > 0) ? (double) occupiedUnits.sum() / n : 0;
+    }
+
+    /**
+     * @return largest overflow of an EventHistory, in time steps
+     */
+    @Override
+    public long getMaxOverflowSize() {
+        return maxOverflow.get();
+    }
+
+    /**
+     * set all counters and timers to 0, except the population, which is still held by the simulations
+     */
+    @Override
+    public void reset() {
+        steps.reset();
+        replications.reset();
+        for (LongAdder adder : events) {
+            adder.reset();
+        }
+        for (LongAdder adder : phaseNanos) {
+            adder.reset();
+        }
+        occupiedUnits.reset();
+        samples.reset();
+        maxOverflow.reset();
+        started = System.nanoTime();
+    }
+
+    @Override
+    public String toString() {
+        return String.format("steps=%d (%.1f per second), replications=%d, population=%d, births=%d/%d, deaths=%d/%d, "
+                        + "immigrations=%d, emigrations=%d, seconds immigration=%.3f entry=%.3f exit=%.3f report=%.3f "
+                        + "continuous=%.3f tauLeap=%.3f, occupiedUnits=%.1f, maxOverflow=%d",
+                getTimeSteps(), getTimeStepsPerSecond(), getReplications(), getPopulation(), getBirthsFemale(),
+                getBirthsMale(), getDeathsFemale(), getDeathsMale(), getImmigrations(), getEmigrations(),
+                getImmigrationSeconds(), getEntrySeconds(), getExitSeconds(), getReportSeconds(),
+                getContinuousSeconds(), getTauLeapSeconds(), getMeanOccupiedUnits(), getMaxOverflowSize());
+    }
+}
@@ -0,0 +1,45 @@
+package populationModel.metrics;
+
+/**
+ * Attributes of SimulationMetrics shown by JMX clients, e.g. jconsole
+ */
+public interface SimulationMetricsMBean {
+
+    long getTimeSteps();
+
+    double getTimeStepsPerSecond();
+
+    long getReplications();
+
+    long getPopulation();
+
+    long getBirthsFemale();
+
+    long getBirthsMale();
+
+    long getDeathsFemale();
+
+    long getDeathsMale();
+
+    long getImmigrations();
+
+    long getEmigrations();
+
+    double getImmigrationSeconds();
+
+    double getEntrySeconds();
+
+    double getExitSeconds();
+
+    double getReportSeconds();
+
+    double getContinuousSeconds();
+
+    double getTauLeapSeconds();
+
+    double getMeanOccupiedUnits();
+
+    long getMaxOverflowSize();
+
+    void reset();
+}
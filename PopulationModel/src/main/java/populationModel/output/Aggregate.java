@@ -0,0 +1,220 @@
+package populationModel.output;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.Arrays;
+
+/**
+ * Summary of many repetitions: for every time step and column of the arrays returned by Simulation.next(), the
+ * mean and variance (Welford's method) and a TDigest for quantiles. Memory is proportional to time steps times
+ * columns, not to the number of repetitions. All methods are synchronized, so several threads may add to one
+ * aggregate, or each thread fills its own and they are merged at the end.
+ */
+public class Aggregate {
+    public static final double DEFAULT_COMPRESSION = 100;
+
+    private final int columns;
+    private final double compression;
+
+    // per time step
+    private long[] counts = new long[0];
+    // per time step and column, at index step * columns + column
+    private double[] means = new double[0];
+    private double[] squares = new double[0];
+    private TDigest[] digests = new TDigest[0];
+
+    /**
+     * @param columns number of values per time step
+     */
+    public Aggregate(int columns) {
+        this(columns, DEFAULT_COMPRESSION);
+    }
+
+    /**
+     * @param columns     number of values per time step
+     * @param compression accuracy of the quantiles, see TDigest
+     */
+    public Aggregate(int columns, double compression) {
+        this.columns = columns;
+        this.compression = compression;
+    }
+
+    /**
+     * add one repetition
+     *
+     * @param trajectory all arrays returned by Simulation.next() during the repetition
+     */
+    public synchronized void add(int[][] trajectory) {
+        for (int t = 0; t < trajectory.length; t++) {
+            add(t, trajectory[t]);
+        }
+    }
+
+    /**
+     * add one time step of a repetition, e.g. while stepping with Simulation.next(int[]), so the trajectory is never
+     * stored; every repetition must add each of its time steps once
+     *
+     * @param step  time step
+     * @param stats array filled by Simulation.next(int[]) at the time step
+     */
+    public synchronized void add(int step, int[] stats) {
+        grow(step + 1);
+        long n = ++counts[step];
+        for (int c = 0; c < columns; c++) {
+            int i = step * columns + c;
+            double x = stats[c];
+            double delta = x - means[i];
+            means[i] += delta / n;
+            squares[i] += delta * (x - means[i]);
+            digests[i].add(x);
+        }
+    }
+
+    /**
+     * add all repetitions of another aggregate (Chan's formula for mean and variance). Both aggregates are locked
+     * in a fixed order, so two threads may merge two aggregates into each other at the same time.
+     *
+     * @param other partial aggregate with the same columns, not this one
+     */
+    public void merge(Aggregate other) {
+        Moments.lockBoth(this, other, columns, other.columns, () -> mergeLocked(other));
+    }
+
+    /**
+     * @param other aggregate, both aggregates are locked
+     */
+    private void mergeLocked(Aggregate other) {
+        grow(other.counts.length);
+        for (int t = 0; t < other.counts.length; t++) {
+            long a = counts[t];
+            long b = other.counts[t];
+            if (b == 0) {
+                continue;
+            }
+            long n = a + b;
+            for (int c = 0; c < columns; c++) {
+                int i = t * columns + c;
+                double delta = other.means[i] - means[i];
+                means[i] = Moments.mean(means[i], delta, b, n);
+                squares[i] = Moments.products(squares[i], other.squares[i], delta, delta, a, b, n);
+                digests[i].merge(other.digests[i]);
+            }
+            counts[t] = n;
+        }
+    }
+
+    /**
+     * write the aggregate, e.g. to merge partial aggregates of other processes; see read
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public synchronized void write(DataOutput out) throws IOException {
+        out.writeInt(columns);
+        out.writeDouble(compression);
+        out.writeInt(counts.length);
+        for (int t = 0; t < counts.length; t++) {
+            out.writeLong(counts[t]);
+        }
+        for (int i = 0; i < means.length; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(squares[i]);
+            digests[i].write(out);
+        }
+    }
+
+    /**
+     * @param in source, positioned at what write wrote
+     * @return the aggregate
+     * @throws IOException if reading fails or the data is no aggregate
+     */
+    public static Aggregate read(DataInput in) throws IOException {
+        int columns = in.readInt();
+        double compression = in.readDouble();
+        int steps = in.readInt();
+        if (columns < 1 || steps < 0 || (long) steps * columns > Integer.MAX_VALUE) {
+            throw new IOException(String.format("Invalid aggregate of %d time steps and %d columns.", steps,
+                    columns));
+        }
+        Aggregate aggregate = new Aggregate(columns, compression);
+        aggregate.counts = new long[steps];
+        aggregate.means = new double[steps * columns];
+        aggregate.squares = new double[steps * columns];
+        aggregate.digests = new TDigest[steps * columns];
+        for (int t = 0; t < steps; t++) {
+            aggregate.counts[t] = in.readLong();
+        }
+        for (int i = 0; i < aggregate.means.length; i++) {
+            aggregate.means[i] = in.readDouble();
+            aggregate.squares[i] = in.readDouble();
+            aggregate.digests[i] = TDigest.read(in);
+        }
+        return aggregate;
+    }
+
+    /**
+     * @return number of values per time step
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of time steps of the longest repetition
+     */
+    public synchronized int getSteps() {
+        return counts.length;
+    }
+
+    /**
+     * @param step time step
+     * @return number of repetitions which reached the time step
+     */
+    public synchronized long count(int step) {
+        return counts[step];
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return mean over the repetitions
+     */
+    public synchronized double mean(int step, int column) {
+        return means[step * columns + column];
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return sample variance over the repetitions, 0 for a single repetition
+     */
+    public synchronized double variance(int step, int column) {
+        long n = counts[step];
+        return (n > 1) ? squares[step * columns + column] / (n - 1) : 0;
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @param q      probability in [0, 1]
+     * @return estimated q-quantile over the repetitions
+     */
+    public synchronized double quantile(int step, int column, double q) {
+        return digests[step * columns + column].quantile(q);
+    }
+
+    private void grow(int steps) {
+        if (steps <= counts.length) {
+            return;
+        }
+        int old = digests.length;
+        counts = Arrays.copyOf(counts, steps);
+        means = Arrays.copyOf(means, steps * columns);
+        squares = Arrays.copyOf(squares, steps * columns);
+        digests = Arrays.copyOf(digests, steps * columns);
+        for (int i = old; i < digests.length; i++) {
+            digests[i] = new TDigest(compression);
+        }
+    }
+}
@@ -0,0 +1,162 @@
+package populationModel.output;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Reads files written by BinaryWriter, one repetition at a time
+ */
+public class BinaryReader implements Closeable {
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int columns;
+    private final String header;
+    private final String description;
+    private boolean endOfFile = false;
+    private int repetition = -1;
+
+    /**
+     * @param path file written by BinaryWriter
+     * @throws IOException if the file cannot be read or has a different format
+     */
+    public BinaryReader(Path path) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.READ);
+        buffer = ByteBuffer.allocateDirect(BinaryWriter.BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.flip();
+        if (!fill(12) || buffer.getInt() != BinaryWriter.MAGIC) {
+            throw new IOException(String.format("<%s> is not a binary result file.", path));
+        }
+        int version = buffer.getInt();
+        if (version != BinaryWriter.VERSION) {
+            throw new IOException(String.format("Unsupported version <%d> of file <%s>.", version, path));
+        }
+        columns = buffer.getInt();
+        header = getString();
+        description = getString();
+    }
+
+    /**
+     * @return true, if there is another repetition
+     * @throws IOException if reading fails
+     */
+    public boolean hasNext() throws IOException {
+        return fill(8);
+    }
+
+    /**
+     * @return the next repetition's trajectory, by column: result[c][t] is the value of column c at time step t
+     * @throws IOException if reading fails or the file ends within the repetition
+     */
+    public int[][] next() throws IOException {
+        if (!fill(8)) {
+            throw new IOException("No more repetitions.");
+        }
+        repetition = buffer.getInt();
+        int steps = buffer.getInt();
+        int[][] result = new int[columns][steps];
+        for (int[] column : result) {
+            int t = 0;
+            while (t < steps) {
+                if (!fill(4)) {
+                    throw new IOException(String.format("Repetition %d is incomplete.", repetition));
+                }
+                int n = Math.min(steps - t, buffer.remaining() / 4);
+                buffer.asIntBuffer().get(column, t, n);
+                buffer.position(buffer.position() + 4 * n);
+                t += n;
+            }
+        }
+        return result;
+    }
+
+    /**
+     * @return index of the repetition returned by the last call of next()
+     */
+    public int getRepetition() {
+        return repetition;
+    }
+
+    /**
+     * @return number of columns
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return column names, separated by ", "
+     */
+    public String getHeader() {
+        return header;
+    }
+
+    /**
+     * @return description of the run, e.g. date and parameters
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+
+    /**
+     * @param path file written by BinaryWriter
+     * @return all repetitions, by column (see next())
+     * @throws IOException if the file cannot be read
+     */
+    public static int[][][] readAll(String path) throws IOException {
+        List<int[][]> repetitions = new ArrayList<>();
+        try (BinaryReader reader = new BinaryReader(Paths.get(path))) {
+            while (reader.hasNext()) {
+                repetitions.add(reader.next());
+            }
+        }
+        return repetitions.toArray(new int[0][][]);
+    }
+
+    private String getString() throws IOException {
+        if (!fill(4)) {
+            throw new IOException("Incomplete header.");
+        }
+        byte[] bytes = new byte[buffer.getInt()];
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!fill(1)) {
+                throw new IOException("Incomplete header.");
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.get(bytes, offset, n);
+            offset += n;
+        }
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * make sure that at least the given number of bytes can be read from the buffer
+     *
+     * @return false, if the file ends before
+     */
+    private boolean fill(int bytes) throws IOException {
+        if (buffer.remaining() >= bytes) {
+            return true;
+        }
+        buffer.compact();
+        while (buffer.position() < bytes && !endOfFile) {
+            endOfFile = channel.read(buffer) < 0;
+        }
+        buffer.flip();
+        return buffer.remaining() >= bytes;
+    }
+}
@@ -0,0 +1,119 @@
+package populationModel.output;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Writes results in a binary columnar format, all numbers are little-endian int32:
+ * <ul>
+ * <li>header: magic number, format version, number of columns, then two strings (column names separated by ", "
+ * and a description of the run), each as byte count and UTF-8 bytes</li>
+ * <li>one block per repetition: repetition index, number of time steps, then every column of the trajectory, one
+ * after the other</li>
+ * </ul>
+ * Files are read back with BinaryReader.
+ */
+public class BinaryWriter implements ResultWriter {
+    static final int MAGIC = 0x4d504f50; // "POPM"
+    static final int VERSION = 1;
+    static final int BUFFER_SIZE = 1 << 22;
+
+    private final FileChannel channel;
+    private final ByteBuffer buffer;
+    private final int columns;
+
+    /**
+     * @param path        output file, replaced if it exists
+     * @param header      column names, separated by ", "
+     * @param description e.g. date and parameters of the run
+     * @throws IOException if the file cannot be written
+     */
+    public BinaryWriter(Path path, String header, String description) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        columns = header.split(", ").length;
+        buffer.putInt(MAGIC);
+        buffer.putInt(VERSION);
+        buffer.putInt(columns);
+        putString(header);
+        putString(description);
+    }
+
+    /**
+     * continue a file which already has a header, e.g. after resuming from a checkpoint
+     *
+     * @param path    existing output file, new repetitions are appended
+     * @param columns number of columns
+     * @throws IOException if the file cannot be written
+     */
+    public BinaryWriter(Path path, int columns) throws IOException {
+        channel = FileChannel.open(path, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        buffer = ByteBuffer.allocateDirect(BUFFER_SIZE).order(ByteOrder.LITTLE_ENDIAN);
+        this.columns = columns;
+    }
+
+    @Override
+    public void write(int repetition, int[][] trajectory) throws IOException {
+        ensure(8);
+        buffer.putInt(repetition);
+        buffer.putInt(trajectory.length);
+        for (int c = 0; c < columns; c++) {
+            for (int[] row : trajectory) {
+                ensure(4);
+                buffer.putInt(row[c]);
+            }
+        }
+    }
+
+    @Override
+    public void flush() throws IOException {
+        drain();
+    }
+
+    @Override
+    public void close() throws IOException {
+        try {
+            drain();
+        } finally {
+            channel.close();
+        }
+    }
+
+    private void putString(String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(4);
+        buffer.putInt(bytes.length);
+        int offset = 0;
+        while (offset < bytes.length) {
+            if (!buffer.hasRemaining()) {
+                drain();
+            }
+            int n = Math.min(buffer.remaining(), bytes.length - offset);
+            buffer.put(bytes, offset, n);
+            offset += n;
+        }
+    }
+
+    private void ensure(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            drain();
+        }
+    }
+
+    /**
+     * write the buffer's content to the file
+     */
+    private void drain() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+}
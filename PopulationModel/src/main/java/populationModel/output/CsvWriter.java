@@ -0,0 +1,107 @@
+package populationModel.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+
+/**
+ * Writes comma separated lines like "time, populationF, ...". Numbers are encoded by hand into a byte buffer, which
+ * is much faster than formatting every line with printf.
+ */
+public class CsvWriter implements ResultWriter {
+    private static final int BUFFER_SIZE = 1 << 16;
+    // longest line: 11 characters and ", " per number
+    private static final int MAX_NUMBER = 13;
+
+    private final OutputStream out;
+    private final byte[] buffer = new byte[BUFFER_SIZE];
+    private int position = 0;
+
+    /**
+     * @param out      destination, closed with the writer
+     * @param header   column names
+     * @param comments lines written before the header, each starting with "# "
+     * @throws IOException if writing fails
+     */
+    public CsvWriter(OutputStream out, String header, String... comments) throws IOException {
+        this.out = out;
+        for (String comment : comments) {
+            writeText("# " + comment + "\n");
+        }
+        writeText(header + "\n");
+    }
+
+    /**
+     * continue a file which already has a header, e.g. after resuming from a checkpoint
+     *
+     * @param out destination, closed with the writer
+     */
+    public CsvWriter(OutputStream out) {
+        this.out = out;
+    }
+
+    @Override
+    public void write(int repetition, int[][] trajectory) throws IOException {
+        for (int[] row : trajectory) {
+            if (position + MAX_NUMBER * row.length > BUFFER_SIZE) {
+                flush();
+            }
+            for (int i = 0; i < row.length; i++) {
+                if (i > 0) {
+                    buffer[position++] = ',';
+                    buffer[position++] = ' ';
+                }
+                writeInt(row[i]);
+            }
+            buffer[position++] = '\n';
+        }
+    }
+
+    /**
+     * write the remaining buffer to the stream
+     *
+     * @throws IOException if writing fails
+     */
+    @Override
+    public void flush() throws IOException {
+        out.write(buffer, 0, position);
+        position = 0;
+        out.flush();
+    }
+
+    @Override
+    public void close() throws IOException {
+        flush();
+        out.close();
+    }
+
+    private void writeInt(int value) {
+        long v = value;
+        if (v < 0) {
+            buffer[position++] = '-';
+            v = -v;
+        }
+        // digits are written backwards, starting at the last position of the number
+        int end = position + digits(v);
+        int i = end;
+        do {
+            buffer[--i] = (byte) ('0' + v % 10);
+            v /= 10;
+        } while (v > 0);
+        position = end;
+    }
+
+    private static int digits(long v) {
+        int n = 1;
+        while (v >= 10) {
+            v /= 10;
+            n++;
+        }
+        return n;
+    }
+
+    private void writeText(String text) throws IOException {
+        flush();
+        out.write(text.getBytes(StandardCharsets.UTF_8));
+    }
+}
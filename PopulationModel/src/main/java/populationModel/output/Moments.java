@@ -0,0 +1,83 @@
+package populationModel.output;
+
+/**
+ * Merging of partial aggregates, shared by Aggregate and PairedAggregate: locking both aggregates and Chan's formulas
+ * for the means and the sums of squared deviations (or of products of deviations) of two parts
+ */
+final class Moments {
+    /**
+     * taken by lockBoth before both aggregates if their identity hash codes are equal
+     */
+    private static final Object TIE_LOCK = new Object();
+
+    private Moments() {
+    }
+
+    /**
+     * run a merge with both aggregates locked. They are locked in a fixed order, so two threads may merge two
+     * aggregates into each other at the same time.
+     *
+     * @param self         aggregate which receives the other one
+     * @param other        aggregate which is merged, not self
+     * @param columns      number of values per time step of self
+     * @param otherColumns number of values per time step of other
+     * @param merge        merges other into self while both are locked
+     */
+    static void lockBoth(Object self, Object other, int columns, int otherColumns, Runnable merge) {
+        if (other == self) {
+            throw new IllegalArgumentException("Cannot merge an aggregate into itself.");
+        }
+        if (otherColumns != columns) {
+            throw new IllegalArgumentException(String.format("Cannot merge %d columns into %d.", otherColumns,
+                    columns));
+        }
+        int a = System.identityHashCode(self);
+        int b = System.identityHashCode(other);
+        if (a < b) {
+            synchronized (self) {
+                synchronized (other) {
+                    merge.run();
+                }
+            }
+        } else if (a > b) {
+            synchronized (other) {
+                synchronized (self) {
+                    merge.run();
+                }
+            }
+        } else {
+            synchronized (TIE_LOCK) {
+                synchronized (self) {
+                    synchronized (other) {
+                        merge.run();
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @param mean  mean of the first part
+     * @param delta mean of the second part minus mean of the first part
+     * @param b     number of values of the second part
+     * @param n     number of values of both parts
+     * @return mean of both parts
+     */
+    static double mean(double mean, double delta, long b, long n) {
+        return mean + delta * b / n;
+    }
+
+    /**
+     * @param sum      sum of products of deviations from the means of the first part
+     * @param otherSum the same for the second part
+     * @param deltaX   difference of the means of the first variable
+     * @param deltaY   difference of the means of the second variable, deltaX for squares
+     * @param a        number of values of the first part
+     * @param b        number of values of the second part
+     * @param n        a + b
+     * @return sum of products of deviations from the means of both parts
+     */
+    static double products(double sum, double otherSum, double deltaX, double deltaY, long a, long b, long n) {
+        return sum + (otherSum + deltaX * deltaY * a / n * b);
+    }
+}
@@ -0,0 +1,85 @@
+package populationModel.output;
+
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.Arrays;
+
+/**
+ * Selects how Main writes its results, set with the option -f
+ */
+public enum OutputFormat {
+    /**
+     * comma separated text, one line per time step
+     */
+    CSV,
+    /**
+     * little-endian int32 columns, one block per repetition, see BinaryWriter
+     */
+    BINARY,
+    /**
+     * one line per time step and column with mean, standard deviation and quantiles over all repetitions, see
+     * SummaryWriter
+     */
+    SUMMARY;
+
+    /**
+     * @param name name of the format, case insensitive
+     * @return the associated format
+     */
+    public static OutputFormat parse(String name) {
+        for (OutputFormat format : values()) {
+            if (format.name().equalsIgnoreCase(name.trim())) {
+                return format;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown format <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+
+    /**
+     * @param path     output file, or null for standard output (not for the binary format)
+     * @param header   column names, separated by ", "
+     * @param comments lines describing the run, e.g. date and parameters
+     * @return a writer which has already written the header
+     * @throws IOException if the file cannot be created
+     */
+    public ResultWriter open(String path, String header, String... comments) throws IOException {
+        if (this == CSV) {
+            return new CsvWriter((path == null) ? System.out : new FileOutputStream(path), header, comments);
+        }
+        if (this == SUMMARY) {
+            return new SummaryWriter((path == null) ? System.out : new FileOutputStream(path), header, comments);
+        }
+        if (path == null) {
+            throw new IllegalArgumentException("The binary format needs an output file.");
+        }
+        return new BinaryWriter(Paths.get(path), header, String.join("\n", comments));
+    }
+
+    /**
+     * continue a file written by a writer of this format, e.g. after resuming from a checkpoint
+     *
+     * @param path   existing output file
+     * @param length number of bytes to keep, everything written later is removed
+     * @param header column names, separated by ", "
+     * @return a writer which appends to the file
+     * @throws IOException if the file cannot be written
+     */
+    public ResultWriter append(String path, long length, String header) throws IOException {
+        if (this == SUMMARY) {
+            throw new IllegalArgumentException("A summary cannot be continued.");
+        }
+        Path file = Paths.get(path);
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.WRITE)) {
+            channel.truncate(length);
+        }
+        if (this == CSV) {
+            return new CsvWriter(new FileOutputStream(path, true));
+        }
+        return new BinaryWriter(file, header.split(", ").length);
+    }
+}
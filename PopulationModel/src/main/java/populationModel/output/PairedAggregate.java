@@ -0,0 +1,215 @@
+package populationModel.output;
+
+import java.util.Arrays;
+
+/**
+ * Summary of paired repetitions, e.g. the two halves of antithetic pairs or the same replication under two
+ * parameter sets (common random numbers). For every time step and column it keeps the means, variances and the
+ * covariance of both members (Welford's method), from which the achieved variance reduction is estimated: the factor
+ * by which the number of repetitions could be divided to keep the accuracy of independent sampling. All methods are
+ * synchronized, like Aggregate.
+ */
+public class PairedAggregate {
+    private final int columns;
+
+    // per time step
+    private long[] counts = new long[0];
+    // per time step and column, at index step * columns + column
+    private double[] meansX = new double[0];
+    private double[] meansY = new double[0];
+    private double[] squaresX = new double[0];
+    private double[] squaresY = new double[0];
+    private double[] products = new double[0];
+
+    /**
+     * @param columns number of values per time step
+     */
+    public PairedAggregate(int columns) {
+        this.columns = columns;
+    }
+
+    /**
+     * add one pair of repetitions, only the time steps which both reached are used
+     *
+     * @param x all arrays returned by Simulation.next() during the first member
+     * @param y all arrays returned by Simulation.next() during the second member
+     */
+    public synchronized void add(int[][] x, int[][] y) {
+        int steps = Math.min(x.length, y.length);
+        grow(steps);
+        for (int t = 0; t < steps; t++) {
+            long n = ++counts[t];
+            for (int c = 0; c < columns; c++) {
+                int i = t * columns + c;
+                double dx = x[t][c] - meansX[i];
+                double dy = y[t][c] - meansY[i];
+                meansX[i] += dx / n;
+                meansY[i] += dy / n;
+                squaresX[i] += dx * (x[t][c] - meansX[i]);
+                squaresY[i] += dy * (y[t][c] - meansY[i]);
+                products[i] += dx * (y[t][c] - meansY[i]);
+            }
+        }
+    }
+
+    /**
+     * add all pairs of another aggregate (Chan's formulas). Both aggregates are locked in a fixed order, like in
+     * Aggregate.merge.
+     *
+     * @param other partial aggregate with the same columns, not this one
+     */
+    public void merge(PairedAggregate other) {
+        Moments.lockBoth(this, other, columns, other.columns, () -> mergeLocked(other));
+    }
+
+    /**
+     * @param other aggregate, both aggregates are locked
+     */
+    private void mergeLocked(PairedAggregate other) {
+        grow(other.counts.length);
+        for (int t = 0; t < other.counts.length; t++) {
+            long a = counts[t];
+            long b = other.counts[t];
+            if (b == 0) {
+                continue;
+            }
+            long n = a + b;
+            for (int c = 0; c < columns; c++) {
+                int i = t * columns + c;
+                double dx = other.meansX[i] - meansX[i];
+                double dy = other.meansY[i] - meansY[i];
+                meansX[i] = Moments.mean(meansX[i], dx, b, n);
+                meansY[i] = Moments.mean(meansY[i], dy, b, n);
+                squaresX[i] = Moments.products(squaresX[i], other.squaresX[i], dx, dx, a, b, n);
+                squaresY[i] = Moments.products(squaresY[i], other.squaresY[i], dy, dy, a, b, n);
+                products[i] = Moments.products(products[i], other.products[i], dx, dy, a, b, n);
+            }
+            counts[t] = n;
+        }
+    }
+
+    /**
+     * @return number of values per time step
+     */
+    public int getColumns() {
+        return columns;
+    }
+
+    /**
+     * @return number of time steps of the longest pair
+     */
+    public synchronized int getSteps() {
+        return counts.length;
+    }
+
+    /**
+     * @param step time step
+     * @return number of pairs which reached the time step
+     */
+    public synchronized long count(int step) {
+        return counts[step];
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return mean of the first members
+     */
+    public synchronized double meanX(int step, int column) {
+        return meansX[step * columns + column];
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return mean of the second members
+     */
+    public synchronized double meanY(int step, int column) {
+        return meansY[step * columns + column];
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return sample variance of the first members, 0 for a single pair
+     */
+    public synchronized double varianceX(int step, int column) {
+        long n = counts[step];
+        return (n > 1) ? squaresX[step * columns + column] / (n - 1) : 0;
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return sample variance of the second members, 0 for a single pair
+     */
+    public synchronized double varianceY(int step, int column) {
+        long n = counts[step];
+        return (n > 1) ? squaresY[step * columns + column] / (n - 1) : 0;
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return sample covariance of the members, 0 for a single pair
+     */
+    public synchronized double covariance(int step, int column) {
+        long n = counts[step];
+        return (n > 1) ? products[step * columns + column] / (n - 1) : 0;
+    }
+
+    /**
+     * @param step   time step
+     * @param column column
+     * @return correlation of the members, 0 if one of them does not vary
+     */
+    public synchronized double correlation(int step, int column) {
+        double sd = Math.sqrt(varianceX(step, column) * varianceY(step, column));
+        return (sd > 0) ? covariance(step, column) / sd : 0;
+    }
+
+    /**
+     * estimate for antithetic pairs, where the mean of both members estimates the same quantity:
+     * Var(X) + Var(Y) over Var(X) + Var(Y) + 2 Cov(X, Y), i.e. the variance of the mean of two independent
+     * repetitions divided by the variance of the mean of a pair
+     *
+     * @param step   time step
+     * @param column column
+     * @return variance reduction factor, above 1 if the pairs pay off
+     */
+    public synchronized double antitheticReduction(int step, int column) {
+        return ratio(varianceX(step, column) + varianceY(step, column), 2 * covariance(step, column));
+    }
+
+    /**
+     * estimate for common random numbers, where the difference of the members is of interest, e.g. of two
+     * calibration candidates: Var(X) + Var(Y) over Var(X) + Var(Y) - 2 Cov(X, Y), i.e. the variance of the
+     * difference of independent repetitions divided by the variance of the difference of paired ones
+     *
+     * @param step   time step
+     * @param column column
+     * @return variance reduction factor, above 1 if the common random numbers pay off
+     */
+    public synchronized double commonRandomReduction(int step, int column) {
+        return ratio(varianceX(step, column) + varianceY(step, column), -2 * covariance(step, column));
+    }
+
+    private static double ratio(double variances, double covariances) {
+        if (variances + covariances <= 0) {
+            return (variances > 0) ? Double.POSITIVE_INFINITY : 1;
+        }
+        return variances / (variances + covariances);
+    }
+
+    private void grow(int steps) {
+        if (steps <= counts.length) {
+            return;
+        }
+        counts = Arrays.copyOf(counts, steps);
+        meansX = Arrays.copyOf(meansX, steps * columns);
+        meansY = Arrays.copyOf(meansY, steps * columns);
+        squaresX = Arrays.copyOf(squaresX, steps * columns);
+        squaresY = Arrays.copyOf(squaresY, steps * columns);
+        products = Arrays.copyOf(products, steps * columns);
+    }
+}
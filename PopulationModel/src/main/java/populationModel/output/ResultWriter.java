@@ -0,0 +1,18 @@
+package populationModel.output;
+
+import java.io.Closeable;
+import java.io.Flushable;
+import java.io.IOException;
+
+/**
+ * Writes the trajectories of a simulation's repetitions, e.g. as text or in a binary format. The header is written
+ * when the writer is created. After flush, everything written so far is in the file, e.g. before a checkpoint.
+ */
+public interface ResultWriter extends Closeable, Flushable {
+    /**
+     * @param repetition index of the repetition, starting at 0
+     * @param trajectory all arrays returned by Simulation.next() during the repetition
+     * @throws IOException if writing fails
+     */
+    void write(int repetition, int[][] trajectory) throws IOException;
+}
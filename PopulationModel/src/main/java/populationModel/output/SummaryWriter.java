@@ -0,0 +1,77 @@
+package populationModel.output;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.PrintWriter;
+import java.nio.charset.StandardCharsets;
+import java.util.Locale;
+
+/**
+ * Aggregates all repetitions instead of writing them, the summary table (one line per time step and column) is
+ * written when the writer is closed
+ */
+public class SummaryWriter implements ResultWriter {
+    public static final String HEADER = "time, column, n, mean, sd, min, q05, q25, median, q75, q95, max";
+    private static final double[] QUANTILES = {0, 0.05, 0.25, 0.5, 0.75, 0.95, 1};
+
+    private final PrintWriter out;
+    private final String[] columnNames;
+    private final Aggregate aggregate;
+
+    /**
+     * @param out      destination, closed with the writer
+     * @param header   column names, separated by ", "
+     * @param comments lines written before the header, each starting with "# "
+     */
+    public SummaryWriter(OutputStream out, String header, String... comments) {
+        this.out = new PrintWriter(new OutputStreamWriter(out, StandardCharsets.UTF_8));
+        columnNames = header.split(", ");
+        aggregate = new Aggregate(columnNames.length);
+        for (String comment : comments) {
+            this.out.println("# " + comment);
+        }
+    }
+
+    @Override
+    public void write(int repetition, int[][] trajectory) {
+        aggregate.add(trajectory);
+    }
+
+    /**
+     * add repetitions which were aggregated elsewhere, e.g. by ReplicationRunner.aggregate
+     *
+     * @param partial aggregate with the same columns
+     */
+    public void merge(Aggregate partial) {
+        aggregate.merge(partial);
+    }
+
+    /**
+     * nothing is written before the writer is closed
+     */
+    @Override
+    public void flush() {
+    }
+
+    @Override
+    public void close() throws IOException {
+        out.println(HEADER);
+        for (int t = 0; t < aggregate.getSteps(); t++) {
+            // the first column is the time itself
+            // decimal points in every locale, the columns are separated by commas
+            for (int c = 1; c < columnNames.length; c++) {
+                out.printf(Locale.ROOT, "%d, %s, %d, %.4f, %.4f", t, columnNames[c], aggregate.count(t), aggregate.mean(t, c),
+                        Math.sqrt(aggregate.variance(t, c)));
+                for (double q : QUANTILES) {
+                    out.printf(Locale.ROOT, ", %.2f", aggregate.quantile(t, c, q));
+                }
+                out.println();
+            }
+        }
+        out.close();
+        if (out.checkError()) {
+            throw new IOException("Cannot write the summary.");
+        }
+    }
+}
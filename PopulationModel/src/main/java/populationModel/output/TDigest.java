@@ -0,0 +1,275 @@
+package populationModel.output;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * Streaming quantile sketch (merging t-digest, Dunning and Ertl 2019). Values are collected in a buffer, which is
+ * sorted and merged into at most about 2 * compression centroids whenever it is full. Centroids near the tails hold
+ * few values, so extreme quantiles stay accurate. Memory only depends on the compression, not on the number of
+ * values, and digests of parts of the data can be merged.
+ */
+public final class TDigest {
+    private final double compression;
+
+    // centroids, sorted by mean
+    private double[] means;
+    private double[] weights;
+    private int centroids = 0;
+    // the centroids are merged into these arrays, then the arrays are swapped
+    private double[] nextMeans;
+    private double[] nextWeights;
+
+    // values which are not merged into the centroids yet
+    private final double[] bufferMeans;
+    private final double[] bufferWeights;
+    private int buffered = 0;
+
+    private double totalWeight = 0;
+    private double min = Double.POSITIVE_INFINITY;
+    private double max = Double.NEGATIVE_INFINITY;
+
+    /**
+     * @param compression accuracy parameter, e.g. 100; memory grows linearly with it
+     */
+    public TDigest(double compression) {
+        if (!(compression >= 10)) {
+            throw new IllegalArgumentException("The compression must be at least 10.");
+        }
+        this.compression = compression;
+        int capacity = 2 * (int) Math.ceil(compression) + 10;
+        means = new double[capacity];
+        weights = new double[capacity];
+        nextMeans = new double[capacity];
+        nextWeights = new double[capacity];
+        bufferMeans = new double[capacity];
+        bufferWeights = new double[capacity];
+    }
+
+    /**
+     * @param x value to add
+     */
+    public void add(double x) {
+        add(x, 1);
+    }
+
+    /**
+     * @param x      value to add
+     * @param weight number of times the value is added
+     */
+    public void add(double x, double weight) {
+        if (buffered == bufferMeans.length) {
+            compress();
+        }
+        bufferMeans[buffered] = x;
+        bufferWeights[buffered++] = weight;
+        totalWeight += weight;
+        min = Math.min(min, x);
+        max = Math.max(max, x);
+    }
+
+    /**
+     * add all values summarized by another digest
+     *
+     * @param other digest, not changed
+     */
+    public void merge(TDigest other) {
+        for (int i = 0; i < other.centroids; i++) {
+            add(other.means[i], other.weights[i]);
+        }
+        for (int i = 0; i < other.buffered; i++) {
+            add(other.bufferMeans[i], other.bufferWeights[i]);
+        }
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+    }
+
+    /**
+     * @param q probability in [0, 1]
+     * @return estimated q-quantile, NaN if the digest is empty
+     */
+    public double quantile(double q) {
+        compress();
+        if (centroids == 0) {
+            return Double.NaN;
+        }
+        if (q <= 0) {
+            return min;
+        }
+        if (q >= 1) {
+            return max;
+        }
+        if (centroids == 1) {
+            return means[0];
+        }
+        double target = q * totalWeight;
+        // the centre of centroid i is at cumulative weight (sum of previous weights) + weights[i] / 2
+        if (target < weights[0] / 2) {
+            return min + (means[0] - min) * target / (weights[0] / 2);
+        }
+        double cumulative = weights[0] / 2;
+        for (int i = 0; i < centroids - 1; i++) {
+            double step = (weights[i] + weights[i + 1]) / 2;
+            if (target < cumulative + step) {
+                return means[i] + (means[i + 1] - means[i]) * (target - cumulative) / step;
+            }
+            cumulative += step;
+        }
+        double last = weights[centroids - 1] / 2;
+        return means[centroids - 1] + (max - means[centroids - 1]) * Math.min(1, (target - cumulative) / last);
+    }
+
+    /**
+     * @return number of values
+     */
+    public double size() {
+        return totalWeight;
+    }
+
+    /**
+     * write the digest, e.g. to send it to another process; the buffer is merged into the centroids first
+     *
+     * @param out destination
+     * @throws IOException if writing fails
+     */
+    public void write(DataOutput out) throws IOException {
+        compress();
+        out.writeDouble(compression);
+        out.writeDouble(totalWeight);
+        out.writeDouble(min);
+        out.writeDouble(max);
+        out.writeInt(centroids);
+        for (int i = 0; i < centroids; i++) {
+            out.writeDouble(means[i]);
+            out.writeDouble(weights[i]);
+        }
+    }
+
+    /**
+     * @param in source, positioned at what write wrote
+     * @return the digest
+     * @throws IOException if reading fails or the data is no digest
+     */
+    public static TDigest read(DataInput in) throws IOException {
+        double compression = in.readDouble();
+        if (!(compression >= 10 && compression <= 1e6)) {
+            throw new IOException(String.format("Invalid compression %s of a digest.", compression));
+        }
+        TDigest digest = new TDigest(compression);
+        digest.totalWeight = in.readDouble();
+        digest.min = in.readDouble();
+        digest.max = in.readDouble();
+        int n = in.readInt();
+        if (n < 0 || n > digest.means.length) {
+            throw new IOException(String.format("Invalid number of centroids %d of a digest.", n));
+        }
+        for (int i = 0; i < n; i++) {
+            digest.means[i] = in.readDouble();
+            digest.weights[i] = in.readDouble();
+        }
+        digest.centroids = n;
+        return digest;
+    }
+
+    /**
+     * merge the buffer into the centroids
+     */
+    private void compress() {
+        if (buffered == 0) {
+            return;
+        }
+        sort(bufferMeans, bufferWeights, 0, buffered - 1);
+        // merge two sorted sequences, combining neighbours as long as the scale function allows
+        double[] newMeans = nextMeans;
+        double[] newWeights = nextWeights;
+        int n = 0;
+        int i = 0;
+        int j = 0;
+        double weightSoFar = 0;
+        double limit = totalWeight * qOfK(kOfQ(0) + 1);
+        double currentMean = 0;
+        double currentWeight = 0;
+        while (i < centroids || j < buffered) {
+            double mean;
+            double weight;
+            if (j >= buffered || (i < centroids && means[i] <= bufferMeans[j])) {
+                mean = means[i];
+                weight = weights[i++];
+            } else {
+                mean = bufferMeans[j];
+                weight = bufferWeights[j++];
+            }
+            if (currentWeight == 0) {
+                currentMean = mean;
+                currentWeight = weight;
+            } else if (weightSoFar + currentWeight + weight <= limit || n == newMeans.length - 1) {
+                currentWeight += weight;
+                currentMean += (mean - currentMean) * weight / currentWeight;
+            } else {
+                newMeans[n] = currentMean;
+                newWeights[n++] = currentWeight;
+                weightSoFar += currentWeight;
+                limit = totalWeight * qOfK(kOfQ(weightSoFar / totalWeight) + 1);
+                currentMean = mean;
+                currentWeight = weight;
+            }
+        }
+        newMeans[n] = currentMean;
+        newWeights[n++] = currentWeight;
+        nextMeans = means;
+        nextWeights = weights;
+        means = newMeans;
+        weights = newWeights;
+        centroids = n;
+        buffered = 0;
+    }
+
+    /**
+     * scale function k1, centroids may span one unit of k
+     */
+    private double kOfQ(double q) {
+        return compression / (2 * Math.PI) * Math.asin(2 * Math.min(1, q) - 1);
+    }
+
+    private double qOfK(double k) {
+        return (Math.sin(Math.min(k, compression / 4) * 2 * Math.PI / compression) + 1) / 2;
+    }
+
+    /**
+     * quicksort of the values, the weights are swapped along
+     */
+    private static void sort(double[] values, double[] weights, int from, int to) {
+        while (from < to) {
+            double pivot = values[(from + to) >>> 1];
+            int i = from;
+            int j = to;
+            while (i <= j) {
+                while (values[i] < pivot) {
+                    i++;
+                }
+                while (values[j] > pivot) {
+                    j--;
+                }
+                if (i <= j) {
+                    double v = values[i];
+                    values[i] = values[j];
+                    values[j] = v;
+                    double w = weights[i];
+                    weights[i] = weights[j];
+                    weights[j] = w;
+                    i++;
+                    j--;
+                }
+            }
+            // recurse into the smaller part, loop over the larger one
+            if (j - from < to - i) {
+                sort(values, weights, from, j);
+                from = i;
+            } else {
+                sort(values, weights, i, to);
+                to = j;
+            }
+        }
+    }
+}
@@ -7,6 +7,11 @@ import populationModel.Action;
  */
 public interface Person {
 
+    /**
+     * ID of people, which are only counted but not tracked individually
+     */
+    int NO_ID = -1;
+
     /**
      * get ID associated with person; Java's max. int is ~ 2*10^9
      * @return person ID
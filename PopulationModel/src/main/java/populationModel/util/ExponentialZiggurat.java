@@ -0,0 +1,71 @@
+package populationModel.util;
+
+/**
+ * Tables of the ziggurat method for the standard exponential distribution (Marsaglia and Tsang 2000), with 256
+ * layers and 53 bit uniforms. About 99% of the draws only need one random long, a table lookup and a multiplication,
+ * the logarithm of the inverse transformation is only needed in the tail.
+ */
+final class ExponentialZiggurat {
+    private static final int LAYERS = 256;
+    private static final int MASK = LAYERS - 1;
+    /**
+     * start of the tail (right edge of the base layer)
+     */
+    private static final double R = 7.69711747013104972;
+    /**
+     * area of each layer
+     */
+    private static final double V = 3.949659822581572e-3;
+    private static final double M = 0x1.0p53;
+
+    // k: acceptance thresholds of the 53 bit uniforms, w: scale of a layer, f: density at the layer's edge
+    private static final long[] K = new long[LAYERS];
+    private static final double[] W = new double[LAYERS];
+    private static final double[] F = new double[LAYERS];
+
+    static {
+        double d = R;
+        double t = d;
+        double q = V / Math.exp(-d);
+        K[0] = (long) ((d / q) * M);
+        K[1] = 0;
+        W[0] = q / M;
+        W[LAYERS - 1] = d / M;
+        F[0] = 1;
+        F[LAYERS - 1] = Math.exp(-d);
+        for (int i = LAYERS - 2; i >= 1; i--) {
+            d = -Math.log(V / d + Math.exp(-d));
+            K[i + 1] = (long) ((d / t) * M);
+            t = d;
+            F[i] = Math.exp(-d);
+            W[i] = d / M;
+        }
+    }
+
+    private ExponentialZiggurat() {
+    }
+
+    /**
+     * @param random stream to draw from
+     * @return one draw from the exponential distribution with rate 1
+     */
+    static double next(RandomStream random) {
+        while (true) {
+            long bits = random.nextLong();
+            // the layer is chosen by the lowest bits, which are not part of the uniform
+            int i = (int) bits & MASK;
+            long u = bits >>> 11;
+            if (u < K[i]) {
+                return u * W[i];
+            }
+            if (i == 0) {
+                // tail: memoryless, so it is again exponential, shifted by R
+                return R - Math.log(1 - random.randomUnif());
+            }
+            double x = u * W[i];
+            if (F[i] + random.randomUnif() * (F[i - 1] - F[i]) < Math.exp(-x)) {
+                return x;
+            }
+        }
+    }
+}
@@ -0,0 +1,110 @@
+package populationModel.util;
+
+/**
+ * Draws the age at which an event with an age-specific rate happens, e.g. death according to a life table. The rate
+ * is constant within each year of age, the last one holds for all higher ages. The age is found by inverting the
+ * cumulative hazard H: an Exp(1) draw e moves a person of age x to the age H^-1(H(x) + e). A guide table over the
+ * values of H finds the year of age with O(1) comparisons on average, no matter how many ages the table has.
+ * <p>
+ * Instances are immutable, so one sampler can be shared by all replications and threads.
+ */
+public final class HazardSampler {
+    private final double[] rates;
+
+    /**
+     * cumulative hazard at the start of every year of age, cumulative[0] = 0
+     */
+    private final double[] cumulative;
+
+    /**
+     * guide[k] is the last age whose cumulative hazard is at most k * width
+     */
+    private final int[] guide;
+    private final double width;
+
+    /**
+     * @param rates rate per year of age, starting at age 0; non-negative and finite
+     */
+    public HazardSampler(double[] rates) {
+        if (rates.length == 0) {
+            throw new IllegalArgumentException("Provide a rate for at least one age.");
+        }
+        for (int a = 0; a < rates.length; a++) {
+            if (!(rates[a] >= 0) || Double.isInfinite(rates[a])) {
+                throw new IllegalArgumentException(String.format(
+                        "The rate %.4f at age %d is not a non-negative number.", rates[a], a));
+            }
+        }
+        this.rates = rates.clone();
+        int n = rates.length;
+        cumulative = new double[n];
+        for (int a = 1; a < n; a++) {
+            cumulative[a] = cumulative[a - 1] + rates[a - 1];
+        }
+        guide = new int[n];
+        double total = cumulative[n - 1];
+        width = (total > 0) ? total / n : 1;
+        int a = 0;
+        for (int k = 0; k < n; k++) {
+            while (a + 1 < n && cumulative[a + 1] <= k * width) {
+                a++;
+            }
+            guide[k] = a;
+        }
+    }
+
+    /**
+     * @param age exact age
+     * @return cumulative hazard from birth up to the age
+     */
+    public double cumulative(double age) {
+        if (!(age > 0)) {
+            return 0;
+        }
+        int a = (int) Math.min(age, rates.length - 1);
+        return cumulative[a] + (age - a) * rates[a];
+    }
+
+    /**
+     * @param hazard cumulative hazard, non-negative
+     * @return age at which the cumulative hazard is reached, Double.POSITIVE_INFINITY if never
+     */
+    public double age(double hazard) {
+        int k = (int) (hazard / width);
+        int a = (k < guide.length) ? guide[k] : rates.length - 1;
+        while (a + 1 < rates.length && cumulative[a + 1] <= hazard) {
+            a++;
+        }
+        double rest = hazard - cumulative[a];
+        if (rest <= 0) {
+            return a;
+        }
+        return (rates[a] > 0) ? a + rest / rates[a] : Double.POSITIVE_INFINITY;
+    }
+
+    /**
+     * draw the age of the next event of a person, given that it did not happen before
+     *
+     * @param fromAge current age of the person
+     * @param random  stream for the Exp(1) draw
+     * @return age at the event, at least fromAge; Double.POSITIVE_INFINITY if the event never happens
+     */
+    public double next(double fromAge, RandomStream random) {
+        return age(cumulative(fromAge) + random.randomExp(1));
+    }
+
+    /**
+     * @param age year of age
+     * @return rate within that year
+     */
+    public double rate(int age) {
+        return rates[Math.max(Math.min(age, rates.length - 1), 0)];
+    }
+
+    /**
+     * @return rate per year of age, the last one holds for all higher ages
+     */
+    public double[] getRates() {
+        return rates.clone();
+    }
+}
@@ -0,0 +1,119 @@
+package populationModel.util;
+
+/**
+ * Hands out person IDs, starting at 0. IDs of people who left are handed out again, so the IDs stay dense (below
+ * the largest number of people alive at the same time) and can be used as indices into primitive arrays.
+ * <p>
+ * The allocator is not synchronized: every simulation owns its allocator, so simulations running on different
+ * threads never share one, and a reset starts again at 0, no matter how many runs came before.
+ */
+public final class IdAllocator {
+    private int next = 0;
+
+    /**
+     * released IDs, the last one is handed out first
+     */
+    private final IntList free = new IntList();
+
+    /**
+     * number of IDs handed out since the last reset, including recycled ones
+     */
+    private long issued = 0;
+
+    public IdAllocator() {
+    }
+
+    /**
+     * @param next   first new ID to hand out, e.g. read from a checkpoint
+     * @param free   released IDs, see getFree
+     * @param issued number of IDs handed out so far, see getIssued
+     */
+    public IdAllocator(int next, int[] free, long issued) {
+        if (next < 0 || issued < 0) {
+            throw new IllegalArgumentException("IDs must not be negative.");
+        }
+        this.next = next;
+        for (int id : free) {
+            release(id);
+        }
+        this.issued = issued;
+    }
+
+    /**
+     * @param other allocator whose position and released IDs are copied
+     */
+    public IdAllocator(IdAllocator other) {
+        next = other.next;
+        free.addAll(other.free.elements(), 0, other.free.size());
+        issued = other.issued;
+    }
+
+    /**
+     * @return a released ID, or else one which has not been handed out since the last reset
+     * @throws IllegalStateException if Integer.MAX_VALUE IDs are in use at the same time
+     */
+    public int next() {
+        if (free.size() > 0) {
+            issued++;
+            return free.removeLast();
+        }
+        if (next == Integer.MAX_VALUE) {
+            throw new IllegalStateException(String.format("No more IDs available, %d are in use.", next));
+        }
+        issued++;
+        return next++;
+    }
+
+    /**
+     * hand out an ID again, once no event refers to it any more
+     *
+     * @param id ID which was handed out by next() and is not released yet
+     */
+    public void release(int id) {
+        if (id < 0 || id >= next) {
+            throw new IllegalArgumentException(String.format("ID %d was not handed out, the next one is %d.", id,
+                    next));
+        }
+        free.add(id);
+    }
+
+    /**
+     * start again at ID 0
+     */
+    public void reset() {
+        next = 0;
+        free.clear();
+        issued = 0;
+    }
+
+    /**
+     * @return bound of the IDs handed out since the last reset, i.e. every ID is smaller
+     */
+    public int getAllocated() {
+        return next;
+    }
+
+    /**
+     * @return number of IDs in use
+     */
+    public int getInUse() {
+        return next - free.size();
+    }
+
+    /**
+     * @return number of IDs handed out since the last reset, counting recycled IDs every time, so it does not
+     * overflow even after billions of people
+     */
+    public long getIssued() {
+        return issued;
+    }
+
+    /**
+     * @return released IDs in the order they are kept, e.g. for a checkpoint
+     */
+    public int[] getFree() {
+        int[] ids = new int[free.size()];
+        System.arraycopy(free.elements(), 0, ids, 0, ids.length);
+        return ids;
+    }
+}
@@ -1,7 +1,5 @@
 package populationModel.util;
 
-import static populationModel.util.RandomGenerator.randomNorm;
-
 /**
  * object which bundles the parameters for immigration
  */
@@ -47,12 +45,21 @@ public class ImmigrationParameters {
         this.sdAge = sdAge;
     }
 
+    /**
+     * copy all immigration parameters of another object
+     * @param other parameters to copy
+     */
+    public ImmigrationParameters(ImmigrationParameters other) {
+        this(other.initalRate, other.slope, other.proportionF, other.meanAge, other.sdAge);
+    }
+
     /**
      * normally distributed variable
+     * @param random stream to draw from
      * @return the positive part of the generated integer
      */
-    public int randomAge() {
-        int age = (int) randomNorm(meanAge, sdAge);
+    public int randomAge(RandomStream random) {
+        int age = (int) random.randomNorm(meanAge, sdAge);
         return (age > 0) ? age : 0;
     }
 
@@ -99,4 +106,12 @@ public class ImmigrationParameters {
     public double getSlope() {
         return slope;
     }
+
+    public double getMeanAge() {
+        return meanAge;
+    }
+
+    public double getSdAge() {
+        return sdAge;
+    }
 }
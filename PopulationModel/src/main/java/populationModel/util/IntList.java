@@ -0,0 +1,107 @@
+package populationModel.util;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of primitive ints, avoids boxing every element like ArrayList&lt;Integer&gt; does
+ */
+public final class IntList {
+    private static final int DEFAULT_CAPACITY = 8;
+
+    private int[] elements;
+    private int size = 0;
+
+    public IntList() {
+        this(DEFAULT_CAPACITY);
+    }
+
+    /**
+     * @param capacity number of elements which fit in without growing
+     */
+    public IntList(int capacity) {
+        elements = new int[Math.max(capacity, 1)];
+    }
+
+    /**
+     * @param other list whose elements are copied
+     */
+    public IntList(IntList other) {
+        elements = Arrays.copyOf(other.elements, Math.max(other.size, 1));
+        size = other.size;
+    }
+
+    /**
+     * append a value at the end of the list
+     *
+     * @param value new element
+     */
+    public void add(int value) {
+        if (size == elements.length) {
+            elements = Arrays.copyOf(elements, 2 * size);
+        }
+        elements[size++] = value;
+    }
+
+    /**
+     * append values[from], ..., values[to - 1]
+     *
+     * @param values array of values
+     * @param from   first position (inclusive)
+     * @param to     last position (exclusive)
+     */
+    public void addAll(int[] values, int from, int to) {
+        int n = to - from;
+        if (size + n > elements.length) {
+            elements = Arrays.copyOf(elements, Math.max(2 * elements.length, size + n));
+        }
+        System.arraycopy(values, from, elements, size, n);
+        size += n;
+    }
+
+    /**
+     * @param i position
+     * @return element at position i
+     */
+    public int get(int i) {
+        if (i >= size) {
+            throw new IndexOutOfBoundsException("Index " + i + ", size " + size);
+        }
+        return elements[i];
+    }
+
+    /**
+     * remove the element at the end of the list, e.g. to use it as a stack
+     *
+     * @return the removed element
+     */
+    public int removeLast() {
+        if (size == 0) {
+            throw new IndexOutOfBoundsException("The list is empty.");
+        }
+        return elements[--size];
+    }
+
+    /**
+     * @return number of elements
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * remove all elements, but keep the allocated memory
+     */
+    public void clear() {
+        size = 0;
+    }
+
+    /**
+     * the backing array, only the first size() elements are valid. Changes to the list are not reflected once the
+     * array had to grow.
+     *
+     * @return the backing array
+     */
+    public int[] elements() {
+        return elements;
+    }
+}
@@ -0,0 +1,36 @@
+package populationModel.util;
+
+import java.util.Arrays;
+
+/**
+ * Selects how a rate schedule given at a few points in time is filled in between them, set with the field
+ * rate_interpolation in the input file. Before the first and after the last point, the rate of that point holds.
+ */
+public enum Interpolation {
+    /**
+     * piecewise constant, each rate holds until the next point
+     */
+    STEP,
+    /**
+     * straight lines between neighbouring points
+     */
+    LINEAR,
+    /**
+     * natural cubic spline through all points, smooth but may overshoot between them
+     */
+    SPLINE;
+
+    /**
+     * @param name name of the interpolation, case insensitive
+     * @return the associated interpolation
+     */
+    public static Interpolation parse(String name) {
+        for (Interpolation interpolation : values()) {
+            if (interpolation.name().equalsIgnoreCase(name.trim())) {
+                return interpolation;
+            }
+        }
+        throw new IllegalArgumentException(String.format("Unknown interpolation <%s>, choose one of %s.", name,
+                Arrays.toString(values()).toLowerCase()));
+    }
+}
@@ -0,0 +1,111 @@
+package populationModel.util;
+
+import java.util.Arrays;
+
+/**
+ * A rate schedule through given points (knots), see Interpolation. Immutable.
+ */
+final class KnotSchedule implements RateSchedule {
+    private final int[] times;
+    private final double[] rates;
+    private final Interpolation interpolation;
+
+    /**
+     * second derivatives of the natural cubic spline at the knots, only used with Interpolation.SPLINE
+     */
+    private final double[] curvature;
+
+    /**
+     * @param times         increasing time steps, at least one
+     * @param rates         rate at each time step
+     * @param interpolation how the rates between the time steps are filled in
+     */
+    KnotSchedule(int[] times, double[] rates, Interpolation interpolation) {
+        if (times.length == 0 || times.length != rates.length) {
+            throw new IllegalArgumentException(String.format(
+                    "Provide at least one time step and one rate per time step, not %d and %d.",
+                    times.length, rates.length));
+        }
+        if (interpolation == null) {
+            throw new NullPointerException("Please provide an interpolation.");
+        }
+        for (int i = 1; i < times.length; i++) {
+            if (times[i] <= times[i - 1]) {
+                throw new IllegalArgumentException(String.format(
+                        "The time steps must increase, but %d follows %d.", times[i], times[i - 1]));
+            }
+        }
+        this.times = times.clone();
+        this.rates = rates.clone();
+        this.interpolation = interpolation;
+        curvature = (interpolation == Interpolation.SPLINE) ? naturalSpline(this.times, this.rates) : null;
+    }
+
+    @Override
+    public double rate(int t) {
+        int last = times.length - 1;
+        if (t <= times[0]) {
+            return rates[0];
+        }
+        if (t >= times[last]) {
+            return rates[last];
+        }
+        int i = Arrays.binarySearch(times, t);
+        if (i >= 0) {
+            return rates[i];
+        }
+        // times[i] < t < times[i + 1]
+        i = -i - 2;
+        if (interpolation == Interpolation.STEP) {
+            return rates[i];
+        }
+        double h = times[i + 1] - times[i];
+        double b = (t - times[i]) / h;
+        double a = 1 - b;
+        double r = a * rates[i] + b * rates[i + 1];
+        if (interpolation == Interpolation.SPLINE) {
+            r += ((a * a * a - a) * curvature[i] + (b * b * b - b) * curvature[i + 1]) * h * h / 6;
+        }
+        return r;
+    }
+
+    /**
+     * solve the tridiagonal system of the natural cubic spline, whose second derivative is 0 at both ends
+     *
+     * @param x increasing knots
+     * @param y values at the knots
+     * @return second derivatives at the knots
+     */
+    private static double[] naturalSpline(int[] x, double[] y) {
+        int n = x.length;
+        double[] m = new double[n];
+        if (n < 3) {
+            return m;
+        }
+        // forward elimination of the inner equations
+        // h[i-1] m[i-1] + 2 (h[i-1] + h[i]) m[i] + h[i] m[i+1] = 6 (slope[i] - slope[i-1])
+        double[] diagonal = new double[n];
+        double[] right = new double[n];
+        for (int i = 1; i < n - 1; i++) {
+            double h0 = x[i] - x[i - 1];
+            double h1 = x[i + 1] - x[i];
+            diagonal[i] = 2 * (h0 + h1);
+            right[i] = 6 * ((y[i + 1] - y[i]) / h1 - (y[i] - y[i - 1]) / h0);
+            if (i > 1) {
+                double factor = h0 / diagonal[i - 1];
+                diagonal[i] -= factor * h0;
+                right[i] -= factor * right[i - 1];
+            }
+        }
+        for (int i = n - 2; i >= 1; i--) {
+            m[i] = (right[i] - (x[i + 1] - x[i]) * m[i + 1]) / diagonal[i];
+        }
+        return m;
+    }
+
+    @Override
+    public String toString() {
+        return String.format("%s through %d time steps from %d to %d", interpolation.name().toLowerCase(),
+                times.length, times[0], times[times.length - 1]);
+    }
+}
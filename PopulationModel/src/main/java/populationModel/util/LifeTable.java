@@ -0,0 +1,163 @@
+package populationModel.util;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Age-specific rates per year of age, e.g. from an official life table, which replace the constant rates of a
+ * person's birth cohort. Every schedule is optional; a missing one (null) leaves the rate of PopulationParameters in
+ * place. The samplers are built once, so the table can be shared by all simulations of a parameter set.
+ */
+public final class LifeTable {
+    /**
+     * columns of the csv file, besides age
+     */
+    public static final String[] COLUMNS = {"death_f", "death_m", "emigration_f", "emigration_m", "fertility"};
+
+    private static final int DEATH_F = 0;
+    private static final int DEATH_M = 1;
+    private static final int EMIGRATION_F = 2;
+    private static final int EMIGRATION_M = 3;
+    private static final int FERTILITY = 4;
+
+    /**
+     * one sampler per column, null if the column is missing
+     */
+    private final HazardSampler[] samplers = new HazardSampler[COLUMNS.length];
+
+    /**
+     * @param schedules rates per year of age in the order of COLUMNS, each may be null
+     */
+    public LifeTable(double[][] schedules) {
+        if (schedules.length != COLUMNS.length) {
+            throw new IllegalArgumentException(String.format("Provide %d schedules, one per column of %s.",
+                    COLUMNS.length, Arrays.toString(COLUMNS)));
+        }
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (schedules[c] != null) {
+                samplers[c] = new HazardSampler(schedules[c]);
+            }
+        }
+        for (int c : new int[]{DEATH_F, DEATH_M}) {
+            if (samplers[c] != null && samplers[c].rate(Integer.MAX_VALUE) <= 0) {
+                throw new IllegalArgumentException(String.format(
+                        "The rate %s of the oldest age must be positive, otherwise people never die.", COLUMNS[c]));
+            }
+        }
+    }
+
+    /**
+     * read a csv file: lines starting with "#" are skipped, the first other line names the columns. The column age
+     * must count the years of age from 0 without gaps, the other columns are the ones of COLUMNS (all optional) and
+     * hold rates per person and year, e.g. m_x of a life table. The rates of the last line hold for all higher ages.
+     *
+     * @param path csv file
+     * @return the schedules of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static LifeTable read(String path) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String[] header = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s*,\\s*");
+                if (header == null) {
+                    header = fields;
+                } else {
+                    rows.add(fields);
+                }
+            }
+        }
+        if (header == null || rows.isEmpty()) {
+            throw new IOException(String.format("<%s> has no header or no rates.", path));
+        }
+        List<String> names = Arrays.asList(header);
+        int ageColumn = names.indexOf("age");
+        if (ageColumn < 0) {
+            throw new IOException(String.format("Required column <age> not found in <%s>.", path));
+        }
+        double[][] schedules = new double[COLUMNS.length][];
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            try {
+                if (Integer.parseInt(row[ageColumn]) != i) {
+                    throw new IOException(String.format("Line <%s> of <%s> should be age %d, ages start at 0 and "
+                            + "have no gaps.", String.join(", ", row), path, i));
+                }
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    int column = names.indexOf(COLUMNS[c]);
+                    if (column >= 0) {
+                        if (schedules[c] == null) {
+                            schedules[c] = new double[rows.size()];
+                        }
+                        schedules[c][i] = Double.parseDouble(row[column]);
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(String.format("Cannot parse line <%s> of <%s>.", String.join(", ", row), path));
+            }
+        }
+        try {
+            return new LifeTable(schedules);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("Invalid rates in <%s>: %s", path, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param female true for women
+     * @return sampler of the age at death, or null if the rates of PopulationParameters apply
+     */
+    public HazardSampler getDeath(boolean female) {
+        return samplers[female ? DEATH_F : DEATH_M];
+    }
+
+    /**
+     * @param female true for women
+     * @return sampler of the age at emigration, or null if the rates of PopulationParameters apply
+     */
+    public HazardSampler getEmigration(boolean female) {
+        return samplers[female ? EMIGRATION_F : EMIGRATION_M];
+    }
+
+    /**
+     * @return sampler of the mothers' ages at births, or null if the rates of PopulationParameters apply
+     */
+    public HazardSampler getFertility() {
+        return samplers[FERTILITY];
+    }
+
+    /**
+     * @return rates per year of age in the order of COLUMNS, null for missing columns
+     */
+    public double[][] getSchedules() {
+        double[][] schedules = new double[COLUMNS.length][];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (samplers[c] != null) {
+                schedules[c] = samplers[c].getRates();
+            }
+        }
+        return schedules;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("{");
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (samplers[c] != null) {
+                s.append((s.length() > 1) ? ", " : "").append(COLUMNS[c]).append(" for ")
+                        .append(samplers[c].getRates().length).append(" ages");
+            }
+        }
+        return s.append('}').toString();
+    }
+}
@@ -85,6 +85,21 @@ public class PopulationParameters {
         slopeBirthRate = 0;
     }
 
+    /**
+     * copy all parameters of another population
+     *
+     * @param other parameters to copy
+     */
+    public PopulationParameters(PopulationParameters other) {
+        this.initialPopulationSize = other.initialPopulationSize;
+        this.deathRate = other.deathRate;
+        this.emigrationRate = other.emigrationRate;
+        this.birthRate = other.birthRate;
+        this.slopeDeathRate = other.slopeDeathRate;
+        this.slopeEmigrationRate = other.slopeEmigrationRate;
+        this.slopeBirthRate = other.slopeBirthRate;
+    }
+
     // getters
 
     public int getInitialPopulationSize() {
@@ -127,6 +142,21 @@ public class PopulationParameters {
      * @return a birthrate or an IllegalArgumentException, if for the chosen parameters the birthrate drops below 0 or above 1.
      */
     public double getBirthRate(int t) {
+        double r = getUnboundedBirthRate(t);
+        if (r >= 1) {
+            throw new IllegalArgumentException(String.format(
+                    "Computed an birth rate of %.2f. This is computationally too expensive.\n" +
+                            "[t = %d, rate = %.2f, slope = %.2f]", r, t, birthRate, slopeBirthRate));
+        }
+        return r;
+    }
+
+    /**
+     * get the birthrate at a given time, without upper limit. Only use this, if births are drawn one at a time.
+     * @param t time
+     * @return a birthrate or an IllegalArgumentException, if for the chosen parameters the birthrate drops below 0.
+     */
+    public double getUnboundedBirthRate(int t) {
         if (birthRate == UNDEFINED_BIRTHRATE) {
             throw new NullPointerException("No birthrate was specified.");
         }
@@ -135,10 +165,6 @@ public class PopulationParameters {
             throw new IllegalArgumentException(String.format(
                     "Computed an birth rate of %.2f. Only positive values are allowed.\n" +
                             "[t = %d, rate = %.2f, slope = %.2f]", r, t, birthRate, slopeBirthRate));
-        } else if (r >= 1) {
-            throw new IllegalArgumentException(String.format(
-                    "Computed an birth rate of %.2f. This is computationally too expensive.\n" +
-                            "[t = %d, rate = %.2f, slope = %.2f]", r, t, birthRate, slopeBirthRate));
         }
         return r;
     }
@@ -1,14 +1,13 @@
 package populationModel.util;
 
-import java.util.Random;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
- * Provides random generators (i.e. rexp, rnorm)
+ * Provides random generators (i.e. rexp, rnorm). Every thread draws from its own generator, so simulations
+ * running in parallel do not compete for a shared seed.
  */
 public final class RandomGenerator {
 
-    private static final Random rand = new Random();
-
     private RandomGenerator(){
     }
 
@@ -25,7 +24,7 @@ public final class RandomGenerator {
      * @return double from U(0, 1)
      */
     public static double randomUnif() {
-        return rand.nextDouble();
+        return ThreadLocalRandom.current().nextDouble();
     }
 
     /**
@@ -34,11 +33,35 @@ public final class RandomGenerator {
      * @return one draw from normal distribution
      */
     public static double randomNorm(double mean, double sd) {
-        double z = rand.nextGaussian();
+        double z = ThreadLocalRandom.current().nextGaussian();
         return z*sd + mean;
     }
 
     public static double u2exp(double u, double lambda) {
         return Math.log(1-u)/(-lambda);
     }
+
+    /**
+     * log(k!) from a table for small k, otherwise from Stirling's series
+     * @param k non-negative integer
+     * @return natural logarithm of k!
+     */
+    public static double logFactorial(long k) {
+        if (k < LOG_FACTORIAL.length) {
+            return LOG_FACTORIAL[(int) k];
+        }
+        double x = k + 1;
+        double inv = 1 / x;
+        double inv2 = inv * inv;
+        return (x - 0.5) * Math.log(x) - x + 0.5 * Math.log(2 * Math.PI)
+                + inv * (1.0 / 12 - inv2 * (1.0 / 360 - inv2 / 1260));
+    }
+
+    private static final double[] LOG_FACTORIAL = new double[256];
+
+    static {
+        for (int k = 1; k < LOG_FACTORIAL.length; k++) {
+            LOG_FACTORIAL[k] = LOG_FACTORIAL[k - 1] + Math.log(k);
+        }
+    }
 }
@@ -0,0 +1,366 @@
+package populationModel.util;
+
+/**
+ * A seedable stream of random numbers (SplitMix64), which is not synchronized and therefore must only be used by
+ * one simulation at a time. Streams form a tree: every stream can derive independent child streams from its seed,
+ * e.g. master seed - replication - purpose, so that each part of a run can be reproduced on its own.
+ */
+public final class RandomStream {
+    private static final long GOLDEN_GAMMA = 0x9e3779b97f4a7c15L;
+    private static final double DOUBLE_UNIT = 0x1.0p-53;
+
+    /**
+     * seed the stream was created with, identifies the stream in the seed tree
+     */
+    private final long seed;
+
+    /**
+     * current state, advanced by every draw
+     */
+    private long state;
+
+    /**
+     * true, if exponential draws use inversion instead of the ziggurat, so that they are monotone in the uniform
+     */
+    private final boolean inversion;
+
+    /**
+     * all bits set, if every draw is mirrored (u becomes 1-u), otherwise 0
+     */
+    private final long flip;
+
+    /**
+     * @param seed start value of the stream
+     */
+    public RandomStream(long seed) {
+        this(seed, seed, false, 0);
+    }
+
+    /**
+     * continue a stream, e.g. from a checkpoint
+     *
+     * @param seed  seed the stream was created with
+     * @param state current state, see getState
+     */
+    public RandomStream(long seed, long state) {
+        this(seed, state, false, 0);
+    }
+
+    /**
+     * @param other stream whose seed and current state are copied, both streams then draw the same numbers
+     */
+    public RandomStream(RandomStream other) {
+        this(other.seed, other.state, other.inversion, other.flip);
+    }
+
+    private RandomStream(long seed, long state, boolean inversion, long flip) {
+        this.seed = seed;
+        this.state = state;
+        this.inversion = inversion;
+        this.flip = flip;
+    }
+
+    /**
+     * create one half of an antithetic pair. Both halves draw exponentials by inversion; the mirrored half returns
+     * 1-u wherever the other one returns u, so every inversion sample of one half is negatively correlated with the
+     * sample of the other. Normal draws and the rejection branches of randomPoisson and randomBinomial (large
+     * means) are not monotone and therefore only shared, not mirrored.
+     *
+     * @param mirrored true for the half which draws 1-u
+     * @return a stream with the same seed and state, whose children are coupled the same way
+     */
+    public RandomStream coupled(boolean mirrored) {
+        return new RandomStream(seed, state, true, mirrored ? ~0L : 0);
+    }
+
+    /**
+     * create a child stream, which only depends on this stream's seed and the key (not on the numbers drawn so far)
+     *
+     * @param key index of the child, e.g. the replication number
+     * @return an independent stream
+     */
+    public RandomStream derive(long key) {
+        long child = mix64(mix64(seed) + (key + 1) * GOLDEN_GAMMA);
+        return new RandomStream(child, child, inversion, flip);
+    }
+
+    /**
+     * create a child stream, which depends on the numbers drawn so far and the key, e.g. to let branches of a run
+     * continue with different random numbers
+     *
+     * @param key index of the branch
+     * @return an independent stream
+     */
+    public RandomStream branch(long key) {
+        return new RandomStream(state, state, inversion, flip).derive(key);
+    }
+
+    /**
+     * @return next 64 random bits
+     */
+    public long nextLong() {
+        state += GOLDEN_GAMMA;
+        return mix64(state) ^ flip;
+    }
+
+    /**
+     * @return double from U(0, 1)
+     */
+    public double randomUnif() {
+        return (nextLong() >>> 11) * DOUBLE_UNIT;
+    }
+
+    /**
+     * ziggurat method, see ExponentialZiggurat, or inversion for coupled streams
+     *
+     * @param lambda rate
+     * @return one draw from an exponential distribution
+     */
+    public double randomExp(double lambda) {
+        if (inversion) {
+            return randomExpInversion(lambda);
+        }
+        return ExponentialZiggurat.next(this) / lambda;
+    }
+
+    /**
+     * inverse transformation, slower than randomExp, but monotone in the uniform draw
+     *
+     * @param lambda rate
+     * @return one draw from an exponential distribution, using exactly one uniform
+     */
+    public double randomExpInversion(double lambda) {
+        return RandomGenerator.u2exp(randomUnif(), lambda);
+    }
+
+    /**
+     * fill a block of an array with uniform draws, same as calling randomUnif() for each element
+     *
+     * @param out  array to fill
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     */
+    public void fillUnif(double[] out, int from, int to) {
+        long s = state;
+        for (int i = from; i < to; i++) {
+            s += GOLDEN_GAMMA;
+            out[i] = ((mix64(s) ^ flip) >>> 11) * DOUBLE_UNIT;
+        }
+        state = s;
+    }
+
+    /**
+     * fill a block of an array with exponential draws, same as calling randomExp(lambda) for each element
+     *
+     * @param out    array to fill
+     * @param from   first index, inclusive
+     * @param to     last index, exclusive
+     * @param lambda rate
+     */
+    public void fillExp(double[] out, int from, int to, double lambda) {
+        if (inversion) {
+            for (int i = from; i < to; i++) {
+                out[i] = randomExpInversion(lambda);
+            }
+            return;
+        }
+        double scale = 1 / lambda;
+        for (int i = from; i < to; i++) {
+            out[i] = ExponentialZiggurat.next(this) * scale;
+        }
+    }
+
+    /**
+     * fill a block of an array with normal draws. Both values of every Box-Muller transformation are used, so
+     * this takes half the uniforms (and logarithms) of calling randomNorm for each element.
+     *
+     * @param out  array to fill
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     * @param mean expectation
+     * @param sd   standard deviation
+     */
+    public void fillNorm(double[] out, int from, int to, double mean, double sd) {
+        int i = from;
+        while (i < to) {
+            double u = 1 - randomUnif();
+            double v = 2 * Math.PI * randomUnif();
+            double r = Math.sqrt(-2 * Math.log(u)) * sd;
+            out[i++] = r * Math.cos(v) + mean;
+            if (i < to) {
+                out[i++] = r * Math.sin(v) + mean;
+            }
+        }
+    }
+
+    /**
+     * fill a block of an array with Bernoulli draws, same as setting out[i] = (randomUnif() &lt; p) ? 1 : 0
+     *
+     * @param out  array to fill with 0 and 1
+     * @param from first index, inclusive
+     * @param to   last index, exclusive
+     * @param p    probability of 1
+     * @return number of ones
+     */
+    public int fillBernoulli(int[] out, int from, int to, double p) {
+        // randomUnif() < p is the same as comparing the 53 bit integers, without converting them
+        long threshold = (long) Math.ceil(p * 0x1.0p53);
+        long s = state;
+        int ones = 0;
+        for (int i = from; i < to; i++) {
+            s += GOLDEN_GAMMA;
+            int one = (((mix64(s) ^ flip) >>> 11) < threshold) ? 1 : 0;
+            out[i] = one;
+            ones += one;
+        }
+        state = s;
+        return ones;
+    }
+
+    /**
+     * Box-Muller transformation, uses two uniform draws per call
+     *
+     * @param mean expectation
+     * @param sd   standard deviation
+     * @return one draw from normal distribution
+     */
+    public double randomNorm(double mean, double sd) {
+        double u = 1 - randomUnif();
+        double v = randomUnif();
+        double z = Math.sqrt(-2 * Math.log(u)) * Math.cos(2 * Math.PI * v);
+        return z * sd + mean;
+    }
+
+    /**
+     * number of events of a Poisson process; O(1) for large means (transformed rejection, Hoermann 1993)
+     *
+     * @param mean expected number of events
+     * @return one draw from a Poisson distribution
+     */
+    public long randomPoisson(double mean) {
+        if (mean <= 0) {
+            return 0;
+        }
+        if (mean < 10) {
+            // inversion by sequential search
+            long k = 0;
+            double p = Math.exp(-mean);
+            double sum = p;
+            double u = randomUnif();
+            while (u > sum && p > 0) {
+                k++;
+                p *= mean / k;
+                sum += p;
+            }
+            return k;
+        }
+        double slam = Math.sqrt(mean);
+        double logMean = Math.log(mean);
+        double b = 0.931 + 2.53 * slam;
+        double a = -0.059 + 0.02483 * b;
+        double invAlpha = 1.1239 + 1.1328 / (b - 3.4);
+        double vr = 0.9277 - 3.6224 / (b - 2);
+        while (true) {
+            double u = randomUnif() - 0.5;
+            double v = randomUnif();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + mean + 0.43);
+            if (us >= 0.07 && v <= vr) {
+                return k;
+            }
+            if (k < 0 || (us < 0.013 && v > us)) {
+                continue;
+            }
+            if (Math.log(v) + Math.log(invAlpha) - Math.log(a / (us * us) + b)
+                    <= -mean + k * logMean - RandomGenerator.logFactorial(k)) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * number of successes in n independent trials; O(1) for large n*p (transformed rejection, Hoermann 1993)
+     *
+     * @param n number of trials
+     * @param p probability of success
+     * @return one draw from a binomial distribution
+     */
+    public long randomBinomial(long n, double p) {
+        if (n <= 0 || p <= 0) {
+            return 0;
+        }
+        if (p >= 1) {
+            return n;
+        }
+        if (p > 0.5) {
+            return n - randomBinomial(n, 1 - p);
+        }
+        double q = 1 - p;
+        if (n * p < 10) {
+            // inversion by sequential search
+            double s = p / q;
+            double a = (n + 1) * s;
+            double r = Math.exp(n * Math.log(q));
+            double u = randomUnif();
+            long k = 0;
+            while (u > r && k < n) {
+                u -= r;
+                k++;
+                r *= a / k - s;
+            }
+            return k;
+        }
+        double spq = Math.sqrt(n * p * q);
+        double b = 1.15 + 2.53 * spq;
+        double a = -0.0873 + 0.0248 * b + 0.01 * p;
+        double c = n * p + 0.5;
+        double vr = 0.92 - 4.2 / b;
+        double alpha = (2.83 + 5.1 / b) * spq;
+        double lpq = Math.log(p / q);
+        long m = (long) Math.floor((n + 1) * p);
+        double h = RandomGenerator.logFactorial(m) + RandomGenerator.logFactorial(n - m);
+        while (true) {
+            double u = randomUnif() - 0.5;
+            double v = randomUnif();
+            double us = 0.5 - Math.abs(u);
+            long k = (long) Math.floor((2 * a / us + b) * u + c);
+            if (k < 0 || k > n) {
+                continue;
+            }
+            if (us >= 0.07 && v <= vr) {
+                return k;
+            }
+            v = Math.log(v * alpha / (a / (us * us) + b));
+            if (v <= h - RandomGenerator.logFactorial(k) - RandomGenerator.logFactorial(n - k) + (k - m) * lpq) {
+                return k;
+            }
+        }
+    }
+
+    /**
+     * @return seed the stream was created with
+     */
+    public long getSeed() {
+        return seed;
+    }
+
+    /**
+     * @return current state, which together with the seed determines all following numbers
+     */
+    public long getState() {
+        return state;
+    }
+
+    /**
+     * @return true, if the stream is the mirrored half of an antithetic pair, see coupled
+     */
+    public boolean isMirrored() {
+        return flip != 0;
+    }
+
+    private static long mix64(long z) {
+        z = (z ^ (z >>> 30)) * 0xbf58476d1ce4e5b9L;
+        z = (z ^ (z >>> 27)) * 0x94d049bb133111ebL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,108 @@
+package populationModel.util;
+
+/**
+ * Bundles the random streams of one simulation run. Every purpose draws from its own stream, which is derived
+ * from the master seed and the replication number only.
+ */
+public final class RandomStreams {
+
+    /**
+     * the parts of the model which consume random numbers
+     */
+    public enum Purpose {
+        DEATH,
+        EMIGRATION,
+        BIRTH,
+        IMMIGRATION,
+        SEX
+    }
+
+    private final RandomStream[] streams = new RandomStream[Purpose.values().length];
+
+    /**
+     * @param masterSeed  seed of the whole experiment
+     * @param replication number of the run
+     */
+    public RandomStreams(long masterSeed, long replication) {
+        this(masterSeed, replication, false);
+    }
+
+    /**
+     * @param masterSeed  seed of the whole experiment
+     * @param replication number of the run
+     * @param antithetic  if true, replications 2k and 2k+1 share their streams, the odd one mirrored, see
+     *                    RandomStream.coupled
+     */
+    public RandomStreams(long masterSeed, long replication, boolean antithetic) {
+        RandomStream run = antithetic
+                ? new RandomStream(masterSeed).derive(replication >> 1).coupled((replication & 1) != 0)
+                : new RandomStream(masterSeed).derive(replication);
+        for (Purpose p : Purpose.values()) {
+            streams[p.ordinal()] = run.derive(p.ordinal());
+        }
+    }
+
+    /**
+     * @param streams one stream per purpose, in the order of Purpose, e.g. read from a checkpoint
+     */
+    public RandomStreams(RandomStream[] streams) {
+        if (streams.length != this.streams.length) {
+            throw new IllegalArgumentException(String.format("Provide exactly %d streams.", this.streams.length));
+        }
+        System.arraycopy(streams, 0, this.streams, 0, streams.length);
+    }
+
+    /**
+     * @param other streams whose current states are copied
+     * @param branch if negative, the copies draw the same numbers as the original streams, otherwise the index of
+     *               a branch, see RandomStream.branch
+     */
+    public RandomStreams(RandomStreams other, long branch) {
+        for (int i = 0; i < streams.length; i++) {
+            streams[i] = (branch < 0) ? new RandomStream(other.streams[i]) : other.streams[i].branch(branch);
+        }
+    }
+
+    /**
+     * @param purpose what the random numbers are used for
+     * @return stream associated with the purpose
+     */
+    public RandomStream get(Purpose purpose) {
+        return streams[purpose.ordinal()];
+    }
+
+    /**
+     * @return stream for the time until death
+     */
+    public RandomStream death() {
+        return get(Purpose.DEATH);
+    }
+
+    /**
+     * @return stream for the time until emigration
+     */
+    public RandomStream emigration() {
+        return get(Purpose.EMIGRATION);
+    }
+
+    /**
+     * @return stream for the times between births
+     */
+    public RandomStream birth() {
+        return get(Purpose.BIRTH);
+    }
+
+    /**
+     * @return stream for arrival times, sex and age of immigrants
+     */
+    public RandomStream immigration() {
+        return get(Purpose.IMMIGRATION);
+    }
+
+    /**
+     * @return stream for the sex of newborns
+     */
+    public RandomStream sex() {
+        return get(Purpose.SEX);
+    }
+}
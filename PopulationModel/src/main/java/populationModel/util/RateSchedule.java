@@ -0,0 +1,42 @@
+package populationModel.util;
+
+/**
+ * A rate as a function of the time step, e.g. the death rate of the cohort born at time t. Schedules are only
+ * evaluated when a RateTable is compiled, so they may be slow; the simulations look the rates up in the table.
+ */
+public interface RateSchedule {
+    /**
+     * @param t time step, may be negative or beyond the duration
+     * @return rate at time t, not checked for validity
+     */
+    double rate(int t);
+
+    /**
+     * @param rate  rate at time 0
+     * @param slope change of the rate per time step
+     * @return the schedule rate + t * slope, as given by PopulationParameters and ImmigrationParameters
+     */
+    static RateSchedule linear(double rate, double slope) {
+        return new RateSchedule() {
+            @Override
+            public double rate(int t) {
+                return rate + t * slope;
+            }
+
+            @Override
+            public String toString() {
+                return String.format("rate = %.2f, slope = %.2f", rate, slope);
+            }
+        };
+    }
+
+    /**
+     * @param times         increasing time steps
+     * @param rates         rate at each time step
+     * @param interpolation how the rates between the time steps are filled in
+     * @return a schedule through the points, which holds the first and last rate outside of them
+     */
+    static RateSchedule interpolate(int[] times, double[] rates, Interpolation interpolation) {
+        return new KnotSchedule(times, rates, interpolation);
+    }
+}
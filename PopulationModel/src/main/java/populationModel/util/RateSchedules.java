@@ -0,0 +1,184 @@
+package populationModel.util;
+
+import java.io.BufferedReader;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Rates given at a few time steps, e.g. projections of an official agency, which replace the linear rates
+ * (rate + t * slope) of PopulationParameters and ImmigrationParameters. Like those, the rates of people depend on
+ * the time step of their birth, only the immigration rate on the current time step. Every schedule is optional; a
+ * missing one (null) leaves the linear rate in place.
+ */
+public final class RateSchedules {
+    /**
+     * columns of the csv file, besides time
+     */
+    public static final String[] COLUMNS = {"death_f", "death_m", "emigration_f", "emigration_m", "birth",
+            "immigration"};
+
+    private static final int DEATH_F = 0;
+    private static final int DEATH_M = 1;
+    private static final int EMIGRATION_F = 2;
+    private static final int EMIGRATION_M = 3;
+    private static final int BIRTH = 4;
+    private static final int IMMIGRATION = 5;
+
+    private final int[] times;
+    private final double[][] rates;
+    private final Interpolation interpolation;
+
+    /**
+     * one schedule per column, null if the column is missing
+     */
+    private final RateSchedule[] schedules = new RateSchedule[COLUMNS.length];
+
+    /**
+     * @param times         increasing time steps
+     * @param rates         rates at the time steps in the order of COLUMNS, each may be null
+     * @param interpolation how the rates between the time steps are filled in
+     */
+    public RateSchedules(int[] times, double[][] rates, Interpolation interpolation) {
+        if (rates.length != COLUMNS.length) {
+            throw new IllegalArgumentException(String.format("Provide %d schedules, one per column of %s.",
+                    COLUMNS.length, Arrays.toString(COLUMNS)));
+        }
+        this.times = times.clone();
+        this.rates = new double[COLUMNS.length][];
+        this.interpolation = interpolation;
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (rates[c] != null) {
+                this.rates[c] = rates[c].clone();
+                schedules[c] = RateSchedule.interpolate(times, rates[c], interpolation);
+            }
+        }
+    }
+
+    /**
+     * read a csv file: lines starting with "#" are skipped, the first other line names the columns. The column time
+     * holds increasing time steps, the other columns are the ones of COLUMNS (all optional) and hold rates per person
+     * (per region for immigration) and time step.
+     *
+     * @param path          csv file
+     * @param interpolation how the rates between the time steps of the file are filled in
+     * @return the schedules of the file
+     * @throws IOException if the file cannot be read or is malformed
+     */
+    public static RateSchedules read(String path, Interpolation interpolation) throws IOException {
+        List<String[]> rows = new ArrayList<>();
+        String[] header = null;
+        try (BufferedReader reader = new BufferedReader(new FileReader(path))) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                line = line.trim();
+                if (line.isEmpty() || line.startsWith("#")) {
+                    continue;
+                }
+                String[] fields = line.split("\\s*,\\s*");
+                if (header == null) {
+                    header = fields;
+                } else {
+                    rows.add(fields);
+                }
+            }
+        }
+        if (header == null || rows.isEmpty()) {
+            throw new IOException(String.format("<%s> has no header or no rates.", path));
+        }
+        List<String> names = Arrays.asList(header);
+        int timeColumn = names.indexOf("time");
+        if (timeColumn < 0) {
+            throw new IOException(String.format("Required column <time> not found in <%s>.", path));
+        }
+        int[] times = new int[rows.size()];
+        double[][] rates = new double[COLUMNS.length][];
+        for (int i = 0; i < rows.size(); i++) {
+            String[] row = rows.get(i);
+            try {
+                times[i] = Integer.parseInt(row[timeColumn]);
+                for (int c = 0; c < COLUMNS.length; c++) {
+                    int column = names.indexOf(COLUMNS[c]);
+                    if (column >= 0) {
+                        if (rates[c] == null) {
+                            rates[c] = new double[rows.size()];
+                        }
+                        rates[c][i] = Double.parseDouble(row[column]);
+                    }
+                }
+            } catch (NumberFormatException | ArrayIndexOutOfBoundsException e) {
+                throw new IOException(String.format("Cannot parse line <%s> of <%s>.", String.join(", ", row), path));
+            }
+        }
+        try {
+            return new RateSchedules(times, rates, interpolation);
+        } catch (IllegalArgumentException e) {
+            throw new IOException(String.format("Invalid schedule in <%s>: %s", path, e.getMessage()));
+        }
+    }
+
+    /**
+     * @param female true for women
+     * @return death rate per birth cohort, or null if the linear rate applies
+     */
+    public RateSchedule getDeath(boolean female) {
+        return schedules[female ? DEATH_F : DEATH_M];
+    }
+
+    /**
+     * @param female true for women
+     * @return emigration rate per birth cohort, or null if the linear rate applies
+     */
+    public RateSchedule getEmigration(boolean female) {
+        return schedules[female ? EMIGRATION_F : EMIGRATION_M];
+    }
+
+    /**
+     * @return birth rate of women per birth cohort, or null if the linear rate applies
+     */
+    public RateSchedule getBirth() {
+        return schedules[BIRTH];
+    }
+
+    /**
+     * @return immigration rate per time step, or null if the linear rate applies
+     */
+    public RateSchedule getImmigration() {
+        return schedules[IMMIGRATION];
+    }
+
+    public int[] getTimes() {
+        return times.clone();
+    }
+
+    /**
+     * @return rates at the time steps in the order of COLUMNS, null for missing columns
+     */
+    public double[][] getRates() {
+        double[][] copy = new double[COLUMNS.length][];
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (rates[c] != null) {
+                copy[c] = rates[c].clone();
+            }
+        }
+        return copy;
+    }
+
+    public Interpolation getInterpolation() {
+        return interpolation;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder s = new StringBuilder("{");
+        for (int c = 0; c < COLUMNS.length; c++) {
+            if (schedules[c] != null) {
+                s.append((s.length() > 1) ? ", " : "").append(COLUMNS[c]);
+            }
+        }
+        return s.append(" by ").append(interpolation.name().toLowerCase()).append(" through ")
+                .append(times.length).append(" time steps}").toString();
+    }
+}
@@ -0,0 +1,73 @@
+package populationModel.util;
+
+/**
+ * A rate schedule compiled into one value per time step of the horizon and validated once, so the simulations look
+ * rates up in a primitive array instead of computing and checking them for every person. Times outside of the
+ * horizon, e.g. after Simulation.extend, are computed from the schedule and checked on every call.
+ * <p>
+ * Instances are immutable, so one table can be shared by all replications and threads.
+ */
+public final class RateTable {
+    private final String name;
+    private final RateSchedule schedule;
+    private final double limit;
+    private final double[] rates;
+
+    /**
+     * @param name     name of the rate for error messages, e.g. "death rate"
+     * @param schedule rate per time step
+     * @param horizon  number of time steps from 0 which are compiled and validated
+     * @param limit    rates must be smaller, Double.POSITIVE_INFINITY for no upper limit
+     * @throws IllegalArgumentException if a rate of the horizon is negative, not a number or not below the limit
+     */
+    public RateTable(String name, RateSchedule schedule, int horizon, double limit) {
+        if (horizon < 0) {
+            throw new IllegalArgumentException("Please provide a non-negative horizon.");
+        }
+        this.name = name;
+        this.schedule = schedule;
+        this.limit = limit;
+        rates = new double[horizon];
+        for (int t = 0; t < horizon; t++) {
+            rates[t] = check(schedule.rate(t), t);
+        }
+    }
+
+    /**
+     * @param t time step
+     * @return the rate at time t
+     * @throws IllegalArgumentException if t is outside of the horizon and the rate is invalid
+     */
+    public double at(int t) {
+        if (t >= 0 && t < rates.length) {
+            return rates[t];
+        }
+        return check(schedule.rate(t), t);
+    }
+
+    private double check(double r, int t) {
+        if (!(r >= 0 && r < limit)) {
+            String reason = (r >= limit) ? "This is computationally too expensive."
+                    : "Only positive values are allowed.";
+            throw new IllegalArgumentException(String.format("Computed %s %s of %.2f. %s\n[t = %d, %s]",
+                    ("aeiou".indexOf(name.charAt(0)) >= 0) ? "an" : "a", name, r, reason, t, schedule));
+        }
+        return r;
+    }
+
+    /**
+     * @return number of compiled time steps, starting at 0
+     */
+    public int getHorizon() {
+        return rates.length;
+    }
+
+    public RateSchedule getSchedule() {
+        return schedule;
+    }
+
+    @Override
+    public String toString() {
+        return name + " {" + schedule + '}';
+    }
+}
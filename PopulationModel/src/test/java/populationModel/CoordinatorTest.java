@@ -0,0 +1,93 @@
+package populationModel;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import populationModel.output.Aggregate;
+
+import java.io.IOException;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+/**
+ * Runs worker processes on the loopback interface and compares their results with ReplicationRunner, also when a
+ * worker is killed while it runs.
+ */
+public class CoordinatorTest {
+    private static final int REPS = 12;
+
+    private static SimulationParameters parameters;
+    private static int[][][] reference;
+
+    @BeforeClass
+    public static void runLocally() throws IOException, InterruptedException {
+        parameters = SimulationParameters.read("../Calibration/init.txt").withDuration(25).withSeed(42);
+        reference = new ReplicationRunner(parameters, 2).run(REPS);
+    }
+
+    @Test(timeout = 120000)
+    public void runMatchesThreads() throws IOException, InterruptedException {
+        int[][][] results = new int[REPS][][];
+        new Coordinator(parameters, 2).run(REPS, (repetition, trajectory) -> results[repetition] = trajectory);
+        for (int i = 0; i < REPS; i++) {
+            assertArrayEquals("repetition " + i, reference[i], results[i]);
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void runSurvivesKilledWorker() throws IOException, InterruptedException {
+        Coordinator coordinator = new Coordinator(parameters, 2);
+        int[][][] results = new int[REPS][][];
+        coordinator.run(REPS, (repetition, trajectory) -> {
+            results[repetition] = trajectory;
+            if (repetition == 1) {
+                coordinator.killWorker(0);
+            }
+        });
+        for (int i = 0; i < REPS; i++) {
+            assertArrayEquals("repetition " + i, reference[i], results[i]);
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void aggregateSurvivesKilledWorker() throws IOException, InterruptedException {
+        // large populations, so the run is still going when the worker is killed
+        SimulationParameters large = parameters.withInitialPopulation(100000, 100000);
+        Aggregate expected = new ReplicationRunner(large, 2).aggregate(REPS);
+        Coordinator coordinator = new Coordinator(large, 2);
+        Thread killer = new Thread(() -> {
+            try {
+                Thread.sleep(500);
+            } catch (InterruptedException e) {
+                return;
+            }
+            coordinator.killWorker(1);
+        });
+        killer.start();
+        Aggregate actual = coordinator.aggregate(REPS);
+        killer.join();
+        assertEquals(expected.getSteps(), actual.getSteps());
+        for (int t = 0; t < expected.getSteps(); t++) {
+            assertEquals(REPS, actual.count(t));
+            for (int c = 0; c < Simulation.COLUMNS; c++) {
+                double tolerance = 1e-9 * Math.max(1, Math.abs(expected.mean(t, c)));
+                assertEquals(expected.mean(t, c), actual.mean(t, c), tolerance);
+                assertEquals(expected.variance(t, c), actual.variance(t, c),
+                        1e-6 * Math.max(1, expected.variance(t, c)));
+            }
+        }
+    }
+
+    @Test(timeout = 120000)
+    public void failsWithoutRestarts() throws InterruptedException {
+        Coordinator coordinator = new Coordinator(parameters, 1);
+        coordinator.setMaxRestarts(0);
+        try {
+            coordinator.run(REPS, (repetition, trajectory) -> coordinator.killWorker(0));
+            fail("The run must fail once its only worker is gone.");
+        } catch (IOException e) {
+            // expected, instead of waiting forever
+        }
+    }
+}
@@ -0,0 +1,117 @@
+package populationModel;
+
+import org.junit.BeforeClass;
+import org.junit.Test;
+import populationModel.output.Aggregate;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Runs EngineMode.COUNTS and EngineMode.INDIVIDUAL with independent seeds on Calibration/init.txt and checks that
+ * both draw from the same distribution: per time step and column the means and variances agree, and a two-sample
+ * Kolmogorov-Smirnov test does not reject equal distributions of the population at the end.
+ */
+public class CountsEngineTest {
+    private static final int REPS = 400;
+    // bound of |z| for each of the many comparisons, a false alarm has a probability of about 1e-5
+    private static final double Z = 4.4;
+    // critical value of the KS statistic at a level of 0.001
+    private static final double KS = 1.95;
+
+    private static int[][][] counts;
+    private static int[][][] individual;
+
+    @BeforeClass
+    public static void runBoth() throws IOException, InterruptedException {
+        SimulationParameters parameters = SimulationParameters.read("../Calibration/init.txt");
+        counts = new ReplicationRunner(parameters.withEngine(EngineMode.COUNTS).withSeed(1), 2).run(REPS);
+        individual = new ReplicationRunner(parameters.withEngine(EngineMode.INDIVIDUAL).withSeed(2), 2).run(REPS);
+    }
+
+    @Test
+    public void sameMeans() {
+        Aggregate a = aggregate(counts);
+        Aggregate b = aggregate(individual);
+        assertEquals(b.getSteps(), a.getSteps());
+        for (int t = 0; t < a.getSteps(); t++) {
+            for (int c = 1; c < Simulation.COLUMNS; c++) {
+                double se = Math.sqrt((a.variance(t, c) + b.variance(t, c)) / REPS);
+                double difference = a.mean(t, c) - b.mean(t, c);
+                assertTrue(String.format("mean of column %d at step %d: %.3f vs %.3f", c, t, a.mean(t, c),
+                        b.mean(t, c)), (se > 0) ? Math.abs(difference) <= Z * se : difference == 0);
+            }
+        }
+    }
+
+    @Test
+    public void sameVariances() {
+        Aggregate a = aggregate(counts);
+        Aggregate b = aggregate(individual);
+        // standard error of the log of a ratio of two sample variances of (about) normal data
+        double se = Math.sqrt(4.0 / (REPS - 1));
+        for (int t = 0; t < a.getSteps(); t++) {
+            for (int c = 1; c < Simulation.COLUMNS; c++) {
+                double va = a.variance(t, c);
+                double vb = b.variance(t, c);
+                if (va == 0 || vb == 0) {
+                    assertEquals(String.format("variance of column %d at step %d", c, t), vb, va, 0);
+                    continue;
+                }
+                assertTrue(String.format("variance of column %d at step %d: %.3f vs %.3f", c, t, va, vb),
+                        Math.abs(Math.log(va / vb)) <= Z * se);
+            }
+        }
+    }
+
+    @Test
+    public void sameFinalPopulation() {
+        double[] a = finalPopulation(counts);
+        double[] b = finalPopulation(individual);
+        double d = ksStatistic(a, b);
+        assertTrue(String.format("KS statistic %.4f", d), d <= KS * Math.sqrt(2.0 / REPS));
+    }
+
+    private static Aggregate aggregate(int[][][] trajectories) {
+        Aggregate aggregate = new Aggregate(Simulation.COLUMNS);
+        for (int[][] trajectory : trajectories) {
+            aggregate.add(trajectory);
+        }
+        return aggregate;
+    }
+
+    private static double[] finalPopulation(int[][][] trajectories) {
+        double[] population = new double[trajectories.length];
+        for (int i = 0; i < trajectories.length; i++) {
+            int[] last = trajectories[i][trajectories[i].length - 1];
+            population[i] = last[1] + last[2];
+        }
+        Arrays.sort(population);
+        return population;
+    }
+
+    /**
+     * @param a sorted sample
+     * @param b sorted sample
+     * @return largest distance of the empirical distribution functions
+     */
+    private static double ksStatistic(double[] a, double[] b) {
+        int i = 0;
+        int j = 0;
+        double d = 0;
+        while (i < a.length && j < b.length) {
+            double x = Math.min(a[i], b[j]);
+            while (i < a.length && a[i] == x) {
+                i++;
+            }
+            while (j < b.length && b[j] == x) {
+                j++;
+            }
+            d = Math.max(d, Math.abs((double) i / a.length - (double) j / b.length));
+        }
+        return d;
+    }
+}
@@ -0,0 +1,43 @@
+package populationModel;
+
+import org.junit.Test;
+import populationModel.person.Person;
+import populationModel.util.RandomStreams;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Scheduling of births for women who enter the calendar after their own birth, e.g. immigrants
+ */
+public class EventHistoryTest {
+    private static final int START = 10;
+
+    /**
+     * @return calendar whose time steps before START are deleted
+     */
+    private static EventHistory calendar(long replication) {
+        EventHistory calendar = new EventHistory(EventHistory.DEFAULT_WINDOW, 100,
+                new RandomStreams(42, replication, false), false, BirthScheduling.NEXT);
+        calendar.deleteTimeUnit(START - 1);
+        return calendar;
+    }
+
+    @Test
+    public void nextBirthOfOlderMotherIsNotInThePast() {
+        for (int replication = 0; replication < 100; replication++) {
+            EventHistory calendar = calendar(replication);
+            int t = calendar.addNextBirth(Person.NO_ID, 0, 1000, 0.5);
+            assertTrue("birth at " + t, t >= START);
+            assertEquals(1, calendar.getOccupiedUnits());
+        }
+    }
+
+    @Test
+    public void noBirthBeforeTheMotherLeaves() {
+        EventHistory calendar = calendar(0);
+        // the mother already left, so no birth can be scheduled
+        assertEquals(PopulationTable.NO_BIRTH, calendar.addNextBirth(Person.NO_ID, 0, START - 1, 0.5));
+        assertEquals(0, calendar.getOccupiedUnits());
+    }
+}
@@ -0,0 +1,73 @@
+package populationModel;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+
+import static org.junit.Assert.fail;
+
+/**
+ * Repeats the same run with next(int[]) and checks that every engine stops allocating once the memory of earlier
+ * runs is large enough. A few runs may still allocate while the JIT compiles, so the test waits for a streak of runs
+ * which allocate nothing.
+ */
+public class SteppingAllocationTest {
+    private static final int WARMUP = 20;
+    private static final int RUNS = 200;
+    private static final int STREAK = 10;
+
+    private static final com.sun.management.ThreadMXBean THREADS =
+            (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+    @Test
+    public void individual() throws IOException {
+        assertStopsAllocating(EngineMode.INDIVIDUAL);
+    }
+
+    @Test
+    public void counts() throws IOException {
+        assertStopsAllocating(EngineMode.COUNTS);
+    }
+
+    @Test
+    public void continuous() throws IOException {
+        assertStopsAllocating(EngineMode.CONTINUOUS);
+    }
+
+    @Test
+    public void tauLeap() throws IOException {
+        assertStopsAllocating(EngineMode.TAU_LEAP);
+    }
+
+    private static void assertStopsAllocating(EngineMode engine) throws IOException {
+        SimulationParameters parameters = SimulationParameters.read("../Calibration/init.txt")
+                .withDuration(25).withEngine(engine);
+        Simulation sim = new Simulation(parameters);
+        int[] stats = new int[Simulation.COLUMNS];
+        for (int i = 0; i < WARMUP; i++) {
+            step(sim, stats);
+        }
+        int streak = 0;
+        long bytes = 0;
+        for (int i = 0; i < RUNS && streak < STREAK; i++) {
+            bytes = step(sim, stats);
+            streak = (bytes == 0) ? streak + 1 : 0;
+        }
+        if (streak < STREAK) {
+            fail(String.format("Stepping %s still allocates %d bytes per run.", engine, bytes));
+        }
+    }
+
+    /**
+     * @return bytes allocated while stepping through the run, without the reset
+     */
+    private static long step(Simulation sim, int[] stats) {
+        sim.reset(0);
+        long before = THREADS.getThreadAllocatedBytes(Thread.currentThread().getId());
+        while (sim.hasNext()) {
+            sim.next(stats);
+        }
+        return THREADS.getThreadAllocatedBytes(Thread.currentThread().getId()) - before;
+    }
+}
@@ -0,0 +1,34 @@
+package populationModel.metrics;
+
+import org.junit.Test;
+import populationModel.Simulation;
+import populationModel.SimulationParameters;
+
+import java.io.IOException;
+import java.util.Arrays;
+
+import static org.junit.Assert.assertEquals;
+
+/**
+ * Recording of the time steps of a simulation
+ */
+public class SimulationMetricsTest {
+
+    @Test
+    public void recordsOnlyTheColumnsOfLongerBuffers() throws IOException {
+        Simulation sim = new Simulation(SimulationParameters.read("../Calibration/init.txt"));
+        SimulationMetrics metrics = new SimulationMetrics();
+        sim.setMetrics(metrics);
+        sim.reset(0);
+        // the elements after Simulation.COLUMNS belong to the caller
+        int[] stats = new int[Simulation.COLUMNS + 3];
+        long births = 0;
+        while (sim.hasNext()) {
+            Arrays.fill(stats, 1);
+            sim.next(stats);
+            births += stats[3];
+            assertEquals(1, stats[Simulation.COLUMNS]);
+        }
+        assertEquals(births, metrics.getBirthsFemale());
+    }
+}